@@ -3,33 +3,54 @@ package com.matthewtamlin.rxmvpandroid.example;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.EditText;
 
+import com.matthewtamlin.rxmvpandroid.ChoreographerFrameClock;
+import com.matthewtamlin.rxmvpandroid.PresenterFactory;
 import com.matthewtamlin.rxmvpandroid.RxMvpActivity;
-import com.matthewtamlin.rxmvpandroid.example.data.InMemoryPlayerRepository;
-import com.matthewtamlin.rxmvpandroid.example.data.PlayerRepository;
 import com.matthewtamlin.rxmvpandroid.example.presentation.LeaderboardPresenter;
+import com.matthewtamlin.rxmvpandroid.example.presentation.PlayerSorter;
 import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView;
+import com.matthewtamlin.rxmvpandroid.example.view.RecyclerLeaderboardView;
 import com.matthewtamlin.rxmvpandroid.librarytestharnesses.R;
 
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.schedulers.Schedulers;
+
 /**
  * Hosts a {@link LeaderboardView} to display player high scores.
  */
 public class LeaderboardActivity extends RxMvpActivity<LeaderboardView, LeaderboardPresenter> {
-  private LeaderboardView leaderboardView;
+  private static final String PRESENTER_STORE_KEY = "leaderboard";
+
+  private static final int MAX_DISPLAYED_PLAYERS = 100;
 
-  private LeaderboardPresenter leaderboardPresenter;
+  private LeaderboardView leaderboardView;
 
   @Override
   protected void onCreate(@Nullable final Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
 
     setContentView(R.layout.leaderboard_activity);
-    leaderboardView = findViewById(R.id.leaderboard);
 
-    // Would probably inject this in a real scenario
-    final PlayerRepository playerRepository = new InMemoryPlayerRepository();
+    final RecyclerLeaderboardView recyclerLeaderboardView = findViewById(R.id.leaderboard);
+    leaderboardView = recyclerLeaderboardView;
+
+    final EditText searchQuery = findViewById(R.id.search_query);
+    searchQuery.addTextChangedListener(new TextWatcher() {
+      @Override
+      public void beforeTextChanged(final CharSequence text, final int start, final int count, final int after) {}
+
+      @Override
+      public void onTextChanged(final CharSequence text, final int start, final int before, final int count) {}
 
-    leaderboardPresenter = new LeaderboardPresenter(playerRepository, leaderboardView);
+      @Override
+      public void afterTextChanged(final Editable text) {
+        recyclerLeaderboardView.setSearchQuery(text.toString());
+      }
+    });
   }
 
   @NonNull
@@ -38,9 +59,27 @@ public class LeaderboardActivity extends RxMvpActivity<LeaderboardView, Leaderbo
     return leaderboardView;
   }
 
-  @NonNull
+  @Nullable
   @Override
-  public LeaderboardPresenter getPresenter() {
-    return leaderboardPresenter;
+  public String getPresenterStoreKey() {
+    // Identifies the screen, each instance of the activity still gets its own presenter
+    return PRESENTER_STORE_KEY;
+  }
+
+  @Nullable
+  @Override
+  public PresenterFactory<LeaderboardPresenter> getPresenterFactory() {
+    // Resolved here so the factory, and the retained presenter it creates, don't reference the activity
+    final LeaderboardApplication application = (LeaderboardApplication) getApplication();
+
+    // Invoked on a background thread, so building the dependencies doesn't delay the first frame
+    return () -> new LeaderboardPresenter(
+        application.getPlayerRepository(),
+        new ChoreographerFrameClock(),
+        AndroidSchedulers.mainThread(),
+        Schedulers.computation(),
+        // Only the top players are displayed, and the top ranking doesn't use the sorter
+        new PlayerSorter(Schedulers.computation(), Integer.MAX_VALUE),
+        MAX_DISPLAYED_PLAYERS);
   }
-}
\ No newline at end of file
+}
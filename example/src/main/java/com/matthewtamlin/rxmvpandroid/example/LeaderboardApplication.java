@@ -0,0 +1,92 @@
+package com.matthewtamlin.rxmvpandroid.example;
+
+import android.app.Application;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.matthewtamlin.rxmvpandroid.example.data.CachingPlayerRepository;
+import com.matthewtamlin.rxmvpandroid.example.data.InMemoryPlayerRepository;
+import com.matthewtamlin.rxmvpandroid.example.data.PlayerFileReader;
+import com.matthewtamlin.rxmvpandroid.example.data.PlayerImporter;
+import com.matthewtamlin.rxmvpandroid.example.data.PlayerRepository;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Owns the player repository, which outlives any one screen. Would probably be replaced by injection in a real
+ * scenario.
+ */
+public class LeaderboardApplication extends Application {
+  private static final String TAG = "LeaderboardApplication";
+
+  private static final String IMPORT_FILE_NAME = "leaderboard.csv";
+
+  private static final long CACHE_TIME_TO_LIVE_SECONDS = 30;
+
+  private static final long UPDATE_COALESCING_WINDOW_MILLIS = 50;
+
+  private static final long SNAPSHOT_GRACE_PERIOD_SECONDS = 5;
+
+  // Guarded by this, created on first use
+  private PlayerRepository playerRepository;
+
+  // Guarded by this, the import into the current repository
+  private Disposable importTask;
+
+  /**
+   * Gets the player repository, creating it if necessary. Creating the repository starts the import of the leaderboard
+   * file, so each file is imported once into the repository rather than once per screen. The repository is held in
+   * memory, so the file is left in place to be imported again when the process restarts.
+   *
+   * @return the player repository, not null
+   */
+  @NonNull
+  public synchronized PlayerRepository getPlayerRepository() {
+    if (playerRepository == null) {
+      playerRepository = createPlayerRepository();
+      importTask = importPlayers(playerRepository, new File(getFilesDir(), IMPORT_FILE_NAME));
+    }
+
+    return playerRepository;
+  }
+
+  private static PlayerRepository createPlayerRepository() {
+    return new CachingPlayerRepository(
+        new InMemoryPlayerRepository(
+            UPDATE_COALESCING_WINDOW_MILLIS,
+            TimeUnit.MILLISECONDS,
+            SNAPSHOT_GRACE_PERIOD_SECONDS,
+            TimeUnit.SECONDS,
+            AndroidSchedulers.mainThread()),
+        CACHE_TIME_TO_LIVE_SECONDS,
+        TimeUnit.SECONDS,
+        // The decorator applies writes to its own snapshot, so it has to coalesce them as well
+        UPDATE_COALESCING_WINDOW_MILLIS,
+        TimeUnit.MILLISECONDS,
+        AndroidSchedulers.mainThread());
+  }
+
+  /**
+   * Imports the players in a CSV leaderboard file, if it exists. The import runs in the background and isn't tied to
+   * any presenter, since the players belong to the repository rather than to any one screen.
+   *
+   * @return the import, or null if there is no file to import
+   */
+  private static Disposable importPlayers(final PlayerRepository playerRepository, final File file) {
+    if (!file.exists()) {
+      return null;
+    }
+
+    return new PlayerImporter(playerRepository, Schedulers.io())
+        .importPlayers(PlayerFileReader.readCsv(() -> new FileInputStream(file)))
+        .subscribe(
+            () -> Log.i(TAG, "Imported players from " + file + "."),
+            error -> Log.w(TAG, "Failed to import players from " + file + ".", error));
+  }
+}
@@ -0,0 +1,440 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import android.support.annotation.Nullable;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.matthewtamlin.rxmvpandroid.example.Pulse;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A PlayerRepository that caches the snapshots of another repository, so that a slow source is queried at most once
+ * per time-to-live window instead of once per subscription.
+ * <p>
+ * The snapshot of all players is the only query, so the cache holds a single entry. Fresh snapshots are emitted
+ * without touching the source. Stale snapshots are emitted immediately and then revalidated against the source, and
+ * the fresh snapshot is emitted once it arrives (stale-while-revalidate). Concurrent revalidations share a single
+ * source query.
+ * <p>
+ * Writes are passed through to the source and applied to the cached snapshot, so they are observed without querying
+ * the source. Like the writes of {@link InMemoryPlayerRepository}, they can be coalesced: the writes made within a
+ * window are applied to the cached snapshot in a single copy and produce a single emission. Changes made to the source
+ * by other means are observed on the next revalidation. Score changes are also applied to the cached snapshot, but
+ * they don't cause a snapshot to be emitted.
+ * <p>
+ * The source may answer a revalidation with a snapshot from before the latest writes, for example one replayed by a
+ * {@link GracePeriodShare}. Snapshots from the source have no version, so a revalidated snapshot only replaces the
+ * cached one if it includes every write applied to the cached snapshot since it was loaded. Otherwise the cached
+ * snapshot is kept, and stays stale so the next query revalidates again. Writes older than the time-to-live are
+ * assumed to have been overridden by other changes to the source if the source still doesn't include them.
+ */
+public class CachingPlayerRepository implements PlayerRepository {
+  private static final String ALL_PLAYERS_QUERY = "all_players";
+
+  private final Map<String, Single<Set<Player>>> revalidations = new HashMap<>();
+
+  /**
+   * The writes not yet applied to the cached snapshot, keyed by player name. Absent values are removals.
+   */
+  private final Map<String, Optional<Player>> pendingWrites = new HashMap<>();
+
+  /**
+   * Guarded by pendingWrites, the writes applied to the cached snapshot since it was loaded from the source, keyed by
+   * player name.
+   */
+  private final Map<String, AppliedWrite> appliedWrites = new HashMap<>();
+
+  private final PlayerRepository source;
+
+  private final ExpiringLruCache<String, Set<Player>> cache;
+
+  private final long timeToLiveMillis;
+
+  private final Scheduler scheduler;
+
+  private final UpdateCoalescer updateCoalescer;
+
+  private final Observable<Collection<Player>> scoreChanges;
+
+  private final NameIndexCache nameIndexCache = new NameIndexCache();
+
+  /**
+   * Constructs a new CachingPlayerRepository that emits an update for every write.
+   *
+   * @param source
+   *     the repository to cache
+   * @param timeToLive
+   *     how long snapshots remain fresh
+   * @param timeToLiveUnit
+   *     the unit of {@code timeToLive}
+   * @param scheduler
+   *     provides the current time
+   */
+  public CachingPlayerRepository(
+      final PlayerRepository source,
+      final long timeToLive,
+      final TimeUnit timeToLiveUnit,
+      final Scheduler scheduler) {
+
+    this(source, timeToLive, timeToLiveUnit, scheduler, new UpdateCoalescer());
+  }
+
+  /**
+   * Constructs a new CachingPlayerRepository that coalesces the updates of writes made within a window.
+   *
+   * @param source
+   *     the repository to cache
+   * @param timeToLive
+   *     how long snapshots remain fresh
+   * @param timeToLiveUnit
+   *     the unit of {@code timeToLive}
+   * @param coalescingWindow
+   *     the length of the coalescing window
+   * @param coalescingWindowUnit
+   *     the unit of {@code coalescingWindow}
+   * @param scheduler
+   *     provides the current time, and emits coalesced updates
+   */
+  public CachingPlayerRepository(
+      final PlayerRepository source,
+      final long timeToLive,
+      final TimeUnit timeToLiveUnit,
+      final long coalescingWindow,
+      final TimeUnit coalescingWindowUnit,
+      final Scheduler scheduler) {
+
+    this(
+        source,
+        timeToLive,
+        timeToLiveUnit,
+        scheduler,
+        new UpdateCoalescer(coalescingWindow, coalescingWindowUnit, scheduler));
+  }
+
+  private CachingPlayerRepository(
+      final PlayerRepository source,
+      final long timeToLive,
+      final TimeUnit timeToLiveUnit,
+      final Scheduler scheduler,
+      final UpdateCoalescer updateCoalescer) {
+
+    this.source = checkNotNull(source);
+    this.timeToLiveMillis = timeToLiveUnit.toMillis(timeToLive);
+    this.cache = new ExpiringLruCache<>(timeToLiveMillis, 1);
+    this.scheduler = checkNotNull(scheduler);
+    this.updateCoalescer = checkNotNull(updateCoalescer);
+
+    // Shared so that the cache is only updated once per change regardless of the number of observers
+    this.scoreChanges = source
+        .observeScoreChanges()
+        .doOnNext(this::updateCachedScores)
+        .share();
+  }
+
+  @Override
+  public Observable<Set<Player>> observePlayers() {
+    return updateCoalescer
+        .observeUpdates()
+        .startWith(Pulse.getInstance())
+        .switchMap(pulse -> load(ALL_PLAYERS_QUERY, source.observePlayers().firstOrError()));
+  }
+
+  @Override
+  public Completable removePlayer(final Player player) {
+    return source
+        .removePlayer(player)
+        .doOnComplete(() -> recordWrites(ImmutableSet.of(player), false));
+  }
+
+  @Override
+  public Completable removePlayers(final Collection<Player> players) {
+    return source
+        .removePlayers(players)
+        .doOnComplete(() -> recordWrites(players, false));
+  }
+
+  @Override
+  public Completable addPlayers(final Collection<Player> players) {
+    return source
+        .addPlayers(players)
+        .doOnComplete(() -> recordWrites(players, true));
+  }
+
+  @Override
+  public Completable updateScores(final Observable<Player> scoreUpdates) {
+    return source.updateScores(scoreUpdates);
+  }
+
+  @Override
+  public Observable<Collection<Player>> observeScoreChanges() {
+    return scoreChanges;
+  }
+
+  @Override
+  public Single<PlayerNameIndex> getNameIndex() {
+    return Single.defer(() -> {
+      final PlayerNameIndex index = getOrBuildNameIndex();
+
+      // Only missing before the first snapshot is loaded, in which case the load goes through the cache as usual
+      return index != null
+          ? Single.just(index)
+          : observePlayers().firstOrError().flatMap(players -> getNameIndex());
+    });
+  }
+
+  /**
+   * @return the number of queries answered with a fresh snapshot
+   */
+  public long getHitCount() {
+    return cache.getHitCount();
+  }
+
+  /**
+   * @return the number of queries answered with a stale snapshot, which triggered revalidation
+   */
+  public long getStaleHitCount() {
+    return cache.getStaleHitCount();
+  }
+
+  /**
+   * @return the number of queries that had to wait for the source
+   */
+  public long getMissCount() {
+    return cache.getMissCount();
+  }
+
+  private Observable<Set<Player>> load(final String query, final Single<Set<Player>> sourceQuery) {
+    return Observable.defer(() -> {
+      // Applied here as well as when the window closes, so the cache never serves a snapshot without a past write
+      applyPendingWrites();
+
+      final long nowMillis = now();
+      final ExpiringLruCache.Entry<Set<Player>> entry = cache.get(query, nowMillis);
+
+      if (entry == null) {
+        return revalidate(query, sourceQuery).toObservable();
+      } else if (entry.isFresh(nowMillis)) {
+        return Observable.just(entry.getValue());
+      } else {
+        return revalidate(query, sourceQuery)
+            .toObservable()
+            .startWith(entry.getValue())
+            // The revalidation gives back the cached snapshot if the source's snapshot is older
+            .distinctUntilChanged((previous, next) -> previous == next);
+      }
+    });
+  }
+
+  private Single<Set<Player>> revalidate(final String query, final Single<Set<Player>> sourceQuery) {
+    synchronized (revalidations) {
+      final Single<Set<Player>> existingRevalidation = revalidations.get(query);
+
+      if (existingRevalidation != null) {
+        return existingRevalidation;
+      }
+
+      final Single<Set<Player>> revalidation = sourceQuery
+          // Copy since the source may mutate the set it emitted
+          .<Set<Player>>map(ImmutableSet::copyOf)
+          .map(players -> cacheIfNewer(query, players))
+          .doFinally(() -> {
+            synchronized (revalidations) {
+              revalidations.remove(query);
+            }
+          })
+          .cache();
+
+      revalidations.put(query, revalidation);
+
+      return revalidation;
+    }
+  }
+
+  /**
+   * Caches a snapshot from the source, unless it's older than the cached snapshot.
+   *
+   * @return the snapshot now cached
+   */
+  private Set<Player> cacheIfNewer(final String query, final Set<Player> players) {
+    synchronized (pendingWrites) {
+      final ExpiringLruCache.Entry<Set<Player>> entry = cache.peek(query);
+
+      if (entry != null && !includesAppliedWrites(players)) {
+        return entry.getValue();
+      }
+
+      cache.put(query, players, now());
+      appliedWrites.clear();
+    }
+
+    // Other changes made to the source may have changed membership
+    nameIndexCache.invalidate();
+
+    return players;
+  }
+
+  // Must hold the pendingWrites lock
+  private boolean includesAppliedWrites(final Set<Player> players) {
+    if (appliedWrites.isEmpty()) {
+      return true;
+    }
+
+    final Map<String, Player> playersByName = new HashMap<>(players.size() * 2);
+
+    for (final Player player : players) {
+      playersByName.put(player.getName(), player);
+    }
+
+    final long expiredAtMillis = now() - timeToLiveMillis;
+
+    for (final Map.Entry<String, AppliedWrite> write : appliedWrites.entrySet()) {
+      final boolean expired = write.getValue().appliedAtMillis <= expiredAtMillis;
+
+      if (!expired && !write.getValue().isIncludedIn(playersByName.get(write.getKey()))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nullable
+  private PlayerNameIndex getOrBuildNameIndex() throws Exception {
+    applyPendingWrites();
+
+    return nameIndexCache.get(() -> {
+      // Read directly so that building the index doesn't count as a cache hit or miss
+      final ExpiringLruCache.Entry<Set<Player>> entry = cache.peek(ALL_PLAYERS_QUERY);
+
+      return entry == null ? null : PlayerNameIndex.create(entry.getValue());
+    });
+  }
+
+  private void recordWrites(final Collection<Player> players, final boolean added) {
+    synchronized (pendingWrites) {
+      // Players are identified by name, since the cached score may be newer than the score of a removed player
+      for (final Player player : players) {
+        pendingWrites.put(player.getName(), added ? Optional.of(player) : Optional.absent());
+      }
+    }
+
+    updateCoalescer.notifyUpdated();
+  }
+
+  private void applyPendingWrites() {
+    // Held while updating so that writes are applied to the cache in the order they were made
+    synchronized (pendingWrites) {
+      if (pendingWrites.isEmpty()) {
+        return;
+      }
+
+      // A single copy for all the writes in the window, rather than one per write
+      cache.update(ALL_PLAYERS_QUERY, cached -> {
+        final ImmutableSet.Builder<Player> updated = ImmutableSet.builder();
+
+        for (final Player player : cached) {
+          if (!pendingWrites.containsKey(player.getName())) {
+            updated.add(player);
+          }
+        }
+
+        for (final Optional<Player> write : pendingWrites.values()) {
+          if (write.isPresent()) {
+            updated.add(write.get());
+          }
+        }
+
+        return updated.build();
+      });
+
+      final long nowMillis = now();
+
+      for (final Map.Entry<String, Optional<Player>> write : pendingWrites.entrySet()) {
+        appliedWrites.put(write.getKey(), new AppliedWrite(write.getValue(), false, nowMillis));
+      }
+
+      pendingWrites.clear();
+      nameIndexCache.invalidate();
+    }
+  }
+
+  private void updateCachedScores(final Collection<Player> changes) {
+    final Map<String, Player> changesByName = new HashMap<>(changes.size() * 2);
+
+    for (final Player player : changes) {
+      changesByName.put(player.getName(), player);
+    }
+
+    synchronized (pendingWrites) {
+      // Observers already receive the changes, so the snapshot isn't re-emitted
+      cache.update(ALL_PLAYERS_QUERY, cached -> {
+        final ImmutableSet.Builder<Player> updated = ImmutableSet.builder();
+
+        for (final Player player : cached) {
+          final Player change = changesByName.get(player.getName());
+          updated.add(change == null ? player : change);
+        }
+
+        return updated.build();
+      });
+
+      final long nowMillis = now();
+
+      for (final Player change : changes) {
+        appliedWrites.put(change.getName(), new AppliedWrite(Optional.of(change), true, nowMillis));
+      }
+    }
+
+    // Names are unchanged so the index stays valid, but it holds the players and therefore needs the new scores
+    nameIndexCache.recordScoreChanges(changes);
+  }
+
+  private long now() {
+    return scheduler.now(TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * A write applied to the cached snapshot.
+   */
+  private static class AppliedWrite {
+    // Absent for removals
+    private final Optional<Player> player;
+
+    // Score changes must be included with the same score, whereas a later score change can replace an added player
+    private final boolean scoreChange;
+
+    private final long appliedAtMillis;
+
+    private AppliedWrite(final Optional<Player> player, final boolean scoreChange, final long appliedAtMillis) {
+      this.player = player;
+      this.scoreChange = scoreChange;
+      this.appliedAtMillis = appliedAtMillis;
+    }
+
+    /**
+     * @param current
+     *     the player with the same name in a snapshot, or null if there isn't one
+     *
+     * @return whether the snapshot includes this write
+     */
+    private boolean isIncludedIn(@Nullable final Player current) {
+      if (!player.isPresent()) {
+        return current == null;
+      }
+
+      return scoreChange ? player.get().equals(current) : current != null;
+    }
+  }
+}
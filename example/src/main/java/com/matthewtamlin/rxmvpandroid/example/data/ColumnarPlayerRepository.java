@@ -0,0 +1,311 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableSet;
+import com.matthewtamlin.rxmvpandroid.example.Pulse;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A PlayerRepository that stores all data in memory in a columnar layout, for leaderboards too large to hold as one
+ * object per player. Each player is a row in parallel primitive arrays of scores and name ids. Names are held once in
+ * a {@link NameTable}, and each name id maps to its row through a primitive array, so the only objects per player are
+ * the names themselves. Removing a player moves the last row into its place, so the rows stay packed. Nothing is
+ * persisted.
+ * <p>
+ * Player objects are only created when a snapshot is taken. Writes are coalesced into snapshots as in
+ * {@link InMemoryPlayerRepository}, and score updates are conflated and published as net changes without producing
+ * snapshots. Unlike InMemoryPlayerRepository, the snapshot stream isn't shared and the latest snapshot isn't kept for
+ * new observers, since keeping it would hold an object per player for as long as the leaderboard is observed. Each
+ * observer takes its own snapshots instead, which costs a snapshot per observer per update. The name index is built
+ * from the name table and scores directly and holds neither players nor new strings, so it can be kept between
+ * searches.
+ */
+public class ColumnarPlayerRepository implements PlayerRepository {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final Object lock = new Object();
+
+  // Guarded by lock
+  private final NameTable names = new NameTable();
+
+  private final ScoreConflator scoreConflator = new ScoreConflator();
+
+  private final UpdateCoalescer updateCoalescer;
+
+  private final UpdateCoalescer scoreUpdateCoalescer;
+
+  private final Observable<Collection<Player>> scoreChanges;
+
+  private final Observable<Set<Player>> players;
+
+  private final NameIndexCache nameIndexCache = new NameIndexCache();
+
+  // Guarded by lock
+  private int[] scores = new int[INITIAL_CAPACITY];
+
+  // Guarded by lock
+  private int[] nameIds = new int[INITIAL_CAPACITY];
+
+  // Guarded by lock, indexed by name id
+  private int[] rowsByNameId = new int[INITIAL_CAPACITY];
+
+  // Guarded by lock
+  private int rowCount;
+
+  /**
+   * Constructs a new empty ColumnarPlayerRepository that emits an update for every write.
+   */
+  public ColumnarPlayerRepository() {
+    this(new UpdateCoalescer(), new UpdateCoalescer());
+  }
+
+  /**
+   * Constructs a new empty ColumnarPlayerRepository that coalesces the updates of writes made within a window.
+   *
+   * @param coalescingWindow
+   *     the length of the coalescing window
+   * @param coalescingWindowUnit
+   *     the unit of {@code coalescingWindow}
+   * @param scheduler
+   *     the scheduler to emit coalesced updates on
+   */
+  public ColumnarPlayerRepository(
+      final long coalescingWindow,
+      final TimeUnit coalescingWindowUnit,
+      final Scheduler scheduler) {
+
+    this(
+        new UpdateCoalescer(coalescingWindow, coalescingWindowUnit, scheduler),
+        new UpdateCoalescer(coalescingWindow, coalescingWindowUnit, scheduler));
+  }
+
+  private ColumnarPlayerRepository(final UpdateCoalescer updateCoalescer, final UpdateCoalescer scoreUpdateCoalescer) {
+    this.updateCoalescer = checkNotNull(updateCoalescer);
+    this.scoreUpdateCoalescer = checkNotNull(scoreUpdateCoalescer);
+
+    // Shared so that each window is drained once regardless of the number of observers
+    this.scoreChanges = scoreUpdateCoalescer
+        .observeUpdates()
+        .map(pulse -> scoreConflator.drain())
+        .filter(changes -> !changes.isEmpty())
+        .share();
+
+    // Not shared, so that no snapshot outlives its delivery
+    this.players = updateCoalescer
+        .observeUpdates()
+        .startWith(Pulse.getInstance())
+        .flatMapSingle(pulse -> Single.fromCallable(this::takeSnapshot));
+  }
+
+  @Override
+  public Observable<Set<Player>> observePlayers() {
+    return players;
+  }
+
+  @Override
+  public Completable removePlayer(final Player player) {
+    return Completable.fromRunnable(() -> {
+      final boolean changed;
+
+      synchronized (lock) {
+        changed = removeRow(player.getName());
+        invalidateIfChanged(changed);
+      }
+
+      notifyIfChanged(changed);
+    });
+  }
+
+  @Override
+  public Completable removePlayers(final Collection<Player> players) {
+    return Completable.fromRunnable(() -> {
+      boolean changed = false;
+
+      synchronized (lock) {
+        for (final Player player : players) {
+          changed |= removeRow(player.getName());
+        }
+
+        invalidateIfChanged(changed);
+      }
+
+      notifyIfChanged(changed);
+    });
+  }
+
+  @Override
+  public Completable addPlayers(final Collection<Player> players) {
+    return Completable.fromRunnable(() -> {
+      boolean changed = false;
+
+      synchronized (lock) {
+        for (final Player player : players) {
+          changed |= putRow(player.getName(), player.getHighscore());
+        }
+
+        invalidateIfChanged(changed);
+      }
+
+      notifyIfChanged(changed);
+    });
+  }
+
+  @Override
+  public Completable updateScores(final Observable<Player> scoreUpdates) {
+    return scoreUpdates
+        .doOnNext(this::updateScore)
+        .ignoreElements();
+  }
+
+  @Override
+  public Observable<Collection<Player>> observeScoreChanges() {
+    return scoreChanges;
+  }
+
+  @Override
+  public Single<PlayerNameIndex> getNameIndex() {
+    return Single.fromCallable(() -> nameIndexCache.get(this::buildNameIndex));
+  }
+
+  /**
+   * @return the number of players in the repository
+   */
+  public int size() {
+    synchronized (lock) {
+      return rowCount;
+    }
+  }
+
+  private void updateScore(final Player updated) {
+    final Player previous;
+
+    synchronized (lock) {
+      final int nameId = names.find(updated.getName());
+
+      // Scores for unknown players are dropped, since only writes change membership
+      if (nameId == -1) {
+        return;
+      }
+
+      final int row = rowsByNameId[nameId];
+
+      if (scores[row] == updated.getHighscore()) {
+        return;
+      }
+
+      previous = Player.create(names.getName(nameId), scores[row]);
+      scores[row] = updated.getHighscore();
+
+      // Names are unchanged so the index stays valid, but it holds the players and therefore needs the new score
+      nameIndexCache.recordScoreChange(updated);
+
+      scoreConflator.offer(previous, updated);
+    }
+
+    scoreUpdateCoalescer.notifyUpdated();
+  }
+
+  private boolean putRow(final String name, final int score) {
+    final int existingNameId = names.find(name);
+
+    if (existingNameId != -1) {
+      final int row = rowsByNameId[existingNameId];
+      final boolean changed = scores[row] != score;
+
+      scores[row] = score;
+
+      return changed;
+    }
+
+    final int nameId = names.intern(name);
+    final int row = rowCount++;
+
+    if (row == scores.length) {
+      scores = Arrays.copyOf(scores, scores.length * 2);
+      nameIds = Arrays.copyOf(nameIds, nameIds.length * 2);
+    }
+
+    if (nameId >= rowsByNameId.length) {
+      rowsByNameId = Arrays.copyOf(rowsByNameId, Math.max(rowsByNameId.length * 2, nameId + 1));
+    }
+
+    scores[row] = score;
+    nameIds[row] = nameId;
+    rowsByNameId[nameId] = row;
+
+    return true;
+  }
+
+  private boolean removeRow(final String name) {
+    final int nameId = names.find(name);
+
+    if (nameId == -1) {
+      return false;
+    }
+
+    final int row = rowsByNameId[nameId];
+    final int lastRow = --rowCount;
+
+    // Moves the last row into the gap so the rows stay packed
+    if (row != lastRow) {
+      scores[row] = scores[lastRow];
+      nameIds[row] = nameIds[lastRow];
+      rowsByNameId[nameIds[row]] = row;
+    }
+
+    names.release(nameId);
+
+    return true;
+  }
+
+  private PlayerNameIndex buildNameIndex() {
+    final String[] rowNames;
+    final int[] rowScores;
+
+    synchronized (lock) {
+      rowNames = new String[rowCount];
+      rowScores = Arrays.copyOf(scores, rowCount);
+
+      for (int row = 0; row < rowCount; row++) {
+        rowNames[row] = names.getName(nameIds[row]);
+      }
+    }
+
+    // Sorted outside the lock so that writes are not blocked
+    return PlayerNameIndex.create(rowNames, rowScores);
+  }
+
+  private Set<Player> takeSnapshot() {
+    synchronized (lock) {
+      final ImmutableSet.Builder<Player> snapshot = ImmutableSet.builder();
+
+      for (int row = 0; row < rowCount; row++) {
+        snapshot.add(Player.create(names.getName(nameIds[row]), scores[row]));
+      }
+
+      return snapshot.build();
+    }
+  }
+
+  private void invalidateIfChanged(final boolean changed) {
+    if (changed) {
+      nameIndexCache.invalidate();
+    }
+  }
+
+  private void notifyIfChanged(final boolean changed) {
+    if (changed) {
+      updateCoalescer.notifyUpdated();
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.base.Function;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A size-bounded cache with least-recently-used eviction, where each entry becomes stale after a fixed time to live.
+ * Stale entries are still returned (so callers can serve them while revalidating), but they are marked as stale. Hits,
+ * stale hits and misses are counted.
+ * <p>
+ * All methods are thread safe.
+ *
+ * @param <K>
+ *     the type of key
+ * @param <V>
+ *     the type of value
+ */
+public class ExpiringLruCache<K, V> {
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final long timeToLiveMillis;
+
+  private final int maxSize;
+
+  private long hitCount;
+
+  private long staleHitCount;
+
+  private long missCount;
+
+  public ExpiringLruCache(final long timeToLiveMillis, final int maxSize) {
+    checkArgument(timeToLiveMillis >= 0, "timeToLiveMillis must not be negative.");
+    checkArgument(maxSize > 0, "maxSize must be greater than zero.");
+
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Gets the entry for a key and records a hit, stale hit or miss.
+   *
+   * @param key
+   *     the key to look up
+   * @param nowMillis
+   *     the current time
+   *
+   * @return the entry, or null if there is no entry for the key
+   */
+  public synchronized Entry<V> get(final K key, final long nowMillis) {
+    final Entry<V> entry = entries.get(checkNotNull(key));
+
+    if (entry == null) {
+      missCount++;
+    } else if (entry.isFresh(nowMillis)) {
+      hitCount++;
+    } else {
+      staleHitCount++;
+    }
+
+    return entry;
+  }
+
+  /**
+   * Gets the entry for a key without recording a hit or miss, for reads that are not queries of the cache.
+   *
+   * @param key
+   *     the key to look up
+   *
+   * @return the entry, or null if there is no entry for the key
+   */
+  public synchronized Entry<V> peek(final K key) {
+    return entries.get(checkNotNull(key));
+  }
+
+  /**
+   * Replaces the value for a key without changing when the entry becomes stale, and without recording a hit or miss.
+   * Nothing happens if there is no entry for the key.
+   *
+   * @param key
+   *     the key of the entry to update
+   * @param update
+   *     calculates the new value from the existing value
+   */
+  public synchronized void update(final K key, final Function<V, V> update) {
+    final Entry<V> entry = entries.get(checkNotNull(key));
+
+    if (entry != null) {
+      entries.put(key, new Entry<>(checkNotNull(update.apply(entry.value)), entry.staleAtMillis));
+    }
+  }
+
+  /**
+   * Stores a value, evicting the least recently used entries if the cache exceeds its maximum size.
+   *
+   * @param key
+   *     the key to store the value under
+   * @param value
+   *     the value
+   * @param nowMillis
+   *     the current time, used to calculate when the entry becomes stale
+   */
+  public synchronized void put(final K key, final V value, final long nowMillis) {
+    entries.put(checkNotNull(key), new Entry<>(checkNotNull(value), nowMillis + timeToLiveMillis));
+
+    final Iterator<Entry<V>> iterator = entries.values().iterator();
+
+    while (entries.size() > maxSize && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  public synchronized void remove(final K key) {
+    entries.remove(checkNotNull(key));
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getStaleHitCount() {
+    return staleHitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * A cached value and the time it becomes stale.
+   *
+   * @param <V>
+   *     the type of value
+   */
+  public static class Entry<V> {
+    private final V value;
+
+    private final long staleAtMillis;
+
+    private Entry(final V value, final long staleAtMillis) {
+      this.value = value;
+      this.staleAtMillis = staleAtMillis;
+    }
+
+    public V getValue() {
+      return value;
+    }
+
+    public boolean isFresh(final long nowMillis) {
+      return nowMillis < staleAtMillis;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.SerialDisposable;
+import io.reactivex.observers.DisposableObserver;
+import io.reactivex.subjects.BehaviorSubject;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Shares a single subscription to an upstream observable among all subscribers, and replays the latest item to each
+ * new subscriber. The upstream is subscribed to when the first subscriber arrives. When the last subscriber leaves,
+ * the upstream is kept alive for a grace period, so a subscriber that arrives shortly after (for example when an
+ * activity is recreated or quickly paused and resumed) reuses the live upstream and its latest item instead of
+ * restarting it.
+ * <p>
+ * Once the upstream is torn down, its latest item is discarded and the next subscriber starts a new upstream
+ * subscription. The same applies if the upstream terminates, after its terminal event has been delivered.
+ * <p>
+ * Each call to {@link #apply(Observable)} creates an independent shared observable, so a transformer can be reused.
+ *
+ * @param <T>
+ *     the type of item
+ */
+public class GracePeriodShare<T> implements ObservableTransformer<T, T> {
+  private final long gracePeriodMillis;
+
+  private final Scheduler scheduler;
+
+  /**
+   * Constructs a new GracePeriodShare that tears down the upstream as soon as the last subscriber leaves.
+   */
+  public GracePeriodShare() {
+    this.gracePeriodMillis = 0;
+    this.scheduler = null;
+  }
+
+  /**
+   * Constructs a new GracePeriodShare.
+   *
+   * @param gracePeriod
+   *     how long to keep the upstream alive after the last subscriber leaves
+   * @param gracePeriodUnit
+   *     the unit of {@code gracePeriod}
+   * @param scheduler
+   *     the scheduler to tear down the upstream on
+   */
+  public GracePeriodShare(final long gracePeriod, final TimeUnit gracePeriodUnit, final Scheduler scheduler) {
+    checkArgument(gracePeriod >= 0, "gracePeriod must not be negative.");
+
+    this.gracePeriodMillis = gracePeriodUnit.toMillis(gracePeriod);
+    this.scheduler = checkNotNull(scheduler);
+  }
+
+  @Override
+  public ObservableSource<T> apply(final Observable<T> upstream) {
+    return new SharedObservable(upstream);
+  }
+
+  private class SharedObservable extends Observable<T> {
+    private final Observable<T> upstream;
+
+    // Guarded by this
+    private Connection connection;
+
+    private SharedObservable(final Observable<T> upstream) {
+      this.upstream = checkNotNull(upstream);
+    }
+
+    @Override
+    protected void subscribeActual(final Observer<? super T> observer) {
+      final Connection connection;
+      final boolean connect;
+
+      synchronized (this) {
+        connect = this.connection == null;
+
+        if (connect) {
+          this.connection = new Connection();
+        }
+
+        connection = this.connection;
+        connection.subscriberCount++;
+
+        if (connection.pendingTeardown != null) {
+          connection.pendingTeardown.dispose();
+          connection.pendingTeardown = null;
+        }
+      }
+
+      connection.relay
+          .doFinally(() -> release(connection))
+          .subscribe(observer);
+
+      // Connected after subscribing the observer, so that items emitted during connection aren't missed
+      if (connect) {
+        connection.upstreamSubscription.replace(upstream.subscribeWith(new DisposableObserver<T>() {
+          @Override
+          public void onNext(final T item) {
+            connection.relay.onNext(item);
+          }
+
+          @Override
+          public void onError(final Throwable error) {
+            disconnect(connection);
+            connection.relay.onError(error);
+          }
+
+          @Override
+          public void onComplete() {
+            disconnect(connection);
+            connection.relay.onComplete();
+          }
+        }));
+      }
+    }
+
+    private void release(final Connection connection) {
+      synchronized (this) {
+        connection.subscriberCount--;
+
+        if (connection.subscriberCount > 0 || this.connection != connection) {
+          return;
+        }
+
+        if (gracePeriodMillis > 0) {
+          connection.pendingTeardown = scheduler.scheduleDirect(
+              () -> tearDown(connection),
+              gracePeriodMillis,
+              TimeUnit.MILLISECONDS);
+
+          return;
+        }
+      }
+
+      tearDown(connection);
+    }
+
+    private void tearDown(final Connection connection) {
+      synchronized (this) {
+        // A subscriber may have arrived after the teardown was scheduled
+        if (connection.subscriberCount > 0 || this.connection != connection) {
+          return;
+        }
+
+        this.connection = null;
+      }
+
+      connection.upstreamSubscription.dispose();
+    }
+
+    private void disconnect(final Connection connection) {
+      synchronized (this) {
+        if (this.connection == connection) {
+          this.connection = null;
+        }
+      }
+    }
+  }
+
+  private class Connection {
+    private final BehaviorSubject<T> relay = BehaviorSubject.create();
+
+    // Disposing before the upstream subscription is set also disposes the subscription when it is set
+    private final SerialDisposable upstreamSubscription = new SerialDisposable();
+
+    // Guarded by the shared observable
+    private int subscriberCount;
+
+    // Guarded by the shared observable
+    private Disposable pendingTeardown;
+  }
+}
@@ -3,16 +3,33 @@ package com.matthewtamlin.rxmvpandroid.example.data;
 import com.google.common.collect.ImmutableSet;
 import com.matthewtamlin.rxmvpandroid.example.Pulse;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Completable;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
-import io.reactivex.subjects.PublishSubject;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * A PlayerRepository that stores all data in memory. Nothing is persisted.
+ * <p>
+ * Writes take effect immediately, but the resulting updates can be coalesced so that a burst of individual writes
+ * produces a single snapshot.
+ * <p>
+ * Score updates don't produce snapshots. They are conflated per player and published as net changes once per
+ * coalescing window, so a high-frequency feed of scores costs one emission per window rather than one snapshot per
+ * update.
+ * <p>
+ * The snapshot stream is shared by all observers, and new observers receive the latest snapshot instead of taking a
+ * new one. The stream can be kept alive for a grace period after the last observer leaves, so that observers which
+ * pause and resume in quick succession don't restart it. The latest snapshot doesn't include writes that are waiting
+ * for their coalescing window to close.
  */
 public class InMemoryPlayerRepository implements PlayerRepository {
   private static final Set<Player> INITIAL_PLAYERS = ImmutableSet.of(
@@ -26,26 +43,213 @@ public class InMemoryPlayerRepository implements PlayerRepository {
       Player.create("Sniper", 130),
       Player.create("Spy", 250));
 
-  private final PublishSubject<Pulse> updated = PublishSubject.create();
+  // Keyed by name, since a player's identity is their name and their score can change
+  private final Map<String, Player> currentPlayers = new HashMap<>();
+
+  private final ScoreConflator scoreConflator = new ScoreConflator();
+
+  private final UpdateCoalescer updateCoalescer;
+
+  private final UpdateCoalescer scoreUpdateCoalescer;
 
-  private Set<Player> currentPlayers = new HashSet<>();
+  private final Observable<Collection<Player>> scoreChanges;
 
+  private final Observable<Set<Player>> players;
+
+  private final NameIndexCache nameIndexCache = new NameIndexCache();
+
+  /**
+   * Constructs a new InMemoryPlayerRepository that emits an update for every write.
+   */
   public InMemoryPlayerRepository() {
+    this(new UpdateCoalescer(), new UpdateCoalescer(), new GracePeriodShare<>());
+  }
+
+  /**
+   * Constructs a new InMemoryPlayerRepository that coalesces the updates of writes made within a window.
+   *
+   * @param coalescingWindow
+   *     the length of the coalescing window
+   * @param coalescingWindowUnit
+   *     the unit of {@code coalescingWindow}
+   * @param scheduler
+   *     the scheduler to emit coalesced updates on
+   */
+  public InMemoryPlayerRepository(
+      final long coalescingWindow,
+      final TimeUnit coalescingWindowUnit,
+      final Scheduler scheduler) {
+
+    this(coalescingWindow, coalescingWindowUnit, 0, TimeUnit.MILLISECONDS, scheduler);
+  }
+
+  /**
+   * Constructs a new InMemoryPlayerRepository that coalesces the updates of writes made within a window, and keeps the
+   * snapshot stream alive for a grace period after its last observer leaves.
+   *
+   * @param coalescingWindow
+   *     the length of the coalescing window
+   * @param coalescingWindowUnit
+   *     the unit of {@code coalescingWindow}
+   * @param gracePeriod
+   *     how long to keep the snapshot stream alive after its last observer leaves
+   * @param gracePeriodUnit
+   *     the unit of {@code gracePeriod}
+   * @param scheduler
+   *     the scheduler to emit coalesced updates and tear down the snapshot stream on
+   */
+  public InMemoryPlayerRepository(
+      final long coalescingWindow,
+      final TimeUnit coalescingWindowUnit,
+      final long gracePeriod,
+      final TimeUnit gracePeriodUnit,
+      final Scheduler scheduler) {
+
+    this(
+        new UpdateCoalescer(coalescingWindow, coalescingWindowUnit, scheduler),
+        new UpdateCoalescer(coalescingWindow, coalescingWindowUnit, scheduler),
+        new GracePeriodShare<>(gracePeriod, gracePeriodUnit, scheduler));
+  }
+
+  private InMemoryPlayerRepository(
+      final UpdateCoalescer updateCoalescer,
+      final UpdateCoalescer scoreUpdateCoalescer,
+      final GracePeriodShare<Set<Player>> playersShare) {
+
+    this.updateCoalescer = checkNotNull(updateCoalescer);
+    this.scoreUpdateCoalescer = checkNotNull(scoreUpdateCoalescer);
+
+    // Shared so that each window is drained once regardless of the number of observers
+    this.scoreChanges = scoreUpdateCoalescer
+        .observeUpdates()
+        .map(pulse -> scoreConflator.drain())
+        .filter(changes -> !changes.isEmpty())
+        .share();
+
+    // Shared so that observers get the latest snapshot without each starting (and later tearing down) a stream
+    this.players = updateCoalescer
+        .observeUpdates()
+        .startWith(Pulse.getInstance())
+        .flatMapSingle(pulse -> Single.fromCallable(this::takeSnapshot))
+        .compose(playersShare);
+
     // Hardcoding these values is fine for the demo but obviously not something we'd do in a real scenario
-    currentPlayers.addAll(INITIAL_PLAYERS);
+    for (final Player player : INITIAL_PLAYERS) {
+      currentPlayers.put(player.getName(), player);
+    }
   }
 
   @Override
   public Observable<Set<Player>> observePlayers() {
-    return updated
-        .startWith(Pulse.getInstance())
-        .flatMapSingle(pulse -> Single.just(currentPlayers));
+    return players;
   }
 
   @Override
   public Completable removePlayer(final Player player) {
-    return Completable
-        .fromRunnable(() -> currentPlayers.remove(player))
-        .doOnComplete(() -> updated.onNext(Pulse.getInstance()));
+    return Completable.fromRunnable(() -> {
+      final boolean changed;
+
+      synchronized (currentPlayers) {
+        changed = currentPlayers.remove(player.getName()) != null;
+        invalidateIfChanged(changed);
+      }
+
+      notifyIfChanged(changed);
+    });
+  }
+
+  @Override
+  public Completable removePlayers(final Collection<Player> players) {
+    return Completable.fromRunnable(() -> {
+      boolean changed = false;
+
+      synchronized (currentPlayers) {
+        // Set.removeAll is quadratic when the argument is a large list
+        for (final Player player : players) {
+          changed |= currentPlayers.remove(player.getName()) != null;
+        }
+
+        invalidateIfChanged(changed);
+      }
+
+      notifyIfChanged(changed);
+    });
+  }
+
+  @Override
+  public Completable addPlayers(final Collection<Player> players) {
+    return Completable.fromRunnable(() -> {
+      final boolean changed;
+
+      synchronized (currentPlayers) {
+        boolean anyChanged = false;
+
+        for (final Player player : players) {
+          anyChanged |= !player.equals(currentPlayers.put(player.getName(), player));
+        }
+
+        changed = anyChanged;
+        invalidateIfChanged(changed);
+      }
+
+      notifyIfChanged(changed);
+    });
+  }
+
+  @Override
+  public Completable updateScores(final Observable<Player> scoreUpdates) {
+    return scoreUpdates
+        .doOnNext(this::updateScore)
+        .ignoreElements();
+  }
+
+  @Override
+  public Observable<Collection<Player>> observeScoreChanges() {
+    return scoreChanges;
+  }
+
+  @Override
+  public Single<PlayerNameIndex> getNameIndex() {
+    return Single.fromCallable(() -> nameIndexCache.get(() -> PlayerNameIndex.create(takeSnapshot())));
+  }
+
+  private void updateScore(final Player updated) {
+    final Player previous;
+
+    synchronized (currentPlayers) {
+      previous = currentPlayers.get(updated.getName());
+
+      // Scores for unknown players are dropped, since only writes change membership
+      if (previous == null || previous.equals(updated)) {
+        return;
+      }
+
+      currentPlayers.put(updated.getName(), updated);
+
+      // Names are unchanged so the index stays valid, but it holds the players and therefore needs the new score
+      nameIndexCache.recordScoreChange(updated);
+
+      scoreConflator.offer(previous, updated);
+    }
+
+    scoreUpdateCoalescer.notifyUpdated();
+  }
+
+  private Set<Player> takeSnapshot() {
+    synchronized (currentPlayers) {
+      return ImmutableSet.copyOf(currentPlayers.values());
+    }
+  }
+
+  private void invalidateIfChanged(final boolean changed) {
+    if (changed) {
+      nameIndexCache.invalidate();
+    }
+  }
+
+  private void notifyIfChanged(final boolean changed) {
+    if (changed) {
+      updateCoalescer.notifyUpdated();
+    }
   }
-}
\ No newline at end of file
+}
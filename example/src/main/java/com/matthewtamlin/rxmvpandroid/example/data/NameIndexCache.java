@@ -0,0 +1,159 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Keeps a repository's {@link PlayerNameIndex} between writes. The index is built on demand and reused until the
+ * membership of the repository changes. Score changes don't invalidate the index, since names are unchanged. Instead
+ * they are recorded and applied to the index the next time it's used, which is much cheaper than building it again.
+ * <p>
+ * Indexes are built outside the lock so that the repository isn't blocked by the sort. Score changes made during a
+ * build are recorded for that build, and applied to its index before it is returned. An index whose build overlapped
+ * a change of membership is returned to its caller, but not kept.
+ * <p>
+ * The repository must call {@link #invalidate()} after every change of membership, and
+ * {@link #recordScoreChange(Player)} after every score change. All methods are thread safe.
+ */
+class NameIndexCache {
+  private final Object lock = new Object();
+
+  // Guarded by lock, the scores to apply to the index before it is next used
+  private final Map<String, Player> scoresChangedSinceIndexed = new HashMap<>();
+
+  // Guarded by lock
+  private final List<Build> buildsInProgress = new ArrayList<>();
+
+  // Guarded by lock, incremented by every change of membership
+  private long version;
+
+  // Guarded by lock, null when invalidated by a change of membership
+  private PlayerNameIndex index;
+
+  /**
+   * Gets the index, building it if there isn't a valid one.
+   *
+   * @param builder
+   *     builds an index of the current players, or returns null if they aren't available
+   *
+   * @return the index, or null if it had to be built and the builder returned null
+   *
+   * @throws Exception
+   *     if the builder throws an exception
+   */
+  @Nullable
+  public PlayerNameIndex get(final Callable<PlayerNameIndex> builder) throws Exception {
+    final Build build = new Build();
+    final long buildVersion;
+
+    synchronized (lock) {
+      if (index != null) {
+        return applyScoresChangedSinceIndexed();
+      }
+
+      // Recorded before the players are read, so a change of membership that races the read is always detected
+      buildVersion = version;
+      buildsInProgress.add(build);
+    }
+
+    final PlayerNameIndex builtIndex;
+
+    try {
+      builtIndex = builder.call();
+    } catch (final Exception e) {
+      synchronized (lock) {
+        buildsInProgress.remove(build);
+      }
+
+      throw e;
+    }
+
+    synchronized (lock) {
+      buildsInProgress.remove(build);
+
+      if (builtIndex == null) {
+        return null;
+      }
+
+      final PlayerNameIndex updatedIndex = builtIndex.withUpdatedScores(build.scoresChanged.values());
+
+      if (version != buildVersion) {
+        // Membership changed during the build, so the index is already out of date and isn't kept
+        return updatedIndex;
+      }
+
+      // Another build may have finished first, in which case its index is kept and is as current as this one
+      if (index == null) {
+        index = updatedIndex;
+      }
+
+      return applyScoresChangedSinceIndexed();
+    }
+  }
+
+  /**
+   * Records a score change, so that it can be applied to the index when it's next used.
+   *
+   * @param updated
+   *     the player with their new score
+   */
+  public void recordScoreChange(final Player updated) {
+    synchronized (lock) {
+      if (index != null) {
+        scoresChangedSinceIndexed.put(updated.getName(), updated);
+      }
+
+      for (int i = 0; i < buildsInProgress.size(); i++) {
+        buildsInProgress.get(i).scoresChanged.put(updated.getName(), updated);
+      }
+    }
+  }
+
+  /**
+   * Records several score changes, see {@link #recordScoreChange(Player)}.
+   *
+   * @param changes
+   *     the players with their new scores
+   */
+  public void recordScoreChanges(final Collection<Player> changes) {
+    synchronized (lock) {
+      for (final Player change : changes) {
+        recordScoreChange(change);
+      }
+    }
+  }
+
+  /**
+   * Discards the index, since the membership of the repository has changed.
+   */
+  public void invalidate() {
+    synchronized (lock) {
+      version++;
+      index = null;
+      scoresChangedSinceIndexed.clear();
+    }
+  }
+
+  // Must hold the lock
+  private PlayerNameIndex applyScoresChangedSinceIndexed() {
+    if (!scoresChangedSinceIndexed.isEmpty()) {
+      index = index.withUpdatedScores(scoresChangedSinceIndexed.values());
+      scoresChangedSinceIndexed.clear();
+    }
+
+    return index;
+  }
+
+  /**
+   * A build in progress. Identity matters, since several builds can be in progress with the same changes.
+   */
+  private static class Build {
+    private final Map<String, Player> scoresChanged = new HashMap<>();
+  }
+}
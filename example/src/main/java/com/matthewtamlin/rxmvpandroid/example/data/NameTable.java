@@ -0,0 +1,190 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Assigns a dense integer id to each distinct name and keeps a single instance of each name, so that callers can store
+ * ids in primitive arrays instead of strings. Lookups use an open-addressing hash table of ids with linear probing, so
+ * no entry objects or boxed integers are allocated. Ids of released names are reused.
+ * <p>
+ * This class is not thread safe.
+ */
+public class NameTable {
+  private static final int EMPTY_SLOT = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private String[] names = new String[INITIAL_CAPACITY];
+
+  private int[] hashes = new int[INITIAL_CAPACITY];
+
+  /**
+   * The id of each name, or {@link #EMPTY_SLOT}. Kept at most half full so probe sequences stay short.
+   */
+  private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+
+  private int[] freeIds = new int[INITIAL_CAPACITY];
+
+  private int freeIdCount;
+
+  private int nextId;
+
+  private int size;
+
+  /**
+   * Gets the id of a name, adding the name if it isn't already in the table.
+   *
+   * @param name
+   *     the name
+   *
+   * @return the id of the name
+   */
+  public int intern(final String name) {
+    final int existingId = find(name);
+
+    if (existingId != EMPTY_SLOT) {
+      return existingId;
+    }
+
+    if ((size + 1) * 2 > slots.length) {
+      rehash(slots.length * 2);
+    }
+
+    final int id = freeIdCount > 0 ? freeIds[--freeIdCount] : nextId++;
+
+    if (id == names.length) {
+      names = Arrays.copyOf(names, names.length * 2);
+      hashes = Arrays.copyOf(hashes, hashes.length * 2);
+    }
+
+    names[id] = name;
+    hashes[id] = spread(name.hashCode());
+    size++;
+
+    insertSlot(id);
+
+    return id;
+  }
+
+  /**
+   * Finds the id of a name.
+   *
+   * @param name
+   *     the name
+   *
+   * @return the id of the name, or -1 if the name isn't in the table
+   */
+  public int find(final String name) {
+    final int hash = spread(checkNotNull(name).hashCode());
+    final int mask = slots.length - 1;
+
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      final int id = slots[slot];
+
+      if (id == EMPTY_SLOT) {
+        return EMPTY_SLOT;
+      }
+
+      if (hashes[id] == hash && names[id].equals(name)) {
+        return id;
+      }
+    }
+  }
+
+  /**
+   * @param id
+   *     the id of a name in the table
+   *
+   * @return the name
+   */
+  public String getName(final int id) {
+    return names[id];
+  }
+
+  /**
+   * Removes a name from the table. Its id may be assigned to a different name later.
+   *
+   * @param id
+   *     the id of a name in the table
+   */
+  public void release(final int id) {
+    final int mask = slots.length - 1;
+    int slot = hashes[id] & mask;
+
+    while (slots[slot] != id) {
+      slot = (slot + 1) & mask;
+    }
+
+    // Backward shift deletion keeps every remaining id reachable from its home slot without tombstones
+    int emptySlot = slot;
+
+    for (int next = (slot + 1) & mask; slots[next] != EMPTY_SLOT; next = (next + 1) & mask) {
+      final int homeSlot = hashes[slots[next]] & mask;
+
+      // Moves the id back if its home slot isn't cyclically within (emptySlot, next]
+      if (((next - homeSlot) & mask) >= ((next - emptySlot) & mask)) {
+        slots[emptySlot] = slots[next];
+        emptySlot = next;
+      }
+    }
+
+    slots[emptySlot] = EMPTY_SLOT;
+    names[id] = null;
+    size--;
+
+    if (freeIdCount == freeIds.length) {
+      freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+    }
+
+    freeIds[freeIdCount++] = id;
+  }
+
+  /**
+   * @return the number of names in the table
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return one more than the largest id that has been assigned
+   */
+  public int getIdLimit() {
+    return nextId;
+  }
+
+  private void rehash(final int slotCount) {
+    slots = newSlots(slotCount);
+
+    for (int id = 0; id < nextId; id++) {
+      if (names[id] != null) {
+        insertSlot(id);
+      }
+    }
+  }
+
+  private void insertSlot(final int id) {
+    final int mask = slots.length - 1;
+    int slot = hashes[id] & mask;
+
+    while (slots[slot] != EMPTY_SLOT) {
+      slot = (slot + 1) & mask;
+    }
+
+    slots[slot] = id;
+  }
+
+  private static int[] newSlots(final int slotCount) {
+    final int[] slots = new int[slotCount];
+    Arrays.fill(slots, EMPTY_SLOT);
+
+    return slots;
+  }
+
+  private static int spread(final int hash) {
+    // Mixes the high bits into the low bits, since only the low bits select a slot
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,251 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Flowable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads players from leaderboard files as backpressured streams. Records are parsed one at a time as they are
+ * requested, so a file of any size can be read in constant memory. The stream is opened when subscribed to and closed
+ * when the stream terminates or is cancelled.
+ * <p>
+ * Two formats are supported:
+ * <ul>
+ * <li>CSV: one {@code name,highscore} record per line with no header, encoded in UTF-8. Names can't contain commas or
+ * line breaks. Blank lines are ignored.</li>
+ * <li>Binary: the magic number {@link #BINARY_MAGIC} and version {@link #BINARY_VERSION}, then the record count as an
+ * int, then each record as a name in modified UTF-8 (see {@link java.io.DataOutput#writeUTF(String)}) followed by the
+ * highscore as an int.</li>
+ * </ul>
+ */
+public class PlayerFileReader {
+  /**
+   * The first four bytes of a binary leaderboard file.
+   */
+  public static final int BINARY_MAGIC = 0x4C424431; // "LBD1"
+
+  /**
+   * The binary format version this reader supports.
+   */
+  public static final byte BINARY_VERSION = 1;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private PlayerFileReader() {}
+
+  /**
+   * Reads players from a CSV leaderboard file.
+   *
+   * @param streamSource
+   *     opens the file, called once per subscription
+   *
+   * @return a flowable that emits each player in the file
+   */
+  public static Flowable<Player> readCsv(final Callable<? extends InputStream> streamSource) {
+    checkNotNull(streamSource);
+
+    return Flowable.generate(
+        () -> new CsvParser(new InputStreamReader(streamSource.call(), Charset.forName("UTF-8"))),
+        (parser, emitter) -> {
+          final Player player = parser.next();
+
+          if (player == null) {
+            emitter.onComplete();
+          } else {
+            emitter.onNext(player);
+          }
+        },
+        Closeable::close);
+  }
+
+  /**
+   * Reads players from a binary leaderboard file.
+   *
+   * @param streamSource
+   *     opens the file, called once per subscription
+   *
+   * @return a flowable that emits each player in the file
+   */
+  public static Flowable<Player> readBinary(final Callable<? extends InputStream> streamSource) {
+    checkNotNull(streamSource);
+
+    return Flowable.generate(
+        () -> new BinaryParser(new DataInputStream(new BufferedInputStream(streamSource.call(), BUFFER_SIZE))),
+        (parser, emitter) -> {
+          final Player player = parser.next();
+
+          if (player == null) {
+            emitter.onComplete();
+          } else {
+            emitter.onNext(player);
+          }
+        },
+        Closeable::close);
+  }
+
+  /**
+   * Parses CSV records by scanning characters from a buffer, so no line strings or split arrays are allocated.
+   */
+  private static class CsvParser implements Closeable {
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private final StringBuilder name = new StringBuilder();
+
+    private int bufferPosition;
+
+    private int bufferLimit;
+
+    private int lineNumber;
+
+    private CsvParser(final Reader reader) {
+      this.reader = reader;
+    }
+
+    /**
+     * @return the next player, or null if the end of the file has been reached
+     */
+    private Player next() throws IOException {
+      int character;
+
+      // Skips blank lines
+      do {
+        character = read();
+        lineNumber++;
+      } while (character == '\n' || character == '\r');
+
+      if (character == -1) {
+        return null;
+      }
+
+      name.setLength(0);
+
+      while (character != ',') {
+        if (character == -1 || character == '\n') {
+          throw new IOException("Missing highscore on line " + lineNumber + ".");
+        }
+
+        name.append((char) character);
+        character = read();
+      }
+
+      character = read();
+
+      final boolean negative = character == '-';
+
+      if (negative) {
+        character = read();
+      }
+
+      long highscore = 0;
+      int digitCount = 0;
+
+      while (character >= '0' && character <= '9') {
+        highscore = highscore * 10 + (character - '0');
+        digitCount++;
+
+        if (highscore > Integer.MAX_VALUE + 1L) {
+          throw new IOException("Highscore out of range on line " + lineNumber + ".");
+        }
+
+        character = read();
+      }
+
+      if (character == '\r') {
+        character = read();
+      }
+
+      if (digitCount == 0 || (character != '\n' && character != -1)) {
+        throw new IOException("Malformed highscore on line " + lineNumber + ".");
+      }
+
+      highscore = negative ? -highscore : highscore;
+
+      if (highscore > Integer.MAX_VALUE) {
+        throw new IOException("Highscore out of range on line " + lineNumber + ".");
+      }
+
+      return Player.create(name.toString(), (int) highscore);
+    }
+
+    private int read() throws IOException {
+      if (bufferPosition == bufferLimit) {
+        bufferLimit = reader.read(buffer, 0, buffer.length);
+        bufferPosition = 0;
+
+        if (bufferLimit <= 0) {
+          bufferLimit = 0;
+          return -1;
+        }
+      }
+
+      return buffer[bufferPosition++];
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+
+  private static class BinaryParser implements Closeable {
+    private final DataInputStream input;
+
+    private int remainingRecords = -1;
+
+    private BinaryParser(final DataInputStream input) {
+      this.input = input;
+    }
+
+    /**
+     * @return the next player, or null if every record has been read
+     */
+    private Player next() throws IOException {
+      if (remainingRecords == -1) {
+        readHeader();
+      }
+
+      if (remainingRecords == 0) {
+        return null;
+      }
+
+      remainingRecords--;
+
+      return Player.create(input.readUTF(), input.readInt());
+    }
+
+    private void readHeader() throws IOException {
+      if (input.readInt() != BINARY_MAGIC) {
+        throw new IOException("Not a binary leaderboard file.");
+      }
+
+      final byte version = input.readByte();
+
+      if (version != BINARY_VERSION) {
+        throw new IOException("Unsupported binary leaderboard version " + version + ".");
+      }
+
+      remainingRecords = input.readInt();
+
+      if (remainingRecords < 0) {
+        throw new IOException("Negative record count.");
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Imports streams of players into a repository in batches. Each batch is inserted with a single write, and the next
+ * batch isn't requested from the source until the previous one has been inserted, so the number of players held in
+ * memory at once is bounded by the batch size regardless of the size of the source.
+ */
+public class PlayerImporter {
+  /**
+   * The default number of players inserted per write.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 5_000;
+
+  private final PlayerRepository repository;
+
+  private final Scheduler scheduler;
+
+  private final int batchSize;
+
+  /**
+   * Constructs a new PlayerImporter with the default batch size.
+   *
+   * @param repository
+   *     the repository to import into
+   * @param scheduler
+   *     the scheduler to read and insert on, which should not be the main thread
+   */
+  public PlayerImporter(final PlayerRepository repository, final Scheduler scheduler) {
+    this(repository, scheduler, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Constructs a new PlayerImporter.
+   *
+   * @param repository
+   *     the repository to import into
+   * @param scheduler
+   *     the scheduler to read and insert on, which should not be the main thread
+   * @param batchSize
+   *     the number of players inserted per write, greater than zero
+   */
+  public PlayerImporter(final PlayerRepository repository, final Scheduler scheduler, final int batchSize) {
+    checkArgument(batchSize > 0, "batchSize must be greater than zero.");
+
+    this.repository = checkNotNull(repository);
+    this.scheduler = checkNotNull(scheduler);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Imports players, for example from {@link PlayerFileReader}. Players with the same names as existing players
+   * replace them.
+   *
+   * @param players
+   *     the players to import
+   *
+   * @return a completable that imports the players when subscribed to, and completes once all are inserted
+   */
+  public Completable importPlayers(final Flowable<Player> players) {
+    return players
+        .buffer(batchSize)
+        // Inserts one batch at a time, which limits the requests made upstream
+        .concatMap(batch -> repository.addPlayers(batch).<Player>toFlowable(), 1)
+        .ignoreElements()
+        .subscribeOn(scheduler);
+  }
+}
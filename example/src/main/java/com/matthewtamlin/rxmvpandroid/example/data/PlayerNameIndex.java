@@ -0,0 +1,297 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An immutable prefix index over player names. Names are held in an array sorted ignoring case, so all players
+ * matching a prefix occupy a contiguous range that can be found with two binary searches. Searches can be refined as
+ * the query grows, in which case only the range of the previous search is examined.
+ * <p>
+ * The index holds names and scores in parallel arrays rather than holding players, so it adds no objects per player
+ * to those already held by its repository. Players are only created when the results of a search are read.
+ * <p>
+ * Since score changes don't affect the order, an index can be updated with new scores in linear time without sorting
+ * again, see {@link #withUpdatedScores(Collection)}.
+ */
+public class PlayerNameIndex {
+  private static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER;
+
+  private final String[] names;
+
+  private final int[] scores;
+
+  private PlayerNameIndex(final String[] names, final int[] scores) {
+    this.names = names;
+    this.scores = scores;
+  }
+
+  /**
+   * Builds a new index. This takes O(n log n) time, so avoid doing it on the main thread for large leaderboards.
+   *
+   * @param players
+   *     the players to index
+   *
+   * @return the new index
+   */
+  public static PlayerNameIndex create(final Collection<Player> players) {
+    final String[] names = new String[players.size()];
+    final int[] scores = new int[players.size()];
+    int i = 0;
+
+    for (final Player player : players) {
+      names[i] = player.getName();
+      scores[i] = player.getHighscore();
+      i++;
+    }
+
+    return create(names, scores);
+  }
+
+  /**
+   * Builds a new index from parallel arrays of names and scores, for repositories that don't hold players. This takes
+   * O(n log n) time, so avoid doing it on the main thread for large leaderboards.
+   *
+   * @param names
+   *     the names of the players to index, not modified
+   * @param scores
+   *     the score of each player, not modified
+   *
+   * @return the new index
+   */
+  static PlayerNameIndex create(final String[] names, final int[] scores) {
+    checkArgument(names.length == scores.length, "names and scores must have the same length.");
+
+    final int[] order = new int[names.length];
+
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+
+    // Sorts the positions rather than the names, so that the scores can follow without creating pairs
+    sortByName(order, names);
+
+    final String[] sortedNames = new String[names.length];
+    final int[] sortedScores = new int[names.length];
+
+    for (int i = 0; i < order.length; i++) {
+      sortedNames[i] = names[order[i]];
+      sortedScores[i] = scores[order[i]];
+    }
+
+    return new PlayerNameIndex(sortedNames, sortedScores);
+  }
+
+  /**
+   * Finds all players whose names start with a prefix, ignoring case.
+   *
+   * @param prefix
+   *     the prefix to search for
+   *
+   * @return the result
+   */
+  public Search search(final String prefix) {
+    return search(checkNotNull(prefix), 0, names.length);
+  }
+
+  /**
+   * Creates an index of the same players with some scores replaced. The sorted names are shared with this index, so
+   * this takes O(n + k log n) time for k changes rather than the O(n log n) of building a new index. Changes for
+   * players that are not in this index are ignored.
+   *
+   * @param changes
+   *     the players whose scores changed, with their new scores
+   *
+   * @return the updated index, or this index if there are no changes
+   */
+  public PlayerNameIndex withUpdatedScores(final Collection<Player> changes) {
+    if (changes.isEmpty()) {
+      return this;
+    }
+
+    final int[] updatedScores = scores.clone();
+
+    for (final Player change : changes) {
+      final String name = change.getName();
+
+      // Names that only differ by case are adjacent, so the exact name is found among them
+      int i = findFirstAtLeast(name, 0, names.length);
+
+      while (i < names.length && ORDER.compare(names[i], name) == 0 && !names[i].equals(name)) {
+        i++;
+      }
+
+      if (i < names.length && names[i].equals(name)) {
+        updatedScores[i] = change.getHighscore();
+      }
+    }
+
+    return new PlayerNameIndex(names, updatedScores);
+  }
+
+  /**
+   * @return the number of indexed players
+   */
+  public int size() {
+    return names.length;
+  }
+
+  private Search search(final String prefix, final int fromIndex, final int toIndex) {
+    final int start = findFirstAtLeast(prefix, fromIndex, toIndex);
+    final int end = findFirstWithoutPrefix(prefix, start, toIndex);
+
+    return new Search(prefix, start, end);
+  }
+
+  private int findFirstAtLeast(final String key, final int fromIndex, final int toIndex) {
+    int low = fromIndex;
+    int high = toIndex;
+
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+
+      if (ORDER.compare(names[middle], key) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  private int findFirstWithoutPrefix(final String prefix, final int fromIndex, final int toIndex) {
+    // Matches are contiguous from fromIndex, so the predicate is monotonic across the range
+    int low = fromIndex;
+    int high = toIndex;
+
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+
+      if (startsWithIgnoringCase(names[middle], prefix)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  private static boolean startsWithIgnoringCase(final String name, final String prefix) {
+    // Ignores case the same way as the order, which keeps the matches contiguous
+    return name.regionMatches(true, 0, prefix, 0, prefix.length());
+  }
+
+  /**
+   * Sorts positions by the names at those positions with a stable merge sort, so names that only differ by case keep
+   * their original order.
+   */
+  private static void sortByName(final int[] order, final String[] names) {
+    int[] source = order;
+    int[] target = new int[order.length];
+
+    for (int width = 1; width < order.length; width *= 2) {
+      for (int start = 0; start < order.length; start += 2 * width) {
+        final int middle = Math.min(start + width, order.length);
+        final int end = Math.min(start + 2 * width, order.length);
+        int left = start;
+        int right = middle;
+
+        for (int i = start; i < end; i++) {
+          if (left < middle && (right == end || ORDER.compare(names[source[left]], names[source[right]]) <= 0)) {
+            target[i] = source[left++];
+          } else {
+            target[i] = source[right++];
+          }
+        }
+      }
+
+      final int[] sorted = target;
+      target = source;
+      source = sorted;
+    }
+
+    if (source != order) {
+      System.arraycopy(source, 0, order, 0, order.length);
+    }
+  }
+
+  /**
+   * The players matching a prefix.
+   */
+  public class Search {
+    private final String prefix;
+
+    private final int start;
+
+    private final int end;
+
+    private Search(final String prefix, final int start, final int end) {
+      this.prefix = prefix;
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * @return the index that was searched
+     */
+    public PlayerNameIndex getIndex() {
+      return PlayerNameIndex.this;
+    }
+
+    /**
+     * Gets the matching players. The list is a view of the index, and creates each player when it's read.
+     *
+     * @return the matching players, in order of name
+     */
+    public List<Player> getPlayers() {
+      return new Players();
+    }
+
+    /**
+     * @return the number of matching players
+     */
+    public int size() {
+      return end - start;
+    }
+
+    /**
+     * Searches for a new prefix. If the new prefix extends the prefix of this search, only the players matched by this
+     * search are examined, otherwise the whole index is searched.
+     *
+     * @param prefix
+     *     the new prefix
+     *
+     * @return the result
+     */
+    public Search refine(final String prefix) {
+      checkNotNull(prefix);
+
+      return startsWithIgnoringCase(prefix, this.prefix)
+          ? search(prefix, start, end)
+          : search(prefix, 0, names.length);
+    }
+
+    private class Players extends AbstractList<Player> implements RandomAccess {
+      @Override
+      public Player get(final int index) {
+        checkElementIndex(index, size());
+
+        return Player.create(names[start + index], scores[start + index]);
+      }
+
+      @Override
+      public int size() {
+        return end - start;
+      }
+    }
+  }
+}
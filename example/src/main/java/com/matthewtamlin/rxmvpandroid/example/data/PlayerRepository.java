@@ -1,17 +1,67 @@
 package com.matthewtamlin.rxmvpandroid.example.data;
 
+import java.util.Collection;
 import java.util.Set;
 
 import io.reactivex.Completable;
 import io.reactivex.Observable;
+import io.reactivex.Single;
 
 /**
  * Stores a set of {@link Player}.
  */
 public interface PlayerRepository {
-  // A real repository would have create and update methods too, but this is sufficient for the example
-
   public Observable<Set<Player>> observePlayers();
 
   public Completable removePlayer(Player player);
-}
\ No newline at end of file
+
+  /**
+   * Removes several players in a single transaction, producing at most one update.
+   *
+   * @param players
+   *     the players to remove
+   *
+   * @return a completable that removes the players
+   */
+  public Completable removePlayers(Collection<Player> players);
+
+  /**
+   * Adds several players in a single transaction, producing at most one update.
+   *
+   * @param players
+   *     the players to add
+   *
+   * @return a completable that adds the players
+   */
+  public Completable addPlayers(Collection<Player> players);
+
+  /**
+   * Applies a feed of score updates. Each update sets the score of the player with the same name, and updates for
+   * players that are not in the repository are ignored. Score updates don't change membership, so they aren't
+   * emitted by {@link #observePlayers()} until the next snapshot.
+   *
+   * @param scoreUpdates
+   *     the updated players
+   *
+   * @return a completable that applies each update as it arrives, and completes when the feed completes
+   */
+  public Completable updateScores(Observable<Player> scoreUpdates);
+
+  /**
+   * Observes the net score changes. Updates are conflated per player, so a player whose score changed several times
+   * since the last emission appears at most once with their latest score.
+   *
+   * @return an observable that emits the players whose scores changed
+   */
+  public Observable<Collection<Player>> observeScoreChanges();
+
+  /**
+   * Gets a name index over the current players. The index is maintained by the repository, so it is only rebuilt
+   * after players are added or removed rather than on every request. Score changes are applied to the existing index
+   * without sorting it again. Subscribe on a background scheduler, since a rebuild may take a while for large
+   * leaderboards.
+   *
+   * @return a single that emits the index of the current players
+   */
+  public Single<PlayerNameIndex> getNameIndex();
+}
@@ -0,0 +1,70 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Conflates score updates per player between drains, so that a player whose score changes many times between UI
+ * refreshes produces a single change. Only net changes are drained: a player whose score returns to its value at the
+ * start of the drain window produces no change at all.
+ * <p>
+ * All methods are thread safe.
+ */
+public class ScoreConflator {
+  private Map<String, Player> baselines = new HashMap<>();
+
+  private Map<String, Player> latest = new HashMap<>();
+
+  /**
+   * Records a score update.
+   *
+   * @param previous
+   *     the player's state before the update
+   * @param updated
+   *     the player's state after the update, which must have the same name as {@code previous}
+   */
+  public synchronized void offer(final Player previous, final Player updated) {
+    checkNotNull(previous);
+    checkNotNull(updated);
+
+    if (!baselines.containsKey(previous.getName())) {
+      baselines.put(previous.getName(), previous);
+    }
+
+    latest.put(updated.getName(), updated);
+  }
+
+  /**
+   * Removes and returns the net changes recorded since the last drain.
+   *
+   * @return the latest state of each player whose score changed, not null
+   */
+  public Collection<Player> drain() {
+    final Map<String, Player> drainedBaselines;
+    final Map<String, Player> drainedLatest;
+
+    synchronized (this) {
+      drainedBaselines = baselines;
+      drainedLatest = latest;
+
+      // Swapping rather than clearing keeps the lock short when the maps are large
+      baselines = new HashMap<>();
+      latest = new HashMap<>();
+    }
+
+    final List<Player> changes = new ArrayList<>(drainedLatest.size());
+
+    for (final Player player : drainedLatest.values()) {
+      if (!player.equals(drainedBaselines.get(player.getName()))) {
+        changes.add(player);
+      }
+    }
+
+    return changes;
+  }
+}
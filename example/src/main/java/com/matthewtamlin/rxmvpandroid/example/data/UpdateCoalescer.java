@@ -0,0 +1,91 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.matthewtamlin.rxmvpandroid.example.Pulse;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Coalesces update notifications, so that a burst of writes produces a single update emission. The first notification
+ * in a burst opens a window, and one update is emitted when the window closes regardless of how many notifications
+ * arrived in the meantime. A window of zero emits every notification immediately.
+ * <p>
+ * All methods are thread safe.
+ */
+public class UpdateCoalescer {
+  private final Subject<Pulse> updates = PublishSubject.<Pulse>create().toSerialized();
+
+  private final long windowMillis;
+
+  private final Scheduler scheduler;
+
+  private boolean flushScheduled;
+
+  /**
+   * Constructs a new UpdateCoalescer that emits every notification immediately.
+   */
+  public UpdateCoalescer() {
+    this.windowMillis = 0;
+    this.scheduler = null;
+  }
+
+  /**
+   * Constructs a new UpdateCoalescer.
+   *
+   * @param window
+   *     the length of the coalescing window
+   * @param windowUnit
+   *     the unit of {@code window}
+   * @param scheduler
+   *     the scheduler to emit coalesced updates on
+   */
+  public UpdateCoalescer(final long window, final TimeUnit windowUnit, final Scheduler scheduler) {
+    checkArgument(window >= 0, "window must not be negative.");
+
+    this.windowMillis = windowUnit.toMillis(window);
+    this.scheduler = checkNotNull(scheduler);
+  }
+
+  /**
+   * Records that the data has changed. An update is emitted immediately if the window is zero, otherwise one is
+   * emitted when the current window closes.
+   */
+  public void notifyUpdated() {
+    if (windowMillis == 0) {
+      updates.onNext(Pulse.getInstance());
+      return;
+    }
+
+    synchronized (this) {
+      if (flushScheduled) {
+        return;
+      }
+
+      flushScheduled = true;
+    }
+
+    scheduler.scheduleDirect(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return an observable that emits a pulse for each coalesced update
+   */
+  public Observable<Pulse> observeUpdates() {
+    return updates;
+  }
+
+  private void flush() {
+    synchronized (this) {
+      flushScheduled = false;
+    }
+
+    updates.onNext(Pulse.getInstance());
+  }
+}
@@ -1,39 +1,248 @@
 package com.matthewtamlin.rxmvpandroid.example.presentation;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.google.common.base.Optional;
-import com.matthewtamlin.rxmvpandroid.RxMvpPresenter;
+import com.google.common.collect.ImmutableList;
+import com.matthewtamlin.rxmvpandroid.FrameAlignedTransformer;
+import com.matthewtamlin.rxmvpandroid.FrameClock;
+import com.matthewtamlin.rxmvpandroid.PrioritizedPresenter;
+import com.matthewtamlin.rxmvpandroid.RetainablePresenter;
+import com.matthewtamlin.rxmvpandroid.StateSavingPresenter;
+import com.matthewtamlin.rxmvpandroid.example.Pulse;
 import com.matthewtamlin.rxmvpandroid.example.data.Player;
+import com.matthewtamlin.rxmvpandroid.example.data.PlayerNameIndex;
 import com.matthewtamlin.rxmvpandroid.example.data.PlayerRepository;
 import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView;
 import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Completable;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.subjects.PublishSubject;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
- * Presents data from a {@link PlayerRepository} to a {@link LeaderboardView}.
+ * Presents data from a {@link PlayerRepository} to a {@link LeaderboardView}. The presenter can be retained and
+ * reattached to new views, so the repository and any state outlive the activity. The search query and the leading
+ * rows of the last rendered leaderboard are saved as presenter state, so that the first screenful can be shown
+ * immediately after process death while fresh data loads. The saved state is bounded, since it has to fit in a Binder
+ * transaction along with the rest of the instance state.
+ * <p>
+ * View updates are aligned to display frames, so bursts of repository updates cause at most one update per frame.
+ * <p>
+ * Deletions are rendered optimistically: the row is removed from the view as soon as the delete is requested, and the
+ * view is reconciled with the repository once it responds. Failed deletions are rolled back. Repeated requests for a
+ * player that is already being deleted are ignored, and requests arriving within a short window are sent to the
+ * repository as a single batch. Nothing can be deleted until the leaderboard is shown, so handling deletions is
+ * deferred until after the first frame.
+ * <p>
+ * The leaderboard can be filtered by name. Searches use the repository's name index and run on a background scheduler.
+ * Each keystroke cancels the search for the previous query, and a query that extends the previous one only searches
+ * the previous results.
+ * <p>
+ * Live score changes are applied to the displayed ranking without waiting for a new snapshot. The repository conflates
+ * them per player, so the presenter only receives the net changes since the last emission.
+ * <p>
+ * The presenter can be limited to the top players, in which case only the best players are ranked and sent to the
+ * view. Most changes then cost O(log k) in the number of displayed players rather than the size of the leaderboard.
  */
-public class LeaderboardPresenter implements RxMvpPresenter {
+public class LeaderboardPresenter
+    implements RetainablePresenter<LeaderboardView>, StateSavingPresenter, PrioritizedPresenter {
+  /**
+   * Used as the maximum number of displayed players to display every player.
+   */
+  public static final int DISPLAY_ALL_PLAYERS = Integer.MAX_VALUE;
+
+  private static final long DELETE_BATCH_WINDOW_MILLIS = 100;
+
+  private static final int MAX_SAVED_PLAYERS = 100;
+
+  private static final int MAX_SAVED_STATE_BYTES = 32 * 1024;
+
+  private final PlayerViewModelCodec codec = new PlayerViewModelCodec(MAX_SAVED_PLAYERS, MAX_SAVED_STATE_BYTES);
+
+  private final OptimisticDeletions optimisticDeletions = new OptimisticDeletions();
+
+  private final PublishSubject<Pulse> optimisticDeletionsChanged = PublishSubject.create();
+
   private final PlayerRepository playerRepository;
 
-  private final LeaderboardView leaderboardView;
+  private final FrameClock frameClock;
+
+  private final Scheduler mainScheduler;
+
+  private final Scheduler computationScheduler;
+
+  private final int maxDisplayedPlayers;
+
+  private final PlayerSorter playerSorter;
+
+  private LeaderboardView leaderboardView;
+
+  private List<PlayerViewModel> lastRenderedPlayers;
+
+  private String currentQuery = "";
+
+  private PlayerViewModelCodec.SavedPlayers restoredPlayers;
+
+  private List<PlayerViewModel> confirmedPlayers;
+
+  // Accessed on the search scheduler
+  private volatile PlayerNameIndex.Search lastSearch;
+
+  /**
+   * The view models of the latest snapshot, keyed by player. Players are value types, so a player whose name and
+   * score are unchanged maps to the same view model instance, which lets the view's diff short-circuit on reference
+   * equality and limits allocation to the rows that actually changed.
+   */
+  private Map<Player, PlayerViewModel> viewModelCache = new HashMap<>();
+
+  // Filled while converting a snapshot, then swapped with the cache
+  private Map<Player, PlayerViewModel> nextViewModelCache = new HashMap<>();
+
+  public LeaderboardPresenter(
+      final PlayerRepository playerRepository,
+      final LeaderboardView leaderboardView,
+      final FrameClock frameClock,
+      final Scheduler mainScheduler,
+      final Scheduler computationScheduler,
+      final PlayerSorter playerSorter) {
+
+    this(
+        playerRepository,
+        leaderboardView,
+        frameClock,
+        mainScheduler,
+        computationScheduler,
+        playerSorter,
+        DISPLAY_ALL_PLAYERS);
+  }
+
+  /**
+   * Constructs a new LeaderboardPresenter without a view. A view must be attached with
+   * {@link #attachView(LeaderboardView)} before presentation tasks are created, which the activity delegate does each
+   * time it starts them. Presenters that are retained beyond their host should be constructed this way, so that they
+   * only hold dependencies that live as long as the application.
+   *
+   * @param playerRepository
+   *     the source of the players
+   * @param frameClock
+   *     aligns view updates to display frames
+   * @param mainScheduler
+   *     the main thread scheduler
+   * @param computationScheduler
+   *     the scheduler to evaluate searches on
+   * @param playerSorter
+   *     sorts snapshots when every player is displayed
+   * @param maxDisplayedPlayers
+   *     the number of players to display, or {@link #DISPLAY_ALL_PLAYERS}
+   */
+  public LeaderboardPresenter(
+      final PlayerRepository playerRepository,
+      final FrameClock frameClock,
+      final Scheduler mainScheduler,
+      final Scheduler computationScheduler,
+      final PlayerSorter playerSorter,
+      final int maxDisplayedPlayers) {
+
+    checkArgument(maxDisplayedPlayers > 0, "maxDisplayedPlayers must be greater than zero.");
 
-  public LeaderboardPresenter(final PlayerRepository playerRepository, final LeaderboardView leaderboardView) {
     this.playerRepository = checkNotNull(playerRepository);
-    this.leaderboardView = checkNotNull(leaderboardView);
+    this.frameClock = checkNotNull(frameClock);
+    this.mainScheduler = checkNotNull(mainScheduler);
+    this.computationScheduler = checkNotNull(computationScheduler);
+    this.maxDisplayedPlayers = maxDisplayedPlayers;
+    this.playerSorter = checkNotNull(playerSorter);
+  }
+
+  /**
+   * Constructs a new LeaderboardPresenter that only displays the top players.
+   *
+   * @param playerRepository
+   *     the source of the players
+   * @param leaderboardView
+   *     the view to display the players in
+   * @param frameClock
+   *     aligns view updates to display frames
+   * @param mainScheduler
+   *     the main thread scheduler
+   * @param computationScheduler
+   *     the scheduler to evaluate searches on
+   * @param playerSorter
+   *     sorts snapshots when every player is displayed
+   * @param maxDisplayedPlayers
+   *     the number of players to display, or {@link #DISPLAY_ALL_PLAYERS}
+   */
+  public LeaderboardPresenter(
+      final PlayerRepository playerRepository,
+      final LeaderboardView leaderboardView,
+      final FrameClock frameClock,
+      final Scheduler mainScheduler,
+      final Scheduler computationScheduler,
+      final PlayerSorter playerSorter,
+      final int maxDisplayedPlayers) {
+
+    this(playerRepository, frameClock, mainScheduler, computationScheduler, playerSorter, maxDisplayedPlayers);
+
+    attachView(leaderboardView);
+  }
+
+  @Override
+  public void attachView(@NonNull final LeaderboardView view) {
+    leaderboardView = checkNotNull(view);
+  }
+
+  @Override
+  public void detachView(@NonNull final LeaderboardView view) {
+    if (leaderboardView == view) {
+      leaderboardView = null;
+    }
+  }
+
+  @Nullable
+  @Override
+  public byte[] saveState() {
+    return lastRenderedPlayers == null ? null : codec.encode(currentQuery, lastRenderedPlayers);
+  }
+
+  @Override
+  public void restoreState(@NonNull final byte[] state) {
+    try {
+      restoredPlayers = codec.decode(state);
+    } catch (final IOException e) {
+      // The state is only an optimisation, so the leaderboard can just load from scratch
+      restoredPlayers = null;
+    }
   }
 
   @NonNull
   @Override
   public Completable createPresentationTasks() {
-    return Completable.mergeArray(displayPlayers(), deletePlayers());
+    checkState(leaderboardView != null, "Cannot create presentation tasks while no view is attached.");
+
+    return displayPlayers();
+  }
+
+  @NonNull
+  @Override
+  public Completable createDeferrablePresentationTasks() {
+    checkState(leaderboardView != null, "Cannot create presentation tasks while no view is attached.");
+
+    return deletePlayers();
   }
 
   @NonNull
@@ -43,21 +252,194 @@ public class LeaderboardPresenter implements RxMvpPresenter {
   }
 
   private Completable displayPlayers() {
+    final Observable<List<PlayerViewModel>> confirmedSnapshots = leaderboardView
+        .observeSearchQueries()
+        .doOnNext(query -> currentQuery = query)
+        // Switching cancels the search for the previous query
+        .switchMap(this::observeRankedPlayersMatching)
+        .flatMapSingle(this::toViewModels)
+        .doOnNext(players -> {
+          confirmedPlayers = players;
+          optimisticDeletions.reconcile(players);
+        });
+
+    final Observable<List<PlayerViewModel>> optimisticUpdates = optimisticDeletionsChanged
+        .filter(pulse -> confirmedPlayers != null)
+        .map(pulse -> confirmedPlayers);
+
+    final Completable displayLivePlayers = Observable
+        .merge(confirmedSnapshots, optimisticUpdates)
+        .map(optimisticDeletions::apply)
+        .compose(new FrameAlignedTransformer<>(frameClock))
+        .flatMapCompletable(this::render);
+
+    // Restored players are only useful until the first live snapshot arrives
+    final PlayerViewModelCodec.SavedPlayers restoredPlayers = this.restoredPlayers;
+    this.restoredPlayers = null;
+
+    if (restoredPlayers == null) {
+      return displayLivePlayers;
+    }
+
+    final Completable displayRestoredPlayers = leaderboardView
+        .observeSearchQueries()
+        .firstElement()
+        // The view restores its own query, and rows saved for a different query would be wrong until live data loads
+        .filter(query -> query.equals(restoredPlayers.getQuery()))
+        .flatMapCompletable(query -> {
+          // Allows deletions to be rendered optimistically before the first live snapshot
+          confirmedPlayers = restoredPlayers.getPlayers();
+          optimisticDeletions.reconcile(confirmedPlayers);
+
+          return render(restoredPlayers.getPlayers());
+        });
+
+    return displayRestoredPlayers.andThen(displayLivePlayers);
+  }
+
+  private Observable<List<Player>> observeRankedPlayersMatching(final String query) {
+    return Observable.defer(() -> {
+      final Ranking ranking = maxDisplayedPlayers == DISPLAY_ALL_PLAYERS
+          ? new SortedRanking()
+          : new TopRanking(maxDisplayedPlayers);
+
+      final Observable<Ranking> snapshots = observePlayersMatching(query)
+          .switchMap(this::presort)
+          .map(players -> {
+            ranking.reset(players);
+            return ranking;
+          });
+
+      final Observable<Ranking> scoreChanges = playerRepository
+          .observeScoreChanges()
+          .observeOn(mainScheduler)
+          // Only changes to ranked players matter, which also drops changes that arrive before the first snapshot
+          .filter(ranking::apply)
+          .map(changes -> ranking);
+
+      return Observable
+          .merge(snapshots, scoreChanges)
+          .map(Ranking::getPlayers);
+    });
+  }
+
+  private Observable<? extends Collection<Player>> presort(final Collection<Player> players) {
+    if (maxDisplayedPlayers != DISPLAY_ALL_PLAYERS) {
+      // The top ranking only sorts the players it keeps, so the snapshot goes straight to the main thread
+      return Observable
+          .just(players)
+          .observeOn(mainScheduler);
+    }
+
+    // Snapshots above the sorter's threshold are sorted in parallel, which leaves the ranking a linear pass
+    return playerSorter
+        .sort(players)
+        .toObservable()
+        .observeOn(mainScheduler);
+  }
+
+  private Observable<? extends Collection<Player>> observePlayersMatching(final String query) {
+    if (query.isEmpty()) {
+      return playerRepository.observePlayers();
+    }
+
     return playerRepository
         .observePlayers()
-        .flatMapCompletable(players -> Observable
-            .fromIterable(players)
-            .sorted((player1, player2) -> Integer.compare(player2.getHighscore(), player1.getHighscore()))
-            .map(this::toViewModel)
-            .collectInto(new ArrayList<PlayerViewModel>(), List::add)
-            .flatMapCompletable(leaderboardView::setPlayers));
+        // The index is rebuilt when the players change, so each snapshot requires a new search
+        .switchMap(players -> playerRepository
+            .getNameIndex()
+            .subscribeOn(computationScheduler)
+            .map(index -> search(index, query))
+            .toObservable())
+        .observeOn(mainScheduler);
+  }
+
+  private List<Player> search(final PlayerNameIndex index, final String query) {
+    final PlayerNameIndex.Search previousSearch = lastSearch;
+
+    // Refining only examines the previous results, which is valid until the index changes
+    final PlayerNameIndex.Search search = previousSearch != null && previousSearch.getIndex() == index
+        ? previousSearch.refine(query)
+        : index.search(query);
+
+    lastSearch = search;
+
+    // Copied here so the players are created once, off the main thread
+    return ImmutableList.copyOf(search.getPlayers());
+  }
+
+  private Single<List<PlayerViewModel>> toViewModels(final List<Player> rankedPlayers) {
+    return Single.fromCallable(() -> {
+      final List<PlayerViewModel> viewModels = new ArrayList<>(rankedPlayers.size());
+
+      for (final Player player : rankedPlayers) {
+        final PlayerViewModel viewModel = getOrCreateViewModel(player);
+        nextViewModelCache.put(player, viewModel);
+        viewModels.add(viewModel);
+      }
+
+      // Only players in the latest snapshot are kept, so the cache never outgrows the leaderboard. The maps are
+      // swapped and cleared rather than replaced, so their tables are reused from snapshot to snapshot.
+      final Map<Player, PlayerViewModel> previousViewModelCache = viewModelCache;
+      viewModelCache = nextViewModelCache;
+      nextViewModelCache = previousViewModelCache;
+      nextViewModelCache.clear();
+
+      return viewModels;
+    });
+  }
+
+  private Completable render(final List<PlayerViewModel> players) {
+    return leaderboardView
+        .setPlayers(players)
+        .doOnComplete(() -> lastRenderedPlayers = players);
   }
 
   private Completable deletePlayers() {
     return leaderboardView
         .observeDeleteRequests()
-        .map(this::toDataModel)
-        .flatMapCompletable(playerRepository::removePlayer);
+        // Drops double taps and requests for players that are already being deleted
+        .filter(optimisticDeletions::add)
+        .doOnNext(player -> optimisticDeletionsChanged.onNext(Pulse.getInstance()))
+        .publish(requests -> requests.buffer(() -> requests
+            // The first request after each batch opens a new window, so no timer runs while idle
+            .take(1)
+            .delay(DELETE_BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS, mainScheduler)))
+        .filter(batch -> !batch.isEmpty())
+        .flatMapCompletable(this::deleteBatch);
+  }
+
+  private Completable deleteBatch(final List<PlayerViewModel> batch) {
+    final List<Player> players = new ArrayList<>(batch.size());
+
+    for (final PlayerViewModel player : batch) {
+      players.add(toDataModel(player));
+    }
+
+    return playerRepository
+        .removePlayers(players)
+        // The repository may respond on any thread, but the optimistic deletions belong to the main thread
+        .observeOn(mainScheduler)
+        .doOnComplete(() -> {
+          for (final PlayerViewModel player : batch) {
+            optimisticDeletions.confirm(player);
+          }
+        })
+        .doOnError(error -> {
+          for (final PlayerViewModel player : batch) {
+            optimisticDeletions.rollBack(player);
+          }
+
+          optimisticDeletionsChanged.onNext(Pulse.getInstance());
+        })
+        // A failed deletion shouldn't stop the presentation
+        .onErrorComplete();
+  }
+
+  private PlayerViewModel getOrCreateViewModel(final Player player) {
+    final PlayerViewModel cachedViewModel = viewModelCache.get(player);
+
+    return cachedViewModel == null ? toViewModel(player) : cachedViewModel;
   }
 
   private PlayerViewModel toViewModel(final Player player) {
@@ -0,0 +1,121 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Tracks players that have been removed from the view before the repository has confirmed their deletion. A deletion
+ * moves through two stages: it awaits the repository until the repository completes or fails, and then (if
+ * successful) it awaits a snapshot that no longer contains the player. The player stays hidden throughout, so the row
+ * never flickers back while the snapshot catches up. Failed deletions are rolled back and the player reappears.
+ * <p>
+ * Players are identified by name, as in the repository, since their scores can change while a deletion is pending.
+ * <p>
+ * This class is not thread safe and should only be used from the main thread.
+ */
+public class OptimisticDeletions {
+  private final Set<String> awaitingRepository = new HashSet<>();
+
+  private final Set<String> awaitingSnapshot = new HashSet<>();
+
+  private Collection<PlayerViewModel> latestSnapshot = Collections.emptyList();
+
+  // The names in the latest snapshot, collected at most once per snapshot and only when a deletion needs them
+  private Set<String> latestSnapshotMembers;
+
+  /**
+   * Records an optimistic deletion.
+   *
+   * @param player
+   *     the player being deleted
+   *
+   * @return true if the player was not already being deleted, false otherwise
+   */
+  public boolean add(final PlayerViewModel player) {
+    return !awaitingSnapshot.contains(player.getName()) && awaitingRepository.add(player.getName());
+  }
+
+  /**
+   * Records that the repository has deleted a player. The player remains hidden until a snapshot without the player
+   * is reconciled, unless the latest reconciled snapshot already excludes it.
+   *
+   * @param player
+   *     the deleted player
+   */
+  public void confirm(final PlayerViewModel player) {
+    if (awaitingRepository.remove(player.getName()) && getLatestSnapshotMembers().contains(player.getName())) {
+      awaitingSnapshot.add(player.getName());
+    }
+  }
+
+  /**
+   * Records that the repository failed to delete a player, so that it is shown again.
+   *
+   * @param player
+   *     the player that was not deleted
+   */
+  public void rollBack(final PlayerViewModel player) {
+    awaitingRepository.remove(player.getName());
+  }
+
+  /**
+   * Clears confirmed deletions that a new snapshot reflects. The snapshot is kept as the latest snapshot for
+   * subsequent confirmations.
+   *
+   * @param snapshot
+   *     the new snapshot from the repository
+   */
+  public void reconcile(final Collection<PlayerViewModel> snapshot) {
+    latestSnapshot = checkNotNull(snapshot);
+    latestSnapshotMembers = null;
+
+    if (!awaitingSnapshot.isEmpty()) {
+      awaitingSnapshot.retainAll(getLatestSnapshotMembers());
+    }
+  }
+
+  /**
+   * Removes all players with pending deletions from a list.
+   *
+   * @param players
+   *     the list to filter
+   *
+   * @return the filtered list, or the same list if there are no pending deletions
+   */
+  public List<PlayerViewModel> apply(final List<PlayerViewModel> players) {
+    if (awaitingRepository.isEmpty() && awaitingSnapshot.isEmpty()) {
+      return players;
+    }
+
+    final List<PlayerViewModel> visiblePlayers = new ArrayList<>(players.size());
+
+    for (final PlayerViewModel player : players) {
+      if (!awaitingRepository.contains(player.getName()) && !awaitingSnapshot.contains(player.getName())) {
+        visiblePlayers.add(player);
+      }
+    }
+
+    return visiblePlayers;
+  }
+
+  private Set<String> getLatestSnapshotMembers() {
+    // Snapshots are lists, which would make each membership check linear in the size of the leaderboard
+    if (latestSnapshotMembers == null) {
+      latestSnapshotMembers = new HashSet<>(latestSnapshot.size() * 2);
+
+      for (final PlayerViewModel player : latestSnapshot) {
+        latestSnapshotMembers.add(player.getName());
+      }
+    }
+
+    return latestSnapshotMembers;
+  }
+}
@@ -0,0 +1,204 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sorts players into {@link Ranking#ORDER}. Small collections are sorted sequentially with a comparator. Large
+ * collections are sorted in parallel over primitive keys: each key packs the inverted score into the high 32 bits and
+ * the player's index into the low 32 bits, so sorting the keys ascending sorts the players by descending score without
+ * boxing or comparator calls. The keys are split into one chunk per core, the chunks are sorted concurrently, and the
+ * sorted chunks are merged pairwise with each round of merges also running concurrently. Ties are then broken by name,
+ * which only touches runs of equal scores.
+ */
+public class PlayerSorter {
+  private final Scheduler workScheduler;
+
+  private final int parallelThreshold;
+
+  private final int parallelism;
+
+  /**
+   * Constructs a new PlayerSorter with one chunk per available processor. There is no default threshold, since the
+   * crossover point depends on the device. Use the sort benchmarks to find it on the target devices.
+   *
+   * @param workScheduler
+   *     the scheduler to run parallel sorts on, which should have a thread per core
+   * @param parallelThreshold
+   *     the minimum number of players to sort in parallel
+   */
+  public PlayerSorter(final Scheduler workScheduler, final int parallelThreshold) {
+    this(workScheduler, parallelThreshold, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a new PlayerSorter.
+   *
+   * @param workScheduler
+   *     the scheduler to run parallel sorts on, which should have a thread per core
+   * @param parallelThreshold
+   *     the minimum number of players to sort in parallel
+   * @param parallelism
+   *     the number of chunks to sort concurrently, greater than zero
+   */
+  public PlayerSorter(final Scheduler workScheduler, final int parallelThreshold, final int parallelism) {
+    checkArgument(parallelism > 0, "parallelism must be greater than zero.");
+
+    this.workScheduler = checkNotNull(workScheduler);
+    this.parallelThreshold = parallelThreshold;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Sorts players. Collections below the parallel threshold are sorted on the subscribing thread when subscribed to,
+   * and larger collections are sorted on the work scheduler and emitted there.
+   *
+   * @param players
+   *     the players to sort, with unique names
+   *
+   * @return a single that emits the sorted players
+   */
+  public Single<List<Player>> sort(final Collection<Player> players) {
+    checkNotNull(players);
+
+    // A single player is already sorted, and an empty collection can't be split into chunks
+    if (players.size() < parallelThreshold || players.size() < 2 || parallelism == 1) {
+      return Single.fromCallable(() -> sortSequentially(players));
+    }
+
+    return Single.defer(() -> sortInParallel(players.toArray(new Player[players.size()])));
+  }
+
+  private Single<List<Player>> sortInParallel(final Player[] players) {
+    final int chunkCount = Math.min(parallelism, players.length);
+    final int[] chunkStarts = new int[chunkCount + 1];
+
+    for (int i = 0; i <= chunkCount; i++) {
+      chunkStarts[i] = (int) ((long) players.length * i / chunkCount);
+    }
+
+    final long[] keys = new long[players.length];
+    final long[] buffer = new long[players.length];
+
+    final List<Completable> chunkSorts = new ArrayList<>(chunkCount);
+
+    for (int i = 0; i < chunkCount; i++) {
+      final int start = chunkStarts[i];
+      final int end = chunkStarts[i + 1];
+
+      chunkSorts.add(inBackground(() -> {
+        packKeys(players, keys, start, end);
+        Arrays.sort(keys, start, end);
+      }));
+    }
+
+    Completable sorting = Completable.merge(chunkSorts);
+    long[] source = keys;
+    long[] destination = buffer;
+
+    for (int width = 1; width < chunkCount; width *= 2) {
+      sorting = sorting.andThen(mergeRound(source, destination, chunkStarts, width));
+
+      final long[] merged = destination;
+      destination = source;
+      source = merged;
+    }
+
+    final long[] sortedKeys = source;
+
+    return sorting.andThen(Single.fromCallable(() -> unpackKeys(players, sortedKeys)));
+  }
+
+  private Completable mergeRound(
+      final long[] source,
+      final long[] destination,
+      final int[] chunkStarts,
+      final int width) {
+
+    final int chunkCount = chunkStarts.length - 1;
+    final List<Completable> merges = new ArrayList<>();
+
+    for (int i = 0; i < chunkCount; i += width * 2) {
+      final int start = chunkStarts[i];
+      final int middle = chunkStarts[Math.min(i + width, chunkCount)];
+      final int end = chunkStarts[Math.min(i + width * 2, chunkCount)];
+
+      merges.add(inBackground(() -> merge(source, destination, start, middle, end)));
+    }
+
+    return Completable.merge(merges);
+  }
+
+  private Completable inBackground(final Runnable task) {
+    return Completable
+        .fromRunnable(task)
+        .subscribeOn(workScheduler);
+  }
+
+  private static List<Player> sortSequentially(final Collection<Player> players) {
+    final List<Player> sortedPlayers = new ArrayList<>(players);
+    Collections.sort(sortedPlayers, Ranking.ORDER);
+
+    return sortedPlayers;
+  }
+
+  private static void packKeys(final Player[] players, final long[] keys, final int start, final int end) {
+    for (int i = start; i < end; i++) {
+      // Inverting the score reverses its order, and the index is non-negative so it doesn't disturb the high bits
+      keys[i] = ((long) ~players[i].getHighscore() << 32) | i;
+    }
+  }
+
+  private static void merge(
+      final long[] source,
+      final long[] destination,
+      final int start,
+      final int middle,
+      final int end) {
+
+    int left = start;
+    int right = middle;
+
+    for (int i = start; i < end; i++) {
+      if (right >= end || (left < middle && source[left] <= source[right])) {
+        destination[i] = source[left++];
+      } else {
+        destination[i] = source[right++];
+      }
+    }
+  }
+
+  private static List<Player> unpackKeys(final Player[] players, final long[] sortedKeys) {
+    final List<Player> sortedPlayers = new ArrayList<>(sortedKeys.length);
+    int runStart = 0;
+
+    for (int i = 0; i < sortedKeys.length; i++) {
+      sortedPlayers.add(players[(int) sortedKeys[i]]);
+
+      final boolean runEnds = i == sortedKeys.length - 1 || (sortedKeys[i] >> 32) != (sortedKeys[i + 1] >> 32);
+
+      if (runEnds) {
+        // Players with equal scores are ordered by index, so the tie break by name is applied to each run
+        if (i > runStart) {
+          Collections.sort(sortedPlayers.subList(runStart, i + 1), Ranking.ORDER);
+        }
+
+        runStart = i + 1;
+      }
+    }
+
+    return sortedPlayers;
+  }
+}
@@ -0,0 +1,158 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.google.auto.value.AutoValue;
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Converts the search query and leading rows of a leaderboard to and from a compact binary form, for saving presenter
+ * state. The format is a version byte and the query, followed by a count and the name and highscore of each player in
+ * modified UTF-8.
+ * <p>
+ * Saved state ends up in a Binder transaction, so the encoded form is bounded by both a number of players and a number
+ * of bytes. Players that don't fit are left out, as are players that can't be encoded at all (names over 64KB in
+ * modified UTF-8).
+ */
+public class PlayerViewModelCodec {
+  private static final int VERSION = 2;
+
+  private final int maxPlayers;
+
+  private final int maxBytes;
+
+  /**
+   * Constructs a new PlayerViewModelCodec.
+   *
+   * @param maxPlayers
+   *     the maximum number of players to encode, greater than zero
+   * @param maxBytes
+   *     the maximum size of the encoded form, excluding the query, greater than zero
+   */
+  public PlayerViewModelCodec(final int maxPlayers, final int maxBytes) {
+    checkArgument(maxPlayers > 0, "maxPlayers must be greater than zero.");
+    checkArgument(maxBytes > 0, "maxBytes must be greater than zero.");
+
+    this.maxPlayers = maxPlayers;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Encodes the query and as many of the leading players as fit within the bounds of this codec.
+   *
+   * @param query
+   *     the search query the players were filtered with, empty if unfiltered
+   * @param players
+   *     the players, in display order
+   *
+   * @return the encoded form
+   */
+  public byte[] encode(final String query, final List<PlayerViewModel> players) {
+    final ByteArrayOutputStream rows = new ByteArrayOutputStream();
+    final ByteArrayOutputStream row = new ByteArrayOutputStream();
+    int count = 0;
+
+    try (final DataOutputStream rowOutput = new DataOutputStream(row)) {
+      for (int i = 0; i < players.size() && count < maxPlayers; i++) {
+        row.reset();
+
+        if (!tryWrite(rowOutput, players.get(i))) {
+          continue;
+        }
+
+        if (rows.size() + row.size() > maxBytes) {
+          break;
+        }
+
+        row.writeTo(rows);
+        count++;
+      }
+
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() + query.length() + 16);
+      final DataOutputStream output = new DataOutputStream(bytes);
+
+      output.writeByte(VERSION);
+
+      // An unencodable query is dropped, the view restores its own query anyway
+      if (!tryWriteUtf(output, query)) {
+        output.writeUTF("");
+      }
+
+      output.writeInt(count);
+      rows.writeTo(output);
+      output.flush();
+
+      return bytes.toByteArray();
+    } catch (final IOException e) {
+      // Byte array streams don't throw
+      throw new AssertionError(e);
+    }
+  }
+
+  public SavedPlayers decode(final byte[] encoded) throws IOException {
+    try (final DataInputStream input = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      if (input.readByte() != VERSION) {
+        throw new IOException("Unsupported version.");
+      }
+
+      final String query = input.readUTF();
+      final int count = input.readInt();
+
+      if (count < 0) {
+        throw new IOException("Negative player count.");
+      }
+
+      // Don't trust the count for sizing, the data could be corrupt
+      final List<PlayerViewModel> players = new ArrayList<>();
+
+      for (int i = 0; i < count; i++) {
+        players.add(PlayerViewModel.create(input.readUTF(), input.readUTF()));
+      }
+
+      return SavedPlayers.create(query, players);
+    }
+  }
+
+  private static boolean tryWrite(final DataOutputStream output, final PlayerViewModel player) throws IOException {
+    return tryWriteUtf(output, player.getName()) && tryWriteUtf(output, player.getHighscore());
+  }
+
+  private static boolean tryWriteUtf(final DataOutputStream output, final String text) throws IOException {
+    try {
+      // Checks the length before writing anything, so nothing is written on failure
+      output.writeUTF(text);
+      return true;
+    } catch (final UTFDataFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * The decoded form of the saved state.
+   */
+  @AutoValue
+  public static abstract class SavedPlayers {
+    /**
+     * @return the search query the players were filtered with, empty if unfiltered
+     */
+    public abstract String getQuery();
+
+    /**
+     * @return the leading players, in display order
+     */
+    public abstract List<PlayerViewModel> getPlayers();
+
+    public static SavedPlayers create(final String query, final List<PlayerViewModel> players) {
+      return new AutoValue_PlayerViewModelCodec_SavedPlayers(query, players);
+    }
+  }
+}
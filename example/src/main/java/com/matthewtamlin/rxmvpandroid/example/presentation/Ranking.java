@@ -0,0 +1,44 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders players by descending highscore and applies score changes to the order. Ties are broken by name, which makes
+ * the order total and stable across snapshots.
+ */
+public interface Ranking {
+  /**
+   * Orders the best player first.
+   */
+  public static final Comparator<Player> ORDER = (player1, player2) -> {
+    final int scoreComparison = Integer.compare(player2.getHighscore(), player1.getHighscore());
+    return scoreComparison != 0 ? scoreComparison : player1.getName().compareTo(player2.getName());
+  };
+
+  /**
+   * Replaces all players.
+   *
+   * @param players
+   *     the new players
+   */
+  public void reset(Collection<Player> players);
+
+  /**
+   * Applies score changes. Changes for players that are not part of the ranking are ignored.
+   *
+   * @param changes
+   *     the players with their new scores
+   *
+   * @return true if the ranked players changed, false otherwise
+   */
+  public boolean apply(Collection<Player> changes);
+
+  /**
+   * @return the ranked players, highest score first
+   */
+  public List<Player> getPlayers();
+}
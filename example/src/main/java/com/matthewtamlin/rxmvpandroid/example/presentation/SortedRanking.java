@@ -0,0 +1,78 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Ranking that keeps every player in a sorted list, so that score changes can be applied without re-sorting the
+ * whole leaderboard.
+ * <p>
+ * This class is not thread safe and should only be used from the main thread.
+ */
+public class SortedRanking implements Ranking {
+  /**
+   * The minimum number of changes that are applied by re-sorting instead of moving each player. Each move costs a
+   * binary search and an array copy, so re-sorting wins once a significant fraction of the players change.
+   */
+  private static final int MIN_CHANGES_FOR_RESORT = 16;
+
+  private final List<Player> players = new ArrayList<>();
+
+  private final Map<String, Player> playersByName = new HashMap<>();
+
+  @Override
+  public void reset(final Collection<Player> players) {
+    this.players.clear();
+    this.players.addAll(players);
+
+    // Linear if the players are already in order, since the sort detects existing runs
+    Collections.sort(this.players, ORDER);
+
+    playersByName.clear();
+
+    for (final Player player : players) {
+      playersByName.put(player.getName(), player);
+    }
+  }
+
+  @Override
+  public boolean apply(final Collection<Player> changes) {
+    final boolean resort = changes.size() >= MIN_CHANGES_FOR_RESORT && changes.size() * 8 >= players.size();
+    boolean changed = false;
+
+    for (final Player updated : changes) {
+      final Player previous = playersByName.get(updated.getName());
+
+      if (previous == null || previous.equals(updated)) {
+        continue;
+      }
+
+      playersByName.put(updated.getName(), updated);
+      changed = true;
+
+      if (!resort) {
+        players.remove(Collections.binarySearch(players, previous, ORDER));
+        players.add(-Collections.binarySearch(players, updated, ORDER) - 1, updated);
+      }
+    }
+
+    if (changed && resort) {
+      players.clear();
+      players.addAll(playersByName.values());
+      Collections.sort(players, ORDER);
+    }
+
+    return changed;
+  }
+
+  @Override
+  public List<Player> getPlayers() {
+    return Collections.unmodifiableList(players);
+  }
+}
@@ -0,0 +1,161 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A Ranking that only ranks the best players. The best k players are kept in a sorted list along with a reserve of up
+ * to k more, and every player outside the list ranks after every player in it. Changes are applied by binary search,
+ * so most score changes cost O(log k) comparisons and an O(k) array copy:
+ * <ul>
+ * <li>A listed player whose score changes is moved within the list, or dropped from the end of it if their new score
+ * might rank after an unlisted player.</li>
+ * <li>An unlisted player whose score beats the last listed player is inserted, which may push the last listed player
+ * out of the list.</li>
+ * <li>An unlisted player whose score doesn't beat the last listed player is ignored.</li>
+ * </ul>
+ * Decreases only drop players into the reserve, so the list is only rebuilt from all players in O(n log k) once the
+ * reserve runs out, which takes at least k drops. Resets also cost O(n log k). Only the listed players are ever
+ * sorted.
+ * <p>
+ * This class is not thread safe and should only be used from the main thread.
+ */
+public class TopRanking implements Ranking {
+  private final Map<String, Player> playersByName = new HashMap<>();
+
+  /**
+   * The best players, best first. The first {@code maxSize} are ranked and the rest are the reserve.
+   */
+  private final List<Player> listedPlayers = new ArrayList<>();
+
+  private final int maxSize;
+
+  private final int maxListedSize;
+
+  private boolean allPlayersListed = true;
+
+  /**
+   * Constructs a new TopRanking.
+   *
+   * @param maxSize
+   *     the number of players to rank, greater than zero
+   */
+  public TopRanking(final int maxSize) {
+    checkArgument(maxSize > 0, "maxSize must be greater than zero.");
+
+    this.maxSize = maxSize;
+    this.maxListedSize = (int) Math.min(2L * maxSize, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void reset(final Collection<Player> players) {
+    playersByName.clear();
+
+    for (final Player player : players) {
+      playersByName.put(player.getName(), player);
+    }
+
+    rebuildList();
+  }
+
+  @Override
+  public boolean apply(final Collection<Player> changes) {
+    boolean changed = false;
+
+    for (final Player updated : changes) {
+      final Player previous = playersByName.get(updated.getName());
+
+      if (previous == null || previous.equals(updated)) {
+        continue;
+      }
+
+      playersByName.put(updated.getName(), updated);
+
+      // Unlisted players only rank after the last listed player, so a player ranking after it can't be placed
+      final boolean listable = allPlayersListed
+          || (!listedPlayers.isEmpty() && Ranking.ORDER.compare(updated, getLastListedPlayer()) < 0);
+
+      final int previousIndex = Collections.binarySearch(listedPlayers, previous, Ranking.ORDER);
+
+      if (previousIndex >= 0) {
+        listedPlayers.remove(previousIndex);
+        changed |= previousIndex < maxSize;
+      }
+
+      if (listable) {
+        changed |= insert(updated);
+      } else if (previousIndex >= 0) {
+        // The player dropped out of the list, and now ranks after every listed player
+        allPlayersListed = false;
+      }
+    }
+
+    if (listedPlayers.size() < Math.min(maxSize, playersByName.size())) {
+      // The reserve ran out, so the next best players are unknown
+      rebuildList();
+      changed = true;
+    }
+
+    return changed;
+  }
+
+  @Override
+  public List<Player> getPlayers() {
+    // A view rather than a copy, so it's only valid until the next change (as in SortedRanking)
+    return Collections.unmodifiableList(listedPlayers.subList(0, Math.min(maxSize, listedPlayers.size())));
+  }
+
+  /**
+   * Inserts a player that ranks before every unlisted player.
+   *
+   * @return true if the ranked players changed, false otherwise
+   */
+  private boolean insert(final Player player) {
+    final int insertionIndex = -Collections.binarySearch(listedPlayers, player, Ranking.ORDER) - 1;
+
+    listedPlayers.add(insertionIndex, player);
+
+    if (listedPlayers.size() > maxListedSize) {
+      // The removed player ranks after every listed player, since the list is sorted
+      listedPlayers.remove(listedPlayers.size() - 1);
+      allPlayersListed = false;
+    }
+
+    return insertionIndex < maxSize;
+  }
+
+  private Player getLastListedPlayer() {
+    return listedPlayers.get(listedPlayers.size() - 1);
+  }
+
+  private void rebuildList() {
+    // Selects the best players with a bounded heap that has the worst of them at the root
+    final PriorityQueue<Player> bestPlayers = new PriorityQueue<>(
+        Math.min(maxListedSize, playersByName.size()) + 1,
+        Collections.reverseOrder(Ranking.ORDER));
+
+    for (final Player player : playersByName.values()) {
+      if (bestPlayers.size() < maxListedSize) {
+        bestPlayers.add(player);
+      } else if (Ranking.ORDER.compare(player, bestPlayers.peek()) < 0) {
+        bestPlayers.poll();
+        bestPlayers.add(player);
+      }
+    }
+
+    listedPlayers.clear();
+    listedPlayers.addAll(bestPlayers);
+    Collections.sort(listedPlayers, Ranking.ORDER);
+
+    allPlayersListed = listedPlayers.size() == playersByName.size();
+  }
+}
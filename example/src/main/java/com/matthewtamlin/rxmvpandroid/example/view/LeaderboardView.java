@@ -16,6 +16,14 @@ public interface LeaderboardView extends RxMvpView {
 
   public Observable<PlayerViewModel> observeDeleteRequests();
 
+  /**
+   * Observes the query used to filter the leaderboard by name. Emits the current query on subscription, and an empty
+   * query means the leaderboard is unfiltered.
+   *
+   * @return an observable that emits the search query
+   */
+  public Observable<String> observeSearchQueries();
+
   @AutoValue
   public static abstract class PlayerViewModel {
     public abstract String getName();
@@ -0,0 +1,17 @@
+package com.matthewtamlin.rxmvpandroid.example.view;
+
+import android.support.annotation.NonNull;
+import android.support.v7.util.ListUpdateCallback;
+
+/**
+ * The difference between two lists, expressed as the update operations that turn the old list into the new list.
+ */
+public interface ListDiff {
+  /**
+   * Dispatches the update operations to a callback, typically one that updates a RecyclerView adapter.
+   *
+   * @param callback
+   *     the callback to dispatch to
+   */
+  public void dispatchUpdatesTo(@NonNull ListUpdateCallback callback);
+}
@@ -2,17 +2,18 @@ package com.matthewtamlin.rxmvpandroid.example.view;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.support.v7.util.DiffUtil;
-import android.support.v7.util.DiffUtil.Callback;
-import android.support.v7.util.DiffUtil.DiffResult;
+import android.support.v4.view.AsyncLayoutInflater;
+import android.support.v7.util.AdapterListUpdateCallback;
 import android.support.v7.widget.DividerItemDecoration;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.View.OnClickListener;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
@@ -20,43 +21,106 @@ import android.widget.TextView;
 import com.google.common.base.Optional;
 import com.matthewtamlin.rxmvpandroid.librarytestharnesses.R;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
 
 import io.reactivex.Completable;
 import io.reactivex.Observable;
+import io.reactivex.Observer;
 import io.reactivex.Single;
+import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.PublishSubject;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
- * A LeaderboardView that uses a RecyclerView for efficient view management.
+ * A LeaderboardView that uses a RecyclerView for efficient view management. Updates are diffed with
+ * {@link SortedPlayerDiff}, which takes linear time for sorted leaderboards.
+ * <p>
+ * Rows can be pre-warmed by setting the {@code prewarmedRowCount} attribute. The row views are inflated off the main
+ * thread at construction time and used to seed the recycled view pool, so the first screenful and fast flings don't
+ * pay for inflation on the main thread. Setting the {@code sharesRowPool} attribute makes all leaderboards in the same
+ * context share a single pool, so they reuse each other's rows (and only the first one pre-warms).
  */
 public class RecyclerLeaderboardView extends RecyclerView implements LeaderboardView {
+  private static final int ROW_VIEW_TYPE = 0;
+
+  /**
+   * The number of rows the recycled view pool holds by default.
+   */
+  private static final int DEFAULT_MAX_RECYCLED_ROWS = 5;
+
+  /**
+   * The pools are weakly referenced since they hold rows that strongly reference the context. Each pool is kept alive
+   * by the leaderboards using it.
+   */
+  private static final Map<Context, WeakReference<RecycledViewPool>> SHARED_ROW_POOLS = new WeakHashMap<>();
+
   private final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
 
+  private final BehaviorSubject<String> searchQueries = BehaviorSubject.createDefault("");
+
   private final List<PlayerViewModel> players = new ArrayList<>();
 
+  private final Queue<View> prewarmedRowViews = new ArrayDeque<>();
+
   private final Adapter adapter = new Adapter();
 
   public RecyclerLeaderboardView(final Context context) {
     super(context);
-    init();
+    init(null);
   }
 
   public RecyclerLeaderboardView(final Context context, @Nullable final AttributeSet attrs) {
     super(context, attrs);
-    init();
+    init(attrs);
   }
 
   public RecyclerLeaderboardView(final Context context, @Nullable final AttributeSet attrs, final int defStyle) {
     super(context, attrs, defStyle);
-    init();
+    init(attrs);
   }
 
-  private void init() {
+  private void init(@Nullable final AttributeSet attrs) {
+    final TypedArray attributes = getContext().obtainStyledAttributes(attrs, R.styleable.RecyclerLeaderboardView);
+    final int prewarmedRowCount = attributes.getInt(R.styleable.RecyclerLeaderboardView_prewarmedRowCount, 0);
+    final boolean sharesRowPool = attributes.getBoolean(R.styleable.RecyclerLeaderboardView_sharesRowPool, false);
+    attributes.recycle();
+
+    final LinearLayoutManager layoutManager = new LinearLayoutManager(
+        getContext(),
+        LinearLayoutManager.VERTICAL,
+        false);
+
     setAdapter(adapter);
-    setLayoutManager(new LinearLayoutManager(getContext(), LinearLayoutManager.VERTICAL, false));
+    setLayoutManager(layoutManager);
     addItemDecoration(new DividerItemDecoration(getContext(), DividerItemDecoration.VERTICAL));
+
+    boolean poolNeedsPrewarming = true;
+
+    if (sharesRowPool) {
+      // Rows must return to the pool when the view is detached, otherwise other leaderboards can't use them
+      layoutManager.setRecycleChildrenOnDetach(true);
+
+      final WeakReference<RecycledViewPool> sharedPoolReference = SHARED_ROW_POOLS.get(getContext());
+      final RecycledViewPool sharedPool = sharedPoolReference == null ? null : sharedPoolReference.get();
+
+      if (sharedPool == null) {
+        SHARED_ROW_POOLS.put(getContext(), new WeakReference<>(getRecycledViewPool()));
+      } else {
+        setRecycledViewPool(sharedPool);
+        poolNeedsPrewarming = false;
+      }
+    }
+
+    if (prewarmedRowCount > 0 && poolNeedsPrewarming) {
+      prewarmRows(prewarmedRowCount);
+    }
   }
 
   @Override
@@ -69,6 +133,21 @@ public class RecyclerLeaderboardView extends RecyclerView implements Leaderboard
     return deleteRequests;
   }
 
+  @Override
+  public Observable<String> observeSearchQueries() {
+    return searchQueries.distinctUntilChanged();
+  }
+
+  /**
+   * Sets the query used to filter the leaderboard by name. The query is typically forwarded from a search field.
+   *
+   * @param query
+   *     the query, empty to show all players
+   */
+  public void setSearchQuery(@NonNull final String query) {
+    searchQueries.onNext(checkNotNull(query));
+  }
+
   @NonNull
   @Override
   public Observable<Optional<Completable>> observePendingBackActions() {
@@ -81,55 +160,99 @@ public class RecyclerLeaderboardView extends RecyclerView implements Leaderboard
     return this;
   }
 
-  private Single<DiffResult> calculateDiff(
-      final List<PlayerViewModel> oldPlayers,
-      final List<PlayerViewModel> newPlayers) {
+  private void prewarmRows(final int count) {
+    getRecycledViewPool().setMaxRecycledViews(ROW_VIEW_TYPE, Math.max(count, DEFAULT_MAX_RECYCLED_ROWS));
 
-    return Single.fromCallable(() -> DiffUtil.calculateDiff(new Callback() {
-      @Override
-      public int getOldListSize() {
-        return oldPlayers.size();
-      }
+    final AsyncLayoutInflater inflater = new AsyncLayoutInflater(getContext());
 
-      @Override
-      public int getNewListSize() {
-        return newPlayers.size();
-      }
+    for (int i = 0; i < count; i++) {
+      inflater.inflate(R.layout.recycler_leaderboard_view_item, this, (view, resourceId, parent) -> {
+        // The adapter must create the holder so that its view type is set, but it uses the pre-inflated view
+        prewarmedRowViews.add(view);
+        getRecycledViewPool().putRecycledView(adapter.createViewHolder(this, ROW_VIEW_TYPE));
+      });
+    }
+  }
 
-      @Override
-      public boolean areItemsTheSame(final int oldItemPosition, final int newItemPosition) {
-        return areContentsTheSame(oldItemPosition, newItemPosition);
-      }
+  private Single<ListDiff> calculateDiff(
+      final List<PlayerViewModel> oldPlayers,
+      final List<PlayerViewModel> newPlayers) {
 
-      @Override
-      public boolean areContentsTheSame(final int oldItemPosition, final int newItemPosition) {
-        return oldPlayers.get(oldItemPosition).equals(newPlayers.get(newItemPosition));
-      }
-    }));
+    return Single.fromCallable(() -> SortedPlayerDiff.calculate(oldPlayers, newPlayers));
   }
 
-  private Completable updateData(final List<PlayerViewModel> newPlayers, final DiffResult diff) {
+  private Completable updateData(final List<PlayerViewModel> newPlayers, final ListDiff diff) {
     return Completable.fromRunnable(() -> {
       players.clear();
       players.addAll(newPlayers);
 
-      diff.dispatchUpdatesTo(adapter);
+      diff.dispatchUpdatesTo(new AdapterListUpdateCallback(adapter));
     });
   }
 
-  private class ViewHolder extends RecyclerView.ViewHolder {
+  /**
+   * Holds the views of one row. The click listener is created once per holder rather than once per bind, and labels
+   * are only updated when their text changes, so rebinding during fast scrolling doesn't allocate.
+   * <p>
+   * Holders may be rebound by any leaderboard sharing the row pool, so a click is resolved through the player and
+   * delete requests of the leaderboard that last bound the holder, rather than the leaderboard that created it.
+   */
+  static class ViewHolder extends RecyclerView.ViewHolder implements OnClickListener {
     public final TextView nameLabel;
 
     public final TextView scoreLabel;
 
     public final ImageButton deleteButton;
 
+    private String boundName;
+
+    private String boundScore;
+
+    private PlayerViewModel boundPlayer;
+
+    private Observer<PlayerViewModel> boundDeleteRequests;
+
     public ViewHolder(final View itemView) {
       super(itemView);
 
       nameLabel = itemView.findViewById(R.id.name);
       scoreLabel = itemView.findViewById(R.id.score);
       deleteButton = itemView.findViewById(R.id.delete);
+
+      deleteButton.setOnClickListener(this);
+    }
+
+    @SuppressLint("SetTextI18n")
+    public void bind(final PlayerViewModel player, final Observer<PlayerViewModel> deleteRequests) {
+      final String name = player.getName();
+      final String score = player.getHighscore();
+
+      if (!name.equals(boundName)) {
+        nameLabel.setText(name);
+        boundName = name;
+      }
+
+      if (!score.equals(boundScore)) {
+        scoreLabel.setText(score);
+        boundScore = score;
+      }
+
+      boundPlayer = player;
+      boundDeleteRequests = deleteRequests;
+    }
+
+    public void unbind() {
+      // The labels are kept so that rebinding the same player doesn't set their text again
+      boundPlayer = null;
+      boundDeleteRequests = null;
+    }
+
+    @Override
+    public void onClick(final View view) {
+      // Recycled rows are not showing a player
+      if (boundPlayer != null) {
+        boundDeleteRequests.onNext(boundPlayer);
+      }
     }
   }
 
@@ -139,20 +262,23 @@ public class RecyclerLeaderboardView extends RecyclerView implements Leaderboard
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull final ViewGroup parent, final int viewType) {
+      final View prewarmedRowView = prewarmedRowViews.poll();
+
+      if (prewarmedRowView != null) {
+        return new ViewHolder(prewarmedRowView);
+      }
+
       return new ViewHolder(getInflater().inflate(R.layout.recycler_leaderboard_view_item, parent, false));
     }
 
-    @SuppressLint("SetTextI18n")
     @Override
     public void onBindViewHolder(@NonNull final ViewHolder holder, final int position) {
-      final PlayerViewModel player = players.get(position);
+      holder.bind(players.get(position), deleteRequests);
+    }
 
-      holder.nameLabel.setText(player.getName());
-      holder.scoreLabel.setText(player.getHighscore());
-      holder.deleteButton.setOnClickListener(view -> {
-        final PlayerViewModel boundPlayer = players.get(holder.getAdapterPosition());
-        deleteRequests.onNext(boundPlayer);
-      });
+    @Override
+    public void onViewRecycled(@NonNull final ViewHolder holder) {
+      holder.unbind();
     }
 
     @Override
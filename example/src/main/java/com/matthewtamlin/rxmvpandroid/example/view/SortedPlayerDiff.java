@@ -0,0 +1,265 @@
+package com.matthewtamlin.rxmvpandroid.example.view;
+
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.DiffUtil.Callback;
+import android.support.v7.util.DiffUtil.DiffResult;
+import android.support.v7.util.ListUpdateCallback;
+
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Calculates the difference between two leaderboard lists. Leaderboards are sorted by descending score and then by
+ * ascending name, and a player's name identifies them, so two sorted lists can be diffed with a single linear merge
+ * pass instead of a general diff, which costs O(N + D^2) for N rows and D changes.
+ * <p>
+ * The merge treats a player whose score changed as removed from their old position and inserted at the new one,
+ * rather than moved. If either list is not sorted (or contains a score that isn't a number), the difference is
+ * calculated with {@link DiffUtil} instead.
+ */
+public class SortedPlayerDiff {
+  private SortedPlayerDiff() {}
+
+  /**
+   * Calculates the difference between two lists, using a linear merge if both are sorted.
+   *
+   * @param oldPlayers
+   *     the old list
+   * @param newPlayers
+   *     the new list
+   *
+   * @return the difference
+   */
+  @NonNull
+  public static ListDiff calculate(
+      @NonNull final List<PlayerViewModel> oldPlayers,
+      @NonNull final List<PlayerViewModel> newPlayers) {
+
+    final int[] oldScores = parseSortedScores(checkNotNull(oldPlayers));
+    final int[] newScores = oldScores == null ? null : parseSortedScores(checkNotNull(newPlayers));
+
+    if (oldScores == null || newScores == null) {
+      return calculateWithDiffUtil(oldPlayers, newPlayers);
+    }
+
+    // Recorded now rather than on dispatch, since the view replaces the old list before dispatching
+    final RecordedUpdates updates = new RecordedUpdates();
+    merge(oldPlayers, oldScores, newPlayers, newScores, updates);
+
+    return updates;
+  }
+
+  /**
+   * Calculates the difference between two lists with {@link DiffUtil}, regardless of their order.
+   *
+   * @param oldPlayers
+   *     the old list
+   * @param newPlayers
+   *     the new list
+   *
+   * @return the difference
+   */
+  @NonNull
+  public static ListDiff calculateWithDiffUtil(
+      @NonNull final List<PlayerViewModel> oldPlayers,
+      @NonNull final List<PlayerViewModel> newPlayers) {
+
+    checkNotNull(oldPlayers);
+    checkNotNull(newPlayers);
+
+    final DiffResult result = DiffUtil.calculateDiff(new Callback() {
+      @Override
+      public int getOldListSize() {
+        return oldPlayers.size();
+      }
+
+      @Override
+      public int getNewListSize() {
+        return newPlayers.size();
+      }
+
+      @Override
+      public boolean areItemsTheSame(final int oldItemPosition, final int newItemPosition) {
+        return areContentsTheSame(oldItemPosition, newItemPosition);
+      }
+
+      @Override
+      public boolean areContentsTheSame(final int oldItemPosition, final int newItemPosition) {
+        final PlayerViewModel oldPlayer = oldPlayers.get(oldItemPosition);
+        final PlayerViewModel newPlayer = newPlayers.get(newItemPosition);
+
+        // The presenter reuses the view models of unchanged players, and equals checks for the same instance first
+        return oldPlayer.equals(newPlayer);
+      }
+    });
+
+    return result::dispatchUpdatesTo;
+  }
+
+  /**
+   * Parses the scores of a list and checks that it is strictly sorted.
+   *
+   * @return the scores, or null if the list isn't sorted or a score isn't a number
+   */
+  private static int[] parseSortedScores(final List<PlayerViewModel> players) {
+    final int[] scores = new int[players.size()];
+
+    try {
+      for (int i = 0; i < scores.length; i++) {
+        scores[i] = Integer.parseInt(players.get(i).getHighscore());
+
+        if (i > 0 && compare(players.get(i - 1), scores[i - 1], players.get(i), scores[i]) >= 0) {
+          return null;
+        }
+      }
+    } catch (final NumberFormatException e) {
+      return null;
+    }
+
+    return scores;
+  }
+
+  private static void merge(
+      final List<PlayerViewModel> oldPlayers,
+      final int[] oldScores,
+      final List<PlayerViewModel> newPlayers,
+      final int[] newScores,
+      final RecordedUpdates updates) {
+
+    int oldIndex = 0;
+    int newIndex = 0;
+
+    // Rows before this position already match the new list
+    int position = 0;
+
+    while (oldIndex < oldScores.length || newIndex < newScores.length) {
+      final int comparison;
+
+      if (oldIndex == oldScores.length) {
+        comparison = 1;
+      } else if (newIndex == newScores.length) {
+        comparison = -1;
+      } else {
+        comparison = compare(
+            oldPlayers.get(oldIndex),
+            oldScores[oldIndex],
+            newPlayers.get(newIndex),
+            newScores[newIndex]);
+      }
+
+      if (comparison < 0) {
+        // The old row sorts before the next new row, so the new list doesn't contain it
+        updates.removed(position);
+        oldIndex++;
+
+      } else if (comparison > 0) {
+        updates.inserted(position);
+        position++;
+        newIndex++;
+
+      } else {
+        // Only differs if the same score is formatted differently
+        final PlayerViewModel oldPlayer = oldPlayers.get(oldIndex);
+        final PlayerViewModel newPlayer = newPlayers.get(newIndex);
+
+        if (!oldPlayer.equals(newPlayer)) {
+          updates.changed(position);
+        }
+
+        position++;
+        oldIndex++;
+        newIndex++;
+      }
+    }
+  }
+
+  /**
+   * Update operations recorded as (type, position, count) triples, so the diff holds no references to the lists. The
+   * single-row operations of the merge are combined into ranges as they are recorded.
+   */
+  private static class RecordedUpdates implements ListDiff {
+    private static final int INSERTED = 0;
+
+    private static final int REMOVED = 1;
+
+    private static final int CHANGED = 2;
+
+    private int[] operations = new int[3 * 4];
+
+    private int length;
+
+    private void inserted(final int position) {
+      record(INSERTED, position);
+    }
+
+    private void removed(final int position) {
+      record(REMOVED, position);
+    }
+
+    private void changed(final int position) {
+      record(CHANGED, position);
+    }
+
+    @Override
+    public void dispatchUpdatesTo(@NonNull final ListUpdateCallback callback) {
+      for (int i = 0; i < length; i += 3) {
+        final int position = operations[i + 1];
+        final int count = operations[i + 2];
+
+        switch (operations[i]) {
+          case INSERTED:
+            callback.onInserted(position, count);
+            break;
+
+          case REMOVED:
+            callback.onRemoved(position, count);
+            break;
+
+          default:
+            callback.onChanged(position, count, null);
+        }
+      }
+    }
+
+    private void record(final int type, final int position) {
+      if (length > 0 && operations[length - 3] == type) {
+        final int lastPosition = operations[length - 2];
+        final int lastCount = operations[length - 1];
+
+        // Each removal shifts the following rows up, so consecutive removals all happen at the start of the range
+        final int nextPosition = type == REMOVED ? lastPosition : lastPosition + lastCount;
+
+        if (position == nextPosition) {
+          operations[length - 1]++;
+          return;
+        }
+      }
+
+      if (length == operations.length) {
+        operations = Arrays.copyOf(operations, operations.length * 2);
+      }
+
+      operations[length++] = type;
+      operations[length++] = position;
+      operations[length++] = 1;
+    }
+  }
+
+  /**
+   * Compares two players in leaderboard order. Players with the same score and name are the same player.
+   */
+  private static int compare(
+      final PlayerViewModel player1,
+      final int score1,
+      final PlayerViewModel player2,
+      final int score2) {
+
+    final int scoreComparison = Integer.compare(score2, score1);
+    return scoreComparison != 0 ? scoreComparison : player1.getName().compareTo(player2.getName());
+  }
+}
@@ -0,0 +1,210 @@
+package com.matthewtamlin.rxmvpandroid.example.benchmarks;
+
+import com.matthewtamlin.rxmvpandroid.FrameClock;
+import com.matthewtamlin.rxmvpandroid.example.data.ColumnarPlayerRepository;
+import com.matthewtamlin.rxmvpandroid.example.data.InMemoryPlayerRepository;
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+import com.matthewtamlin.rxmvpandroid.example.data.PlayerRepository;
+import com.matthewtamlin.rxmvpandroid.example.presentation.LeaderboardPresenter;
+import com.matthewtamlin.rxmvpandroid.example.presentation.PlayerSorter;
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Measures the whole leaderboard pipeline, from a write to the repository to the list passed to the view. The presenter
+ * drives a {@link FakeLeaderboardView}, with a single thread standing in for the main thread and a frame clock that
+ * never waits, so every update is rendered.
+ * <ul>
+ * <li>{@link #snapshotToRender()} measures the latency from a write to the render of the resulting snapshot.</li>
+ * <li>{@link #deleteStorm()} measures the throughput of rapid delete requests, up to the optimistic render that hides
+ * all of them. The repository round trip is excluded, since it waits for the presenter's batching window.</li>
+ * </ul>
+ * Allocation per update is reported by the GC profiler ({@code gc.alloc.rate.norm}), which {@link BenchmarkRunner}
+ * enables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkLeaderboardPipeline {
+  private static final int DELETE_STORM_SIZE = 50;
+
+  private static final Player TOGGLED_PLAYER = Player.create("benchmark-toggled-player", 0);
+
+  // Emits immediately, so frame alignment never delays a render
+  private static final FrameClock IMMEDIATE_FRAME_CLOCK = () -> Single.fromCallable(System::nanoTime);
+
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int playerCount;
+
+  @Param({"inMemory", "columnar"})
+  public String repositoryType;
+
+  // Zero always sorts in parallel, and the maximum never does
+  @Param({"0", "2147483647"})
+  public int parallelSortThreshold;
+
+  private ExecutorService mainThread;
+
+  private PlayerRepository repository;
+
+  private FakeLeaderboardView view;
+
+  private Disposable presentation;
+
+  private int fullSize;
+
+  private boolean toggledPlayerPresent;
+
+  private Random random;
+
+  private boolean deleteStormPending;
+
+  private int replacementCount;
+
+  @Setup
+  public void setup() throws Exception {
+    repository = "columnar".equals(repositoryType) ? new ColumnarPlayerRepository() : new InMemoryPlayerRepository();
+    random = new Random(0);
+    repository.addPlayers(createPlayers(playerCount)).blockingAwait();
+
+    fullSize = repository.observePlayers().blockingFirst().size();
+
+    mainThread = Executors.newSingleThreadExecutor();
+    view = new FakeLeaderboardView();
+
+    final LeaderboardPresenter presenter = new LeaderboardPresenter(
+        repository,
+        view,
+        IMMEDIATE_FRAME_CLOCK,
+        Schedulers.from(mainThread),
+        Schedulers.computation(),
+        new PlayerSorter(Schedulers.computation(), parallelSortThreshold));
+
+    final Future<List<PlayerViewModel>> firstRender = awaitRenderOfSize(fullSize);
+
+    presentation = Completable
+        .mergeArray(presenter.createPresentationTasks(), presenter.createDeferrablePresentationTasks())
+        .subscribeOn(Schedulers.from(mainThread))
+        .subscribe();
+
+    firstRender.get();
+  }
+
+  @TearDown
+  public void tearDown() {
+    presentation.dispose();
+    mainThread.shutdown();
+  }
+
+  @Benchmark
+  public List<PlayerViewModel> snapshotToRender() throws Exception {
+    // Alternately adding and removing a player means every invocation produces a snapshot of a known size
+    final Future<List<PlayerViewModel>> render;
+
+    if (toggledPlayerPresent) {
+      render = awaitRenderOfSize(fullSize);
+      repository.removePlayer(TOGGLED_PLAYER).blockingAwait();
+    } else {
+      render = awaitRenderOfSize(fullSize + 1);
+      repository.addPlayers(Collections.singleton(TOGGLED_PLAYER)).blockingAwait();
+    }
+
+    toggledPlayerPresent = !toggledPlayerPresent;
+
+    return render.get();
+  }
+
+  @Setup(Level.Invocation)
+  public void prepareDeleteStorm() throws Exception {
+    if (!deleteStormPending) {
+      return;
+    }
+
+    // Waits for the repository to delete the previous storm's players, then replaces them with new players. Adding
+    // the deleted players back could hide them forever, if their deletion snapshot is superseded before reconciliation.
+    repository
+        .observePlayers()
+        .filter(players -> players.size() == fullSize - DELETE_STORM_SIZE)
+        .blockingFirst();
+
+    final List<Player> replacements = new ArrayList<>(DELETE_STORM_SIZE);
+
+    for (int i = 0; i < DELETE_STORM_SIZE; i++) {
+      replacements.add(Player.create("replacement" + replacementCount++, random.nextInt(playerCount)));
+    }
+
+    final Future<List<PlayerViewModel>> render = awaitRenderOfSize(fullSize);
+    repository.addPlayers(replacements).blockingAwait();
+    render.get();
+
+    deleteStormPending = false;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(DELETE_STORM_SIZE)
+  public List<PlayerViewModel> deleteStorm() throws Exception {
+    final List<PlayerViewModel> victims = new ArrayList<>(view.getLatestPlayers().subList(0, DELETE_STORM_SIZE));
+    final Future<List<PlayerViewModel>> render = awaitRenderOfSize(fullSize - DELETE_STORM_SIZE);
+
+    // Delete requests come from the view, so they must be made on the main thread
+    mainThread.execute(() -> {
+      for (final PlayerViewModel victim : victims) {
+        view.requestDelete(victim);
+      }
+    });
+
+    deleteStormPending = true;
+
+    return render.get();
+  }
+
+  private Future<List<PlayerViewModel>> awaitRenderOfSize(final int size) {
+    // Subscribes immediately, so a render that happens before get() is called is not missed
+    return view
+        .observeRenders()
+        .filter(players -> players.size() == size)
+        .firstOrError()
+        .toFuture();
+  }
+
+  private List<Player> createPlayers(final int count) {
+    final List<Player> players = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      players.add(Player.create("player" + i, random.nextInt(count)));
+    }
+
+    return players;
+  }
+}
@@ -0,0 +1,125 @@
+package com.matthewtamlin.rxmvpandroid.example.benchmarks;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+import com.matthewtamlin.rxmvpandroid.example.view.SortedPlayerDiff;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the linear merge of {@link SortedPlayerDiff} against {@link android.support.v7.util.DiffUtil} for sorted
+ * leaderboards, as the number of rows and the fraction of rows that change grow. Each changed row is a player whose
+ * score changed, which moves them within the leaderboard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkPlayerDiff {
+  @Param({"10000", "50000", "100000"})
+  public int rowCount;
+
+  @Param({"0.001", "0.01", "0.1"})
+  public double changedFraction;
+
+  private final CountingCallback callback = new CountingCallback();
+
+  private List<PlayerViewModel> oldPlayers;
+
+  private List<PlayerViewModel> newPlayers;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(0);
+    final int[] scores = new int[rowCount];
+
+    for (int i = 0; i < rowCount; i++) {
+      scores[i] = random.nextInt(rowCount);
+    }
+
+    oldPlayers = createSortedPlayers(scores);
+
+    for (int i = 0; i < rowCount * changedFraction; i++) {
+      scores[random.nextInt(rowCount)] = random.nextInt(rowCount);
+    }
+
+    newPlayers = createSortedPlayers(scores);
+  }
+
+  @Benchmark
+  public int linearMerge() {
+    callback.count = 0;
+    SortedPlayerDiff.calculate(oldPlayers, newPlayers).dispatchUpdatesTo(callback);
+
+    return callback.count;
+  }
+
+  @Benchmark
+  public int diffUtil() {
+    callback.count = 0;
+    SortedPlayerDiff.calculateWithDiffUtil(oldPlayers, newPlayers).dispatchUpdatesTo(callback);
+
+    return callback.count;
+  }
+
+  private static List<PlayerViewModel> createSortedPlayers(final int[] scores) {
+    final List<PlayerViewModel> players = new ArrayList<>(scores.length);
+
+    for (int i = 0; i < scores.length; i++) {
+      players.add(PlayerViewModel.create("player" + i, Integer.toString(scores[i])));
+    }
+
+    Collections.sort(players, (player1, player2) -> {
+      final int scoreComparison = Integer.compare(
+          Integer.parseInt(player2.getHighscore()),
+          Integer.parseInt(player1.getHighscore()));
+
+      return scoreComparison != 0 ? scoreComparison : player1.getName().compareTo(player2.getName());
+    });
+
+    return players;
+  }
+
+  private static class CountingCallback implements ListUpdateCallback {
+    private int count;
+
+    @Override
+    public void onInserted(final int position, final int count) {
+      this.count++;
+    }
+
+    @Override
+    public void onRemoved(final int position, final int count) {
+      this.count++;
+    }
+
+    @Override
+    public void onMoved(final int fromPosition, final int toPosition) {
+      this.count++;
+    }
+
+    @Override
+    public void onChanged(final int position, final int count, final Object payload) {
+      this.count++;
+    }
+  }
+}
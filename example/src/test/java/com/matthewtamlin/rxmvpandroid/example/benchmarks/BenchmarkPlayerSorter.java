@@ -0,0 +1,68 @@
+package com.matthewtamlin.rxmvpandroid.example.benchmarks;
+
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+import com.matthewtamlin.rxmvpandroid.example.presentation.PlayerSorter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Compares the sequential and parallel paths of {@link PlayerSorter} across leaderboard sizes, to find the size at
+ * which the parallel path starts to win.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkPlayerSorter {
+  @Param({"1000", "5000", "20000", "100000", "1000000"})
+  public int playerCount;
+
+  private final PlayerSorter sequentialSorter = new PlayerSorter(Schedulers.computation(), Integer.MAX_VALUE, 1);
+
+  private final PlayerSorter parallelSorter = new PlayerSorter(
+      Schedulers.computation(),
+      0,
+      Runtime.getRuntime().availableProcessors());
+
+  private List<Player> players;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(0);
+    players = new ArrayList<>(playerCount);
+
+    for (int i = 0; i < playerCount; i++) {
+      // A narrow score range produces plenty of ties, which the parallel path breaks separately
+      players.add(Player.create("player" + i, random.nextInt(playerCount / 10 + 1)));
+    }
+  }
+
+  @Benchmark
+  public List<Player> sequential() {
+    return sequentialSorter.sort(players).blockingGet();
+  }
+
+  @Benchmark
+  public List<Player> parallel() {
+    return parallelSorter.sort(players).blockingGet();
+  }
+}
@@ -0,0 +1,28 @@
+package com.matthewtamlin.rxmvpandroid.example.benchmarks;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs the JMH benchmarks in this package. The benchmarks only run when the build is invoked with
+ * {@code -PrunBenchmarks}, for example {@code ./gradlew :example:testDebugUnitTest -PrunBenchmarks}. Benchmarks run on
+ * the host JVM, so they show relative costs and crossover points rather than absolute device timings. The GC profiler
+ * is enabled, so each result also reports the bytes allocated per operation.
+ */
+public class BenchmarkRunner {
+  @Test
+  public void runBenchmarks() throws RunnerException {
+    assumeTrue(Boolean.getBoolean("runBenchmarks"));
+
+    new Runner(new OptionsBuilder()
+        .include(getClass().getPackage().getName() + ".Benchmark")
+        .addProfiler(GCProfiler.class)
+        .build())
+        .run();
+  }
+}
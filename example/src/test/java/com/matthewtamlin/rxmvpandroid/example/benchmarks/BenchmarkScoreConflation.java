@@ -0,0 +1,167 @@
+package com.matthewtamlin.rxmvpandroid.example.benchmarks;
+
+import com.matthewtamlin.rxmvpandroid.example.data.InMemoryPlayerRepository;
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+import com.matthewtamlin.rxmvpandroid.example.data.ScoreConflator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.TestScheduler;
+
+/**
+ * Measures the throughput of live score updates, in updates per second. Each invocation applies one frame's worth of
+ * updates and then drains them once, as the UI does once per frame. The updates are spread over a number of distinct
+ * players, so a small number of distinct players shows the benefit of conflation.
+ * <ul>
+ * <li>{@link #conflator()} measures the {@link ScoreConflator} alone.</li>
+ * <li>{@link #repository()} measures {@link InMemoryPlayerRepository#updateScores(Observable)} through to the
+ * emission of the net changes.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkScoreConflation {
+  private static final int UPDATES_PER_FRAME = 1000;
+
+  private static final int PLAYER_COUNT = 100_000;
+
+  private static final long FRAME_MILLIS = 16;
+
+  /**
+   * Frames are pre-generated so that creating the updates isn't measured. The scores differ between consecutive frames,
+   * so every update is a real change.
+   */
+  private static final int FRAME_COUNT = 64;
+
+  @Param({"10", "1000", "100000"})
+  public int distinctPlayers;
+
+  private final List<List<Player>> frames = new ArrayList<>(FRAME_COUNT);
+
+  // The state of each player before each update, aligned with frames
+  private final List<List<Player>> previousStates = new ArrayList<>(FRAME_COUNT);
+
+  private final List<Observable<Player>> frameObservables = new ArrayList<>(FRAME_COUNT);
+
+  private ScoreConflator conflator;
+
+  private TestScheduler scheduler;
+
+  private InMemoryPlayerRepository repository;
+
+  private Disposable scoreChangesSubscription;
+
+  private int nextFrame;
+
+  @Setup
+  public void setup() {
+    final List<Player> players = new ArrayList<>(PLAYER_COUNT);
+
+    for (int i = 0; i < PLAYER_COUNT; i++) {
+      players.add(Player.create("player" + i, -1));
+    }
+
+    for (int frame = 0; frame < FRAME_COUNT; frame++) {
+      final List<Player> updates = new ArrayList<>(UPDATES_PER_FRAME);
+
+      for (int i = 0; i < UPDATES_PER_FRAME; i++) {
+        updates.add(Player.create(players.get(i % distinctPlayers).getName(), frame * UPDATES_PER_FRAME + i));
+      }
+
+      frames.add(updates);
+      frameObservables.add(Observable.fromIterable(updates));
+    }
+
+    // The frames are cycled, so the states before the first frame are those left by the last frame
+    final Map<String, Player> currentStates = new HashMap<>();
+
+    for (final Player player : players) {
+      currentStates.put(player.getName(), player);
+    }
+
+    for (final List<Player> updates : frames) {
+      for (final Player updated : updates) {
+        currentStates.put(updated.getName(), updated);
+      }
+    }
+
+    for (final List<Player> updates : frames) {
+      final List<Player> previous = new ArrayList<>(UPDATES_PER_FRAME);
+
+      for (final Player updated : updates) {
+        previous.add(currentStates.put(updated.getName(), updated));
+      }
+
+      previousStates.add(previous);
+    }
+
+    conflator = new ScoreConflator();
+
+    scheduler = new TestScheduler();
+    repository = new InMemoryPlayerRepository(FRAME_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+    repository.removePlayers(repository.observePlayers().blockingFirst()).blockingAwait();
+    repository.addPlayers(players).blockingAwait();
+
+    scoreChangesSubscription = repository.observeScoreChanges().subscribe();
+  }
+
+  @TearDown
+  public void tearDown() {
+    scoreChangesSubscription.dispose();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UPDATES_PER_FRAME)
+  public Collection<Player> conflator() {
+    final int frame = nextFrame();
+    final List<Player> updates = frames.get(frame);
+    final List<Player> previous = previousStates.get(frame);
+
+    for (int i = 0; i < updates.size(); i++) {
+      conflator.offer(previous.get(i), updates.get(i));
+    }
+
+    return conflator.drain();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(UPDATES_PER_FRAME)
+  public void repository() {
+    repository.updateScores(frameObservables.get(nextFrame())).blockingAwait();
+
+    // Closes the coalescing window, which drains the conflated changes to the subscriber
+    scheduler.advanceTimeBy(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private int nextFrame() {
+    final int frame = nextFrame;
+    nextFrame = (nextFrame + 1) % FRAME_COUNT;
+
+    return frame;
+  }
+}
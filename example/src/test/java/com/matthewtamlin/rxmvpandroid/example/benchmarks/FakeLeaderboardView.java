@@ -0,0 +1,82 @@
+package com.matthewtamlin.rxmvpandroid.example.benchmarks;
+
+import android.view.View;
+
+import com.google.common.base.Optional;
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView;
+
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * A LeaderboardView that renders nothing, so that benchmarks measure the pipeline up to the view. Each list passed to
+ * {@link #setPlayers(List)} is published to {@link #observeRenders()}.
+ */
+public class FakeLeaderboardView implements LeaderboardView {
+  private final Subject<List<PlayerViewModel>> renders = PublishSubject.<List<PlayerViewModel>>create().toSerialized();
+
+  private final Subject<PlayerViewModel> deleteRequests = PublishSubject.<PlayerViewModel>create().toSerialized();
+
+  private final BehaviorSubject<String> searchQueries = BehaviorSubject.createDefault("");
+
+  private volatile List<PlayerViewModel> latestPlayers;
+
+  @Override
+  public Completable setPlayers(final List<PlayerViewModel> players) {
+    return Completable.fromRunnable(() -> {
+      latestPlayers = players;
+      renders.onNext(players);
+    });
+  }
+
+  @Override
+  public Observable<PlayerViewModel> observeDeleteRequests() {
+    return deleteRequests;
+  }
+
+  @Override
+  public Observable<String> observeSearchQueries() {
+    return searchQueries;
+  }
+
+  @Override
+  public Observable<Optional<Completable>> observePendingBackActions() {
+    return Observable.never();
+  }
+
+  @Override
+  public View asView() {
+    return null;
+  }
+
+  /**
+   * Observes the lists passed to {@link #setPlayers(List)}, on the thread that rendered them.
+   *
+   * @return an observable that emits each rendered list
+   */
+  public Observable<List<PlayerViewModel>> observeRenders() {
+    return renders;
+  }
+
+  /**
+   * @return the most recently rendered list, or null if nothing has been rendered
+   */
+  public List<PlayerViewModel> getLatestPlayers() {
+    return latestPlayers;
+  }
+
+  /**
+   * Simulates the user requesting that a player be deleted.
+   *
+   * @param player
+   *     the player to delete
+   */
+  public void requestDelete(final PlayerViewModel player) {
+    deleteRequests.onNext(player);
+  }
+}
@@ -0,0 +1,355 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestCachingPlayerRepository {
+  private static final long TIME_TO_LIVE_SECONDS = 30;
+
+  private static final long SOURCE_LATENCY_SECONDS = 1;
+
+  private static final long COALESCING_WINDOW_MILLIS = 50;
+
+  private static final Player ALICE = Player.create("Alice", 30);
+
+  private static final Player BOB = Player.create("Bob", 20);
+
+  private TestScheduler scheduler;
+
+  private SlowPlayerRepository source;
+
+  private CachingPlayerRepository repository;
+
+  @Before
+  public void setup() {
+    scheduler = new TestScheduler();
+    source = new SlowPlayerRepository(scheduler);
+    repository = new CachingPlayerRepository(source, TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS, scheduler);
+
+    source.addPlayers(ImmutableSet.of(ALICE, BOB)).blockingAwait();
+  }
+
+  @Test
+  public void testObservePlayers_nothingCached_sourceQueriedAndMissCounted() {
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    observer.assertNoValues();
+
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB));
+    assertThat(source.queryCount.get(), is(1));
+    assertThat(repository.getMissCount(), is(1L));
+  }
+
+  @Test
+  public void testObservePlayers_withinTimeToLive_servedFromCacheAndHitCounted() {
+    loadIntoCache();
+
+    repository
+        .observePlayers()
+        .test()
+        .assertValues(ImmutableSet.of(ALICE, BOB));
+
+    assertThat(source.queryCount.get(), is(1));
+    assertThat(repository.getHitCount(), is(1L));
+  }
+
+  @Test
+  public void testObservePlayers_afterTimeToLive_staleSnapshotEmittedThenRevalidated() {
+    loadIntoCache();
+
+    // Changes the source behind the cache's back, so the revalidated snapshot differs
+    source.removePlayer(BOB).blockingAwait();
+
+    scheduler.advanceTimeBy(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
+
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB));
+    assertThat(repository.getStaleHitCount(), is(1L));
+
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB), ImmutableSet.of(ALICE));
+    assertThat(source.queryCount.get(), is(2));
+  }
+
+  @Test
+  public void testObservePlayers_revalidatedSnapshot_freshForAnotherTimeToLive() {
+    loadIntoCache();
+
+    scheduler.advanceTimeBy(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
+    repository.observePlayers().test().dispose();
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    repository.observePlayers().test();
+
+    assertThat(source.queryCount.get(), is(2));
+    assertThat(repository.getHitCount(), is(1L));
+  }
+
+  @Test
+  public void testObservePlayers_concurrentRevalidations_sourceQueriedOnce() {
+    loadIntoCache();
+
+    scheduler.advanceTimeBy(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
+
+    final TestObserver<Set<Player>> firstObserver = repository.observePlayers().test();
+    final TestObserver<Set<Player>> secondObserver = repository.observePlayers().test();
+
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    assertThat(source.queryCount.get(), is(2));
+    firstObserver.assertValueCount(2);
+    secondObserver.assertValueCount(2);
+  }
+
+  @Test
+  public void testObservePlayers_sourceReplaysSnapshotFromBeforeWrite_cachedSnapshotKept() {
+    loadIntoCache();
+
+    // The source keeps answering with the snapshot it had before the write, like a replayed snapshot
+    source.replayedSnapshot = ImmutableSet.of(ALICE, BOB);
+    scheduler.advanceTimeBy(TIME_TO_LIVE_SECONDS - 1, TimeUnit.SECONDS);
+    removeThroughCache(BOB);
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    observer.assertValues(ImmutableSet.of(ALICE));
+    assertThat(source.queryCount.get(), is(2));
+
+    // Still stale, so the next query revalidates again
+    repository.observePlayers().test();
+    assertThat(source.queryCount.get(), is(3));
+  }
+
+  @Test
+  public void testObservePlayers_sourceStillWithoutWriteAfterTimeToLive_sourceSnapshotCached() {
+    loadIntoCache();
+
+    // The source was changed by other means, so it never includes the write
+    source.replayedSnapshot = ImmutableSet.of(ALICE, BOB);
+    removeThroughCache(BOB);
+    scheduler.advanceTimeBy(TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
+
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    observer.assertValues(ImmutableSet.of(ALICE), ImmutableSet.of(ALICE, BOB));
+  }
+
+  @Test
+  public void testRemovePlayer_cachedSnapshotUpdatedWithoutQueryingSource() {
+    loadIntoCache();
+
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    repository.removePlayer(BOB).blockingAwait();
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB), ImmutableSet.of(ALICE));
+    assertThat(source.queryCount.get(), is(1));
+  }
+
+  @Test
+  public void testWrites_withinCoalescingWindow_singleEmission() {
+    final CachingPlayerRepository coalescingRepository = createCoalescingRepository();
+    final Player carol = Player.create("Carol", 10);
+
+    final TestObserver<Set<Player>> observer = coalescingRepository.observePlayers().test();
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    coalescingRepository.removePlayer(ALICE).blockingAwait();
+    coalescingRepository.removePlayer(BOB).blockingAwait();
+    coalescingRepository.addPlayers(ImmutableSet.of(carol)).blockingAwait();
+
+    observer.assertValueCount(1);
+
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB), ImmutableSet.of(carol));
+    assertThat(source.queryCount.get(), is(1));
+  }
+
+  @Test
+  public void testWrites_windowStillOpen_newObserverSeesWrites() {
+    final CachingPlayerRepository coalescingRepository = createCoalescingRepository();
+
+    coalescingRepository.observePlayers().test().dispose();
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    coalescingRepository.removePlayer(BOB).blockingAwait();
+
+    coalescingRepository
+        .observePlayers()
+        .test()
+        .assertValues(ImmutableSet.of(ALICE));
+  }
+
+  @Test
+  public void testWrites_addedThenRemovedWithinWindow_lastWriteWins() {
+    final CachingPlayerRepository coalescingRepository = createCoalescingRepository();
+    final Player carol = Player.create("Carol", 10);
+
+    final TestObserver<Set<Player>> observer = coalescingRepository.observePlayers().test();
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    coalescingRepository.addPlayers(ImmutableSet.of(carol)).blockingAwait();
+    coalescingRepository.removePlayer(carol).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB), ImmutableSet.of(ALICE, BOB));
+  }
+
+  @Test
+  public void testGetNameIndex_snapshotCached_cacheCountersUnchanged() {
+    loadIntoCache();
+
+    repository.getNameIndex().blockingGet();
+    repository.getNameIndex().blockingGet();
+
+    assertThat(repository.getHitCount(), is(0L));
+    assertThat(repository.getStaleHitCount(), is(0L));
+    assertThat(repository.getMissCount(), is(1L));
+  }
+
+  @Test
+  public void testGetNameIndex_nothingCached_snapshotLoadedThenIndexed() {
+    final TestObserver<PlayerNameIndex> observer = repository.getNameIndex().test();
+
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+
+    assertThat(observer.values().get(0).size(), is(2));
+    assertThat(source.queryCount.get(), is(1));
+  }
+
+  @Test
+  public void testGetNameIndex_scoreChanged_indexHasNewScoreWithoutQueryingSource() {
+    final Player updatedBob = Player.create("Bob", 99);
+
+    loadIntoCache();
+    repository.observeScoreChanges().test();
+    repository.getNameIndex().blockingGet();
+
+    repository.updateScores(Observable.just(updatedBob)).blockingAwait();
+
+    final PlayerNameIndex index = repository.getNameIndex().blockingGet();
+
+    assertThat(index.search("bob").getPlayers(), is(ImmutableList.of(updatedBob)));
+    assertThat(source.queryCount.get(), is(1));
+  }
+
+  @Test
+  public void testGetNameIndex_playerAdded_newPlayerIndexed() {
+    final Player carol = Player.create("Carol", 10);
+
+    loadIntoCache();
+    repository.getNameIndex().blockingGet();
+
+    repository.addPlayers(ImmutableSet.of(carol)).blockingAwait();
+
+    assertThat(repository.getNameIndex().blockingGet().search("carol").getPlayers(), is(ImmutableList.of(carol)));
+  }
+
+  private CachingPlayerRepository createCoalescingRepository() {
+    return new CachingPlayerRepository(
+        source,
+        TIME_TO_LIVE_SECONDS,
+        TimeUnit.SECONDS,
+        COALESCING_WINDOW_MILLIS,
+        TimeUnit.MILLISECONDS,
+        scheduler);
+  }
+
+  private void removeThroughCache(final Player player) {
+    // Observed so the removal is applied to the cached snapshot straight away
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    repository.removePlayer(player).blockingAwait();
+    observer.dispose();
+  }
+
+  private void loadIntoCache() {
+    repository.observePlayers().test().dispose();
+    scheduler.advanceTimeBy(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * An in-memory repository that takes a while to answer each query, and counts the queries.
+   */
+  private static class SlowPlayerRepository implements PlayerRepository {
+    public final AtomicInteger queryCount = new AtomicInteger();
+
+    // If set, queries are answered with this snapshot instead of the current one
+    public Set<Player> replayedSnapshot;
+
+    private final InMemoryPlayerRepository delegate = new InMemoryPlayerRepository();
+
+    private final TestScheduler scheduler;
+
+    private SlowPlayerRepository(final TestScheduler scheduler) {
+      this.scheduler = scheduler;
+
+      // Starts from an empty repository
+      delegate.removePlayers(delegate.observePlayers().blockingFirst()).blockingAwait();
+    }
+
+    @Override
+    public Observable<Set<Player>> observePlayers() {
+      return Observable
+          .defer(() -> replayedSnapshot == null ? delegate.observePlayers() : Observable.just(replayedSnapshot))
+          .take(1)
+          .doOnSubscribe(disposable -> queryCount.incrementAndGet())
+          .delay(SOURCE_LATENCY_SECONDS, TimeUnit.SECONDS, scheduler);
+    }
+
+    @Override
+    public Completable removePlayer(final Player player) {
+      return delegate.removePlayer(player);
+    }
+
+    @Override
+    public Completable removePlayers(final Collection<Player> players) {
+      return delegate.removePlayers(players);
+    }
+
+    @Override
+    public Completable addPlayers(final Collection<Player> players) {
+      return delegate.addPlayers(players);
+    }
+
+    @Override
+    public Completable updateScores(final Observable<Player> scoreUpdates) {
+      return delegate.updateScores(scoreUpdates);
+    }
+
+    @Override
+    public Observable<Collection<Player>> observeScoreChanges() {
+      return delegate.observeScoreChanges();
+    }
+
+    @Override
+    public Single<PlayerNameIndex> getNameIndex() {
+      return delegate.getNameIndex();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TestColumnarPlayerRepository {
+  private static final int FOOTPRINT_PLAYER_COUNT = 200_000;
+
+  private ColumnarPlayerRepository repository;
+
+  @Before
+  public void setup() {
+    repository = new ColumnarPlayerRepository();
+  }
+
+  @Test
+  public void testObservePlayers_noPlayersAdded() {
+    repository
+        .observePlayers()
+        .test()
+        .assertValue(ImmutableSet.of());
+  }
+
+  @Test
+  public void testAddPlayers_newPlayers() {
+    repository.addPlayers(ImmutableList.of(Player.create("A", 1), Player.create("B", 2))).blockingAwait();
+
+    repository
+        .observePlayers()
+        .test()
+        .assertValue(ImmutableSet.of(Player.create("A", 1), Player.create("B", 2)));
+  }
+
+  @Test
+  public void testAddPlayers_existingName_scoreReplaced() {
+    repository.addPlayers(ImmutableList.of(Player.create("A", 1))).blockingAwait();
+    repository.addPlayers(ImmutableList.of(Player.create("A", 5))).blockingAwait();
+
+    repository
+        .observePlayers()
+        .test()
+        .assertValue(ImmutableSet.of(Player.create("A", 5)));
+  }
+
+  @Test
+  public void testRemovePlayer_firstRow_lastRowMovedIntoPlace() {
+    repository
+        .addPlayers(ImmutableList.of(Player.create("A", 1), Player.create("B", 2), Player.create("C", 3)))
+        .blockingAwait();
+
+    repository.removePlayer(Player.create("A", 1)).blockingAwait();
+    repository.updateScores(Observable.just(Player.create("C", 10))).blockingAwait();
+
+    repository
+        .observePlayers()
+        .test()
+        .assertValue(ImmutableSet.of(Player.create("B", 2), Player.create("C", 10)));
+  }
+
+  @Test
+  public void testRemovePlayers_thenReadded_nameIdReused() {
+    repository.addPlayers(ImmutableList.of(Player.create("A", 1), Player.create("B", 2))).blockingAwait();
+    repository.removePlayers(ImmutableList.of(Player.create("A", 1), Player.create("B", 2))).blockingAwait();
+    repository.addPlayers(ImmutableList.of(Player.create("C", 3))).blockingAwait();
+
+    assertThat(repository.size(), is(1));
+
+    repository
+        .observePlayers()
+        .test()
+        .assertValue(ImmutableSet.of(Player.create("C", 3)));
+  }
+
+  @Test
+  public void testUpdateScores_netChangesEmitted() {
+    repository.addPlayers(ImmutableList.of(Player.create("A", 1), Player.create("B", 2))).blockingAwait();
+
+    final TestObserver<Collection<Player>> observer = repository.observeScoreChanges().test();
+
+    repository.updateScores(Observable.just(Player.create("A", 7), Player.create("Unknown", 3))).blockingAwait();
+
+    observer.assertValueCount(1);
+    assertThat(ImmutableSet.copyOf(observer.values().get(0)), is(ImmutableSet.of(Player.create("A", 7))));
+  }
+
+  @Test
+  public void testRetainedHeap_observedAndIndexed_smallerThanInMemoryRepository() {
+    final long columnarBytes = measureRetainedBytes(new ColumnarPlayerRepository());
+    final long inMemoryBytes = measureRetainedBytes(new InMemoryPlayerRepository());
+
+    assertThat(columnarBytes, is(lessThan(inMemoryBytes)));
+  }
+
+  /**
+   * Measures the heap retained by populating a repository, observing its players and indexing them, which includes
+   * any snapshot the repository keeps for its observers and the index it keeps for searches. The players are created
+   * within the measurement and then dropped, so their names count towards the repository.
+   */
+  private static long measureRetainedBytes(final PlayerRepository repository) {
+    final long usedBefore = getUsedHeapAfterGc();
+
+    repository.addPlayers(createPlayers()).blockingAwait();
+
+    final Disposable observation = repository.observePlayers().subscribe();
+    final PlayerNameIndex index = repository.getNameIndex().blockingGet();
+
+    final long usedAfter = getUsedHeapAfterGc();
+
+    // Keeps the observation and index reachable until after the measurement
+    assertThat(index.size() >= FOOTPRINT_PLAYER_COUNT, is(true));
+    observation.dispose();
+
+    return usedAfter - usedBefore;
+  }
+
+  private static long getUsedHeapAfterGc() {
+    final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    // Several collections, since a single one isn't guaranteed to collect everything unreachable
+    for (int i = 0; i < 3; i++) {
+      memory.gc();
+    }
+
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private static List<Player> createPlayers() {
+    final List<Player> players = new ArrayList<>(FOOTPRINT_PLAYER_COUNT);
+
+    for (int i = 0; i < FOOTPRINT_PLAYER_COUNT; i++) {
+      players.add(Player.create("player" + i, i));
+    }
+
+    return players;
+  }
+}
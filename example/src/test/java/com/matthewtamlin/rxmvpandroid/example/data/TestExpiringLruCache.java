@@ -0,0 +1,89 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestExpiringLruCache {
+  private static final long TIME_TO_LIVE_MILLIS = 1000;
+
+  private static final int MAX_SIZE = 2;
+
+  private ExpiringLruCache<String, String> cache;
+
+  @Before
+  public void setup() {
+    cache = new ExpiringLruCache<>(TIME_TO_LIVE_MILLIS, MAX_SIZE);
+  }
+
+  @Test
+  public void testGet_noEntry_missCounted() {
+    assertThat(cache.get("a", 0), is(nullValue()));
+
+    assertThat(cache.getMissCount(), is(1L));
+    assertThat(cache.getHitCount(), is(0L));
+    assertThat(cache.getStaleHitCount(), is(0L));
+  }
+
+  @Test
+  public void testGet_beforeTimeToLive_freshHitCounted() {
+    cache.put("a", "value", 0);
+
+    final ExpiringLruCache.Entry<String> entry = cache.get("a", TIME_TO_LIVE_MILLIS - 1);
+
+    assertThat(entry.getValue(), is("value"));
+    assertThat(entry.isFresh(TIME_TO_LIVE_MILLIS - 1), is(true));
+    assertThat(cache.getHitCount(), is(1L));
+  }
+
+  @Test
+  public void testGet_afterTimeToLive_staleEntryReturnedAndStaleHitCounted() {
+    cache.put("a", "value", 0);
+
+    final ExpiringLruCache.Entry<String> entry = cache.get("a", TIME_TO_LIVE_MILLIS);
+
+    assertThat(entry.getValue(), is("value"));
+    assertThat(entry.isFresh(TIME_TO_LIVE_MILLIS), is(false));
+    assertThat(cache.getStaleHitCount(), is(1L));
+    assertThat(cache.getHitCount(), is(0L));
+  }
+
+  @Test
+  public void testPut_exceedsMaxSize_leastRecentlyUsedEntryEvicted() {
+    cache.put("a", "1", 0);
+    cache.put("b", "2", 0);
+
+    // Makes "b" the least recently used entry
+    cache.get("a", 0);
+
+    cache.put("c", "3", 0);
+
+    assertThat(cache.get("b", 0), is(nullValue()));
+    assertThat(cache.get("a", 0).getValue(), is("1"));
+    assertThat(cache.get("c", 0).getValue(), is("3"));
+  }
+
+  @Test
+  public void testUpdate_existingEntry_valueReplacedWithoutRefreshingOrCounting() {
+    cache.put("a", "1", 0);
+
+    cache.update("a", value -> value + "1");
+
+    final ExpiringLruCache.Entry<String> entry = cache.get("a", TIME_TO_LIVE_MILLIS);
+
+    assertThat(entry.getValue(), is("11"));
+    assertThat(entry.isFresh(TIME_TO_LIVE_MILLIS), is(false));
+    assertThat(cache.getStaleHitCount(), is(1L));
+    assertThat(cache.getHitCount() + cache.getMissCount(), is(0L));
+  }
+
+  @Test
+  public void testUpdate_noEntry_nothingStored() {
+    cache.update("a", value -> "1");
+
+    assertThat(cache.get("a", 0), is(nullValue()));
+  }
+}
@@ -0,0 +1,114 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestGracePeriodShare {
+  private static final long GRACE_PERIOD_SECONDS = 5;
+
+  private TestScheduler scheduler;
+
+  private PublishSubject<Integer> upstream;
+
+  private AtomicInteger upstreamSubscriptions;
+
+  private Observable<Integer> shared;
+
+  @Before
+  public void setup() {
+    scheduler = new TestScheduler();
+    upstream = PublishSubject.create();
+    upstreamSubscriptions = new AtomicInteger();
+
+    shared = upstream
+        .doOnSubscribe(disposable -> upstreamSubscriptions.incrementAndGet())
+        .compose(new GracePeriodShare<>(GRACE_PERIOD_SECONDS, TimeUnit.SECONDS, scheduler));
+  }
+
+  @Test
+  public void testSubscribe_concurrentSubscribers_upstreamSubscribedOnce() {
+    shared.test();
+    shared.test();
+
+    assertThat(upstreamSubscriptions.get(), is(1));
+  }
+
+  @Test
+  public void testSubscribe_latestItemReplayed() {
+    shared.test();
+    upstream.onNext(1);
+    upstream.onNext(2);
+
+    shared.test().assertValues(2);
+  }
+
+  @Test
+  public void testSubscribe_withinGracePeriod_upstreamReused() {
+    shared.test().dispose();
+    upstream.onNext(1);
+
+    scheduler.advanceTimeBy(GRACE_PERIOD_SECONDS - 1, TimeUnit.SECONDS);
+
+    shared.test().assertValues(1);
+    assertThat(upstreamSubscriptions.get(), is(1));
+    assertThat(upstream.hasObservers(), is(true));
+  }
+
+  @Test
+  public void testSubscribe_afterGracePeriod_upstreamRestarted() {
+    shared.test().dispose();
+    upstream.onNext(1);
+
+    scheduler.advanceTimeBy(GRACE_PERIOD_SECONDS, TimeUnit.SECONDS);
+
+    assertThat(upstream.hasObservers(), is(false));
+
+    // The latest item belonged to the previous upstream subscription, so it isn't replayed
+    shared.test().assertNoValues();
+    assertThat(upstreamSubscriptions.get(), is(2));
+  }
+
+  @Test
+  public void testSubscribe_resubscribedWithinGracePeriod_teardownCancelled() {
+    shared.test().dispose();
+    scheduler.advanceTimeBy(GRACE_PERIOD_SECONDS - 1, TimeUnit.SECONDS);
+
+    final TestObserver<Integer> observer = shared.test();
+    scheduler.advanceTimeBy(GRACE_PERIOD_SECONDS, TimeUnit.SECONDS);
+    upstream.onNext(1);
+
+    observer.assertValues(1);
+    assertThat(upstreamSubscriptions.get(), is(1));
+  }
+
+  @Test
+  public void testSubscribe_noGracePeriod_upstreamTornDownImmediately() {
+    final Observable<Integer> sharedWithoutGracePeriod = upstream.compose(new GracePeriodShare<>());
+
+    sharedWithoutGracePeriod.test().dispose();
+
+    assertThat(upstream.hasObservers(), is(false));
+  }
+
+  @Test
+  public void testSubscribe_upstreamCompleted_nextSubscriberRestartsUpstream() {
+    final TestObserver<Integer> observer = shared.test();
+    upstream.onComplete();
+
+    observer.assertComplete();
+
+    shared.test();
+    assertThat(upstreamSubscriptions.get(), is(2));
+  }
+}
@@ -0,0 +1,216 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestInMemoryPlayerRepository {
+  private static final long COALESCING_WINDOW_MILLIS = 50;
+
+  private static final Player ALICE = Player.create("Alice", 30);
+
+  private static final Player BOB = Player.create("Bob", 20);
+
+  private static final Player CAROL = Player.create("Carol", 10);
+
+  private TestScheduler scheduler;
+
+  private InMemoryPlayerRepository repository;
+
+  @Before
+  public void setup() {
+    scheduler = new TestScheduler();
+    repository = new InMemoryPlayerRepository(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler);
+
+    // Starts from a known set of players rather than the demo players
+    repository.removePlayers(repository.observePlayers().blockingFirst()).blockingAwait();
+    repository.addPlayers(ImmutableSet.of(ALICE, BOB, CAROL)).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void testRemovePlayer_severalWithinWindow_singleSnapshotEmitted() {
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    repository.removePlayer(ALICE).blockingAwait();
+    repository.removePlayer(BOB).blockingAwait();
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB, CAROL));
+
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValues(ImmutableSet.of(ALICE, BOB, CAROL), ImmutableSet.of(CAROL));
+  }
+
+  @Test
+  public void testRemovePlayer_inSeparateWindows_snapshotEmittedPerWindow() {
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    repository.removePlayer(ALICE).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    repository.removePlayer(BOB).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValueCount(3);
+  }
+
+  @Test
+  public void testRemovePlayers_withoutCoalescing_singleSnapshotPerBatch() {
+    final InMemoryPlayerRepository uncoalescedRepository = new InMemoryPlayerRepository();
+    final TestObserver<Set<Player>> observer = uncoalescedRepository.observePlayers().test();
+    final Set<Player> initialPlayers = observer.values().get(0);
+
+    uncoalescedRepository.removePlayers(initialPlayers).blockingAwait();
+
+    observer.assertValues(initialPlayers, ImmutableSet.<Player>of());
+  }
+
+  @Test
+  public void testAddPlayers_withoutCoalescing_singleSnapshotPerBatch() {
+    final InMemoryPlayerRepository uncoalescedRepository = new InMemoryPlayerRepository();
+    final TestObserver<Set<Player>> observer = uncoalescedRepository.observePlayers().test();
+
+    uncoalescedRepository.addPlayers(ImmutableSet.of(ALICE, BOB)).blockingAwait();
+
+    observer.assertValueCount(2);
+    assertThat(observer.values().get(1).containsAll(ImmutableSet.of(ALICE, BOB)), is(true));
+  }
+
+  @Test
+  public void testWrites_noChange_noSnapshotEmitted() {
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    repository.removePlayer(Player.create("Nobody", 0)).blockingAwait();
+    repository.addPlayers(ImmutableSet.of(ALICE)).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValueCount(1);
+  }
+
+  @Test
+  public void testUpdateScores_severalWithinWindow_netChangesEmittedOnce() {
+    final TestObserver<Collection<Player>> observer = repository.observeScoreChanges().test();
+    final Player latestAlice = Player.create("Alice", 33);
+    final Player latestBob = Player.create("Bob", 5);
+
+    repository.updateScores(Observable.just(
+        Player.create("Alice", 31),
+        Player.create("Bob", 25),
+        Player.create("Alice", 32),
+        latestBob,
+        latestAlice)).blockingAwait();
+
+    observer.assertNoValues();
+
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValueCount(1);
+    assertThat(ImmutableSet.copyOf(observer.values().get(0)), is(ImmutableSet.of(latestAlice, latestBob)));
+  }
+
+  @Test
+  public void testUpdateScores_scoreReturnsWithinWindow_nothingEmitted() {
+    final TestObserver<Collection<Player>> observer = repository.observeScoreChanges().test();
+
+    repository.updateScores(Observable.just(Player.create("Alice", 40), Player.create("Alice", 50), ALICE))
+        .blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertNoValues();
+  }
+
+  @Test
+  public void testUpdateScores_unknownPlayer_nothingEmitted() {
+    final TestObserver<Collection<Player>> observer = repository.observeScoreChanges().test();
+
+    repository.updateScores(Observable.just(Player.create("Nobody", 40))).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertNoValues();
+    assertThat(repository.observePlayers().blockingFirst(), is((Set<Player>) ImmutableSet.of(ALICE, BOB, CAROL)));
+  }
+
+  @Test
+  public void testUpdateScores_inSeparateWindows_changesEmittedPerWindow() {
+    final TestObserver<Collection<Player>> observer = repository.observeScoreChanges().test();
+    final Player firstAlice = Player.create("Alice", 40);
+    final Player secondAlice = Player.create("Alice", 50);
+
+    repository.updateScores(Observable.just(firstAlice)).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    repository.updateScores(Observable.just(secondAlice)).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValueCount(2);
+    assertThat(ImmutableList.copyOf(observer.values().get(0)), is(ImmutableList.of(firstAlice)));
+    assertThat(ImmutableList.copyOf(observer.values().get(1)), is(ImmutableList.of(secondAlice)));
+  }
+
+  @Test
+  public void testUpdateScores_noSnapshotEmitted() {
+    final TestObserver<Set<Player>> observer = repository.observePlayers().test();
+
+    repository.updateScores(Observable.just(Player.create("Alice", 40))).blockingAwait();
+    scheduler.advanceTimeBy(COALESCING_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+
+    observer.assertValueCount(1);
+  }
+
+  @Test
+  public void testGetNameIndex_nothingChanged_indexReused() {
+    final PlayerNameIndex index = repository.getNameIndex().blockingGet();
+
+    assertThat(repository.getNameIndex().blockingGet(), is(sameInstance(index)));
+  }
+
+  @Test
+  public void testGetNameIndex_scoreChanged_indexHasNewScore() {
+    final Player updatedBob = Player.create("Bob", 99);
+
+    repository.getNameIndex().blockingGet();
+    repository.updateScores(Observable.just(updatedBob)).blockingAwait();
+
+    final PlayerNameIndex index = repository.getNameIndex().blockingGet();
+
+    assertThat(index.search("bob").getPlayers(), is(ImmutableList.of(updatedBob)));
+    assertThat(index.size(), is(3));
+  }
+
+  @Test
+  public void testGetNameIndex_playerAdded_newPlayerIndexed() {
+    final Player dave = Player.create("Dave", 5);
+
+    repository.getNameIndex().blockingGet();
+    repository.addPlayers(ImmutableSet.of(dave)).blockingAwait();
+
+    assertThat(repository.getNameIndex().blockingGet().search("dave").getPlayers(), is(ImmutableList.of(dave)));
+  }
+
+  @Test
+  public void testGetNameIndex_playerRemovedAfterScoreChange_removedPlayerNotIndexed() {
+    repository.getNameIndex().blockingGet();
+    repository.updateScores(Observable.just(Player.create("Bob", 99))).blockingAwait();
+    repository.removePlayer(BOB).blockingAwait();
+
+    final PlayerNameIndex index = repository.getNameIndex().blockingGet();
+
+    assertThat(index.search("bob").size(), is(0));
+    assertThat(index.size(), is(2));
+  }
+}
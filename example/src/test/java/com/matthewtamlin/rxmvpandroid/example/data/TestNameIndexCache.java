@@ -0,0 +1,106 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestNameIndexCache {
+  private static final Player ALICE = Player.create("Alice", 30);
+
+  private static final Player BOB = Player.create("Bob", 20);
+
+  private NameIndexCache cache;
+
+  private AtomicInteger buildCount;
+
+  @Before
+  public void setup() {
+    cache = new NameIndexCache();
+    buildCount = new AtomicInteger();
+  }
+
+  @Test
+  public void testGet_nothingChanged_indexReused() throws Exception {
+    final PlayerNameIndex index = cache.get(this::build);
+
+    assertThat(cache.get(this::build), is(sameInstance(index)));
+    assertThat(buildCount.get(), is(1));
+  }
+
+  @Test
+  public void testGet_scoreChanged_scoreAppliedWithoutRebuilding() throws Exception {
+    final Player updatedBob = Player.create("Bob", 99);
+
+    cache.get(this::build);
+    cache.recordScoreChange(updatedBob);
+
+    assertThat(cache.get(this::build).search("bob").getPlayers(), is(ImmutableList.of(updatedBob)));
+    assertThat(buildCount.get(), is(1));
+  }
+
+  @Test
+  public void testGet_invalidated_indexRebuilt() throws Exception {
+    final PlayerNameIndex index = cache.get(this::build);
+
+    cache.invalidate();
+
+    assertThat(cache.get(this::build), is(not(sameInstance(index))));
+    assertThat(buildCount.get(), is(2));
+  }
+
+  @Test
+  public void testGet_scoreChangedDuringBuild_scoreApplied() throws Exception {
+    final Player updatedBob = Player.create("Bob", 99);
+
+    final PlayerNameIndex index = cache.get(() -> {
+      final PlayerNameIndex builtIndex = build();
+      cache.recordScoreChange(updatedBob);
+
+      return builtIndex;
+    });
+
+    assertThat(index.search("bob").getPlayers(), is(ImmutableList.of(updatedBob)));
+    assertThat(cache.get(this::build), is(sameInstance(index)));
+  }
+
+  @Test
+  public void testGet_invalidatedDuringBuild_scoresAppliedButIndexNotKept() throws Exception {
+    final Player updatedBob = Player.create("Bob", 99);
+
+    final PlayerNameIndex index = cache.get(() -> {
+      final PlayerNameIndex builtIndex = build();
+      cache.recordScoreChange(updatedBob);
+      cache.invalidate();
+
+      return builtIndex;
+    });
+
+    assertThat(index.search("bob").getPlayers(), is(ImmutableList.of(updatedBob)));
+    assertThat(cache.get(this::build), is(not(sameInstance(index))));
+  }
+
+  @Test
+  public void testGet_builderReturnsNull_nothingKept() throws Exception {
+    assertThat(cache.get(() -> null), is(nullValue()));
+
+    cache.get(this::build);
+
+    assertThat(buildCount.get(), is(1));
+  }
+
+  private PlayerNameIndex build() {
+    buildCount.incrementAndGet();
+
+    return PlayerNameIndex.create(ImmutableSet.of(ALICE, BOB));
+  }
+}
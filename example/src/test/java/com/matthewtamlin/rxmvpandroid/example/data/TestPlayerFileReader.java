@@ -0,0 +1,123 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+public class TestPlayerFileReader {
+  @Test
+  public void testReadCsv_emptyFile() {
+    PlayerFileReader
+        .readCsv(() -> csv(""))
+        .test()
+        .assertNoValues()
+        .assertComplete();
+  }
+
+  @Test
+  public void testReadCsv_validRecords() {
+    PlayerFileReader
+        .readCsv(() -> csv("Scout,100\nSpy,-5\r\n\nMedic,180"))
+        .test()
+        .assertValues(Player.create("Scout", 100), Player.create("Spy", -5), Player.create("Medic", 180))
+        .assertComplete();
+  }
+
+  @Test
+  public void testReadCsv_missingHighscore() {
+    PlayerFileReader
+        .readCsv(() -> csv("Scout,100\nSpy\n"))
+        .test()
+        .assertValues(Player.create("Scout", 100))
+        .assertError(IOException.class);
+  }
+
+  @Test
+  public void testReadCsv_malformedHighscore() {
+    PlayerFileReader
+        .readCsv(() -> csv("Scout,1x0\n"))
+        .test()
+        .assertError(IOException.class);
+  }
+
+  @Test
+  public void testReadCsv_highscoreOutOfRange() {
+    PlayerFileReader
+        .readCsv(() -> csv("Scout,2147483648\n"))
+        .test()
+        .assertError(IOException.class);
+  }
+
+  @Test
+  public void testReadCsv_backpressured() {
+    PlayerFileReader
+        .readCsv(() -> csv("Scout,100\nSpy,250\nMedic,180\n"))
+        .test(1)
+        .assertValues(Player.create("Scout", 100))
+        .assertNotComplete()
+        .requestMore(2)
+        .assertValueCount(3)
+        .assertComplete();
+  }
+
+  @Test
+  public void testReadBinary_validRecords() throws IOException {
+    final byte[] file = binary(PlayerFileReader.BINARY_MAGIC, Player.create("Scout", 100), Player.create("Spy", 250));
+
+    PlayerFileReader
+        .readBinary(() -> new ByteArrayInputStream(file))
+        .test()
+        .assertValues(Player.create("Scout", 100), Player.create("Spy", 250))
+        .assertComplete();
+  }
+
+  @Test
+  public void testReadBinary_wrongMagic() throws IOException {
+    final byte[] file = binary(0, Player.create("Scout", 100));
+
+    PlayerFileReader
+        .readBinary(() -> new ByteArrayInputStream(file))
+        .test()
+        .assertNoValues()
+        .assertError(IOException.class);
+  }
+
+  @Test
+  public void testReadBinary_truncated() throws IOException {
+    final byte[] file = binary(PlayerFileReader.BINARY_MAGIC, Player.create("Scout", 100));
+    final byte[] truncatedFile = new byte[file.length - 2];
+    System.arraycopy(file, 0, truncatedFile, 0, truncatedFile.length);
+
+    PlayerFileReader
+        .readBinary(() -> new ByteArrayInputStream(truncatedFile))
+        .test()
+        .assertNoValues()
+        .assertError(IOException.class);
+  }
+
+  private static ByteArrayInputStream csv(final String contents) {
+    return new ByteArrayInputStream(contents.getBytes(Charset.forName("UTF-8")));
+  }
+
+  private static byte[] binary(final int magic, final Player... players) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream output = new DataOutputStream(bytes);
+
+    output.writeInt(magic);
+    output.writeByte(PlayerFileReader.BINARY_VERSION);
+    output.writeInt(players.length);
+
+    for (final Player player : players) {
+      output.writeUTF(player.getName());
+      output.writeInt(player.getHighscore());
+    }
+
+    output.flush();
+
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,110 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestPlayerImporter {
+  private static final int BATCH_SIZE = 1000;
+
+  private RecordingRepository repository;
+
+  private PlayerImporter importer;
+
+  // The number of players emitted by the source so far
+  private long emitted;
+
+  private List<Long> requests;
+
+  @Before
+  public void setup() {
+    repository = new RecordingRepository();
+    importer = new PlayerImporter(repository, Schedulers.trampoline(), BATCH_SIZE);
+    emitted = 0;
+    requests = new ArrayList<>();
+  }
+
+  @Test
+  public void testImportPlayers_playersInsertedInBatches() {
+    final List<Player> players = createPlayers(2500);
+
+    importer.importPlayers(countingSource(players)).test().assertComplete();
+
+    assertThat(repository.batchSizes, is((List<Integer>) ImmutableList.of(1000, 1000, 500)));
+    assertThat(repository.observePlayers().blockingFirst().containsAll(players), is(true));
+  }
+
+  @Test
+  public void testImportPlayers_upstreamRequestsBoundedByBatchSize() {
+    importer.importPlayers(countingSource(createPlayers(10_000))).test().assertComplete();
+
+    for (final long request : requests) {
+      assertThat(request <= BATCH_SIZE, is(true));
+    }
+
+    // While a batch is being inserted, at most the next batch has been read ahead of it
+    for (final long readAhead : repository.readAheadAtEachBatch) {
+      assertThat(readAhead <= BATCH_SIZE, is(true));
+    }
+  }
+
+  @Test
+  public void testImportPlayers_sourceFails_earlierBatchesInsertedAndErrorPropagated() {
+    final Flowable<Player> failingSource = countingSource(createPlayers(1500))
+        .concatWith(Flowable.error(new IOException()));
+
+    importer.importPlayers(failingSource).test().assertError(IOException.class);
+
+    assertThat(repository.batchSizes, is((List<Integer>) ImmutableList.of(1000)));
+  }
+
+  private Flowable<Player> countingSource(final List<Player> players) {
+    return Flowable
+        .fromIterable(players)
+        .doOnRequest(requests::add)
+        .doOnNext(player -> emitted++);
+  }
+
+  private static List<Player> createPlayers(final int count) {
+    final List<Player> players = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      players.add(Player.create("Imported " + i, i));
+    }
+
+    return players;
+  }
+
+  /**
+   * Records each batch inserted, and how far the source had read beyond the batches inserted so far.
+   */
+  private class RecordingRepository extends InMemoryPlayerRepository {
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private final List<Long> readAheadAtEachBatch = new ArrayList<>();
+
+    private long inserted;
+
+    @Override
+    public Completable addPlayers(final Collection<Player> players) {
+      batchSizes.add(players.size());
+      inserted += players.size();
+      readAheadAtEachBatch.add(emitted - inserted);
+
+      return super.addPlayers(players);
+    }
+  }
+}
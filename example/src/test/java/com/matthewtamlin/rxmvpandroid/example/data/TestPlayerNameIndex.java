@@ -0,0 +1,103 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestPlayerNameIndex {
+  private static final Player ALICE = Player.create("Alice", 30);
+
+  private static final Player ALBERT = Player.create("albert", 40);
+
+  private static final Player BOB = Player.create("Bob", 20);
+
+  private static final Player BOBBY = Player.create("Bobby", 10);
+
+  private PlayerNameIndex index;
+
+  @Before
+  public void setup() {
+    index = PlayerNameIndex.create(ImmutableSet.of(BOBBY, ALICE, BOB, ALBERT));
+  }
+
+  @Test
+  public void testSearch_prefixIgnoringCase_matchesInNameOrder() {
+    assertThat(index.search("AL").getPlayers(), is(ImmutableList.of(ALBERT, ALICE)));
+  }
+
+  @Test
+  public void testSearch_emptyPrefix_allPlayersMatch() {
+    assertThat(index.search("").size(), is(4));
+  }
+
+  @Test
+  public void testSearch_noMatches_emptyResult() {
+    assertThat(index.search("carol").getPlayers(), is(ImmutableList.<Player>of()));
+  }
+
+  @Test
+  public void testRefine_extendedPrefix_onlyPreviousMatchesRemain() {
+    final PlayerNameIndex.Search search = index.search("b").refine("bobb");
+
+    assertThat(search.getPlayers(), is(ImmutableList.of(BOBBY)));
+  }
+
+  @Test
+  public void testRefine_unrelatedPrefix_wholeIndexSearched() {
+    final PlayerNameIndex.Search search = index.search("bob").refine("al");
+
+    assertThat(search.getPlayers(), is(ImmutableList.of(ALBERT, ALICE)));
+  }
+
+  @Test
+  public void testWithUpdatedScores_scoresReplacedAndOrderKept() {
+    final Player updatedBob = Player.create("Bob", 99);
+
+    final PlayerNameIndex updatedIndex = index.withUpdatedScores(ImmutableList.of(updatedBob));
+
+    assertThat(updatedIndex.search("bob").getPlayers(), is(ImmutableList.of(updatedBob, BOBBY)));
+
+    // The original index is unchanged
+    assertThat(index.search("bob").getPlayers(), is(ImmutableList.of(BOB, BOBBY)));
+  }
+
+  @Test
+  public void testWithUpdatedScores_namesDifferingOnlyByCase_exactNameUpdated() {
+    final Player lowerCaseBob = Player.create("bob", 5);
+    final PlayerNameIndex caseIndex = PlayerNameIndex.create(ImmutableSet.of(BOB, lowerCaseBob));
+    final Player updatedLowerCaseBob = Player.create("bob", 50);
+
+    final PlayerNameIndex updatedIndex = caseIndex.withUpdatedScores(ImmutableList.of(updatedLowerCaseBob));
+
+    assertThat(
+        ImmutableSet.copyOf(updatedIndex.search("bob").getPlayers()),
+        is(ImmutableSet.of(BOB, updatedLowerCaseBob)));
+  }
+
+  @Test
+  public void testCreate_parallelArrays_matchesIndexOfPlayers() {
+    final PlayerNameIndex arrayIndex = PlayerNameIndex.create(
+        new String[] {"Bobby", "Alice", "Bob", "albert"},
+        new int[] {10, 30, 20, 40});
+
+    assertThat(arrayIndex.search("").getPlayers(), is(index.search("").getPlayers()));
+  }
+
+  @Test
+  public void testWithUpdatedScores_unknownPlayer_ignored() {
+    final PlayerNameIndex updatedIndex = index.withUpdatedScores(ImmutableList.of(Player.create("Carol", 1)));
+
+    assertThat(updatedIndex.search("").getPlayers(), is(index.search("").getPlayers()));
+  }
+
+  @Test
+  public void testWithUpdatedScores_noChanges_sameIndexReturned() {
+    assertThat(index.withUpdatedScores(ImmutableList.<Player>of()), is(sameInstance(index)));
+  }
+}
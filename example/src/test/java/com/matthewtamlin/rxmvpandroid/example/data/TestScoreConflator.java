@@ -0,0 +1,87 @@
+package com.matthewtamlin.rxmvpandroid.example.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestScoreConflator {
+  private static final Player ALICE = Player.create("Alice", 30);
+
+  private static final Player BOB = Player.create("Bob", 20);
+
+  private ScoreConflator conflator;
+
+  @Before
+  public void setup() {
+    conflator = new ScoreConflator();
+  }
+
+  @Test
+  public void testDrain_nothingOffered_noChanges() {
+    assertThat(conflator.drain().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testDrain_severalUpdatesToOnePlayer_onlyLatestDrained() {
+    final Player first = Player.create("Alice", 31);
+    final Player second = Player.create("Alice", 32);
+    final Player third = Player.create("Alice", 33);
+
+    conflator.offer(ALICE, first);
+    conflator.offer(first, second);
+    conflator.offer(second, third);
+
+    assertThat(conflator.drain(), is((Collection<Player>) ImmutableList.of(third)));
+  }
+
+  @Test
+  public void testDrain_scoreReturnsToBaseline_noChanges() {
+    final Player increased = Player.create("Alice", 40);
+
+    conflator.offer(ALICE, increased);
+    conflator.offer(increased, ALICE);
+
+    assertThat(conflator.drain().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testDrain_calledTwice_secondDrainEmpty() {
+    conflator.offer(ALICE, Player.create("Alice", 40));
+    conflator.drain();
+
+    assertThat(conflator.drain().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testDrain_scoreReturnsToValueFromPreviousWindow_changeDrained() {
+    final Player increased = Player.create("Alice", 40);
+
+    conflator.offer(ALICE, increased);
+    conflator.drain();
+    conflator.offer(increased, ALICE);
+
+    // The baseline is the score at the start of the window, not the score at the first ever offer
+    assertThat(conflator.drain(), is((Collection<Player>) ImmutableList.of(ALICE)));
+  }
+
+  @Test
+  public void testDrain_severalPlayers_conflatedIndependently() {
+    final Player increasedAlice = Player.create("Alice", 40);
+    final Player increasedBob = Player.create("Bob", 25);
+    final Player decreasedBob = Player.create("Bob", 15);
+
+    conflator.offer(ALICE, increasedAlice);
+    conflator.offer(BOB, increasedBob);
+    conflator.offer(increasedAlice, ALICE);
+    conflator.offer(increasedBob, decreasedBob);
+
+    assertThat(ImmutableSet.copyOf(conflator.drain()), is(ImmutableSet.of(decreasedBob)));
+  }
+}
@@ -0,0 +1,365 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.google.common.collect.ImmutableList;
+import com.matthewtamlin.rxmvpandroid.FrameClock;
+import com.matthewtamlin.rxmvpandroid.example.benchmarks.FakeLeaderboardView;
+import com.matthewtamlin.rxmvpandroid.example.data.InMemoryPlayerRepository;
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.CompletableSubject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestLeaderboardPresenter {
+  private static final Player ALICE = Player.create("Alice", 30);
+
+  private static final Player BOB = Player.create("Bob", 20);
+
+  private static final Player CAROL = Player.create("Carol", 10);
+
+  private static final PlayerViewModel ALICE_VIEW_MODEL = PlayerViewModel.create("Alice", "30");
+
+  private static final PlayerViewModel BOB_VIEW_MODEL = PlayerViewModel.create("Bob", "20");
+
+  private static final PlayerViewModel CAROL_VIEW_MODEL = PlayerViewModel.create("Carol", "10");
+
+  // Longer than the presenter's delete batching window
+  private static final long BATCH_WINDOW_UPPER_BOUND_MILLIS = 1000;
+
+  // Emits immediately, so frame alignment never delays a render
+  private static final FrameClock IMMEDIATE_FRAME_CLOCK = () -> Single.just(0L);
+
+  // The leaderboards in these tests are far too small to benefit from sorting in parallel
+  private static final PlayerSorter SEQUENTIAL_SORTER = new PlayerSorter(Schedulers.trampoline(), Integer.MAX_VALUE);
+
+  private final CompositeDisposable presentation = new CompositeDisposable();
+
+  private TestScheduler mainScheduler;
+
+  private ControlledRemovalRepository repository;
+
+  private FakeLeaderboardView view;
+
+  @Before
+  public void setup() {
+    mainScheduler = new TestScheduler();
+    repository = new ControlledRemovalRepository();
+    view = new FakeLeaderboardView();
+
+    // Starts from a known set of players rather than the demo players
+    repository.clear();
+    repository.addPlayers(ImmutableList.of(ALICE, BOB, CAROL)).blockingAwait();
+
+    final LeaderboardPresenter presenter = new LeaderboardPresenter(
+        repository,
+        view,
+        IMMEDIATE_FRAME_CLOCK,
+        mainScheduler,
+        Schedulers.trampoline(),
+        SEQUENTIAL_SORTER);
+
+    presentation.add(presenter.createPresentationTasks().subscribe());
+    presentation.add(presenter.createDeferrablePresentationTasks().subscribe());
+
+    mainScheduler.triggerActions();
+  }
+
+  @After
+  public void tearDown() {
+    presentation.dispose();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCreatePresentationTasks_constructedWithoutView_throwsIllegalStateException() {
+    new LeaderboardPresenter(
+        repository,
+        IMMEDIATE_FRAME_CLOCK,
+        mainScheduler,
+        Schedulers.trampoline(),
+        SEQUENTIAL_SORTER,
+        LeaderboardPresenter.DISPLAY_ALL_PLAYERS).createPresentationTasks();
+  }
+
+  @Test
+  public void testCreatePresentationTasks_constructedWithoutViewThenAttached_playersDisplayed() {
+    final FakeLeaderboardView attachedView = new FakeLeaderboardView();
+    final LeaderboardPresenter retainablePresenter = new LeaderboardPresenter(
+        repository,
+        IMMEDIATE_FRAME_CLOCK,
+        mainScheduler,
+        Schedulers.trampoline(),
+        SEQUENTIAL_SORTER,
+        LeaderboardPresenter.DISPLAY_ALL_PLAYERS);
+
+    retainablePresenter.attachView(attachedView);
+    presentation.add(retainablePresenter.createPresentationTasks().subscribe());
+    mainScheduler.triggerActions();
+
+    assertThat(attachedView.getLatestPlayers(), is(ImmutableList.of(
+        ALICE_VIEW_MODEL,
+        BOB_VIEW_MODEL,
+        CAROL_VIEW_MODEL)));
+  }
+
+  @Test
+  public void testScoreChange_unchangedPlayersKeepTheirViewModels() {
+    final List<PlayerViewModel> firstRender = view.getLatestPlayers();
+
+    repository.updateScores(Observable.just(Player.create("Bob", 25))).blockingAwait();
+    mainScheduler.triggerActions();
+
+    final List<PlayerViewModel> secondRender = view.getLatestPlayers();
+
+    assertThat(secondRender.get(0), is(sameInstance(firstRender.get(0))));
+    assertThat(secondRender.get(1), is(PlayerViewModel.create("Bob", "25")));
+    assertThat(secondRender.get(2), is(sameInstance(firstRender.get(2))));
+  }
+
+  @Test
+  public void testNewSnapshot_unchangedPlayersKeepTheirViewModels() {
+    final List<PlayerViewModel> firstRender = view.getLatestPlayers();
+
+    repository.addPlayers(ImmutableList.of(Player.create("Dave", 5))).blockingAwait();
+    mainScheduler.triggerActions();
+
+    final List<PlayerViewModel> secondRender = view.getLatestPlayers();
+
+    assertThat(secondRender.size(), is(4));
+
+    for (int i = 0; i < firstRender.size(); i++) {
+      assertThat(secondRender.get(i), is(sameInstance(firstRender.get(i))));
+    }
+  }
+
+  @Test
+  public void testNewSnapshot_removedPlayerReturns_newViewModelCreated() {
+    final PlayerViewModel firstBob = view.getLatestPlayers().get(1);
+
+    repository.clear();
+    mainScheduler.triggerActions();
+    repository.addPlayers(ImmutableList.of(ALICE, BOB, CAROL)).blockingAwait();
+    mainScheduler.triggerActions();
+
+    // Players that leave the leaderboard are evicted from the cache
+    assertThat(view.getLatestPlayers().get(1), is(not(sameInstance(firstBob))));
+    assertThat(view.getLatestPlayers().get(1), is(BOB_VIEW_MODEL));
+  }
+
+  @Test
+  public void testDeleteRequest_rowHiddenBeforeRepositoryIsCalled() {
+    assertThat(view.getLatestPlayers(), is(ImmutableList.of(ALICE_VIEW_MODEL, BOB_VIEW_MODEL, CAROL_VIEW_MODEL)));
+
+    view.requestDelete(BOB_VIEW_MODEL);
+
+    assertThat(view.getLatestPlayers(), is(ImmutableList.of(ALICE_VIEW_MODEL, CAROL_VIEW_MODEL)));
+    assertThat(repository.removals.size(), is(0));
+  }
+
+  @Test
+  public void testDeleteRequest_repositoryFails_rowShownAgain() {
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+
+    repository.pendingRemoval.onError(new IOException());
+    mainScheduler.triggerActions();
+
+    assertThat(view.getLatestPlayers(), is(ImmutableList.of(ALICE_VIEW_MODEL, BOB_VIEW_MODEL, CAROL_VIEW_MODEL)));
+  }
+
+  @Test
+  public void testDeleteRequest_repositoryFails_canBeRequestedAgain() {
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+    repository.pendingRemoval.onError(new IOException());
+    mainScheduler.triggerActions();
+
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+
+    assertThat(repository.removals, is(ImmutableList.<Collection<Player>>of(
+        ImmutableList.of(BOB),
+        ImmutableList.of(BOB))));
+  }
+
+  @Test
+  public void testDeleteRequest_repositoryConfirms_rowStaysHiddenThroughNewSnapshot() {
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+
+    repository.pendingRemoval.onComplete();
+    mainScheduler.triggerActions();
+
+    assertThat(repository.observePlayers().blockingFirst().contains(BOB), is(false));
+    assertThat(view.getLatestPlayers(), is(ImmutableList.of(ALICE_VIEW_MODEL, CAROL_VIEW_MODEL)));
+  }
+
+  @Test
+  public void testDeleteRequest_scoreChangesWhilePending_rowStaysHidden() {
+    view.requestDelete(BOB_VIEW_MODEL);
+
+    repository.updateScores(Observable.just(Player.create("Bob", 25))).blockingAwait();
+    mainScheduler.triggerActions();
+
+    assertThat(view.getLatestPlayers(), is(ImmutableList.of(ALICE_VIEW_MODEL, CAROL_VIEW_MODEL)));
+  }
+
+  @Test
+  public void testDeleteRequest_scoreChangesThenRepositoryFails_rowShownWithNewScore() {
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+
+    repository.updateScores(Observable.just(Player.create("Bob", 25))).blockingAwait();
+    mainScheduler.triggerActions();
+    repository.pendingRemoval.onError(new IOException());
+    mainScheduler.triggerActions();
+
+    assertThat(view.getLatestPlayers(), is(ImmutableList.of(
+        ALICE_VIEW_MODEL,
+        PlayerViewModel.create("Bob", "25"),
+        CAROL_VIEW_MODEL)));
+  }
+
+  @Test
+  public void testNewSnapshot_topRankingAndSnapshotOffMainThread_frameRequestedOnMainThread() throws Exception {
+    final List<Thread> frameRequestThreads = new ArrayList<>();
+    final FrameClock recordingFrameClock = () -> Single.fromCallable(() -> {
+      frameRequestThreads.add(Thread.currentThread());
+      return 0L;
+    });
+
+    final FakeLeaderboardView topRankingView = new FakeLeaderboardView();
+    final LeaderboardPresenter topRankingPresenter = new LeaderboardPresenter(
+        repository,
+        topRankingView,
+        recordingFrameClock,
+        mainScheduler,
+        Schedulers.trampoline(),
+        SEQUENTIAL_SORTER,
+        2);
+
+    presentation.add(topRankingPresenter.createPresentationTasks().subscribe());
+    mainScheduler.triggerActions();
+    frameRequestThreads.clear();
+
+    final Thread repositoryThread = new Thread(() -> repository
+        .addPlayers(ImmutableList.of(Player.create("Dave", 40)))
+        .blockingAwait());
+
+    repositoryThread.start();
+    repositoryThread.join();
+
+    assertThat(frameRequestThreads.isEmpty(), is(true));
+
+    mainScheduler.triggerActions();
+
+    assertThat(frameRequestThreads, is(ImmutableList.of(Thread.currentThread())));
+    assertThat(topRankingView.getLatestPlayers(), is(ImmutableList.of(
+        PlayerViewModel.create("Dave", "40"),
+        ALICE_VIEW_MODEL)));
+  }
+
+  @Test
+  public void testDeleteRequests_repeatedTaps_playerRemovedOnce() {
+    view.requestDelete(BOB_VIEW_MODEL);
+    view.requestDelete(BOB_VIEW_MODEL);
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+
+    assertThat(repository.removals, is(ImmutableList.<Collection<Player>>of(ImmutableList.of(BOB))));
+  }
+
+  @Test
+  public void testDeleteRequests_tapWhileRemovalInFlight_ignored() {
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+
+    view.requestDelete(BOB_VIEW_MODEL);
+    awaitBatchWindow();
+
+    assertThat(repository.removals.size(), is(1));
+  }
+
+  @Test
+  public void testDeleteRequests_tapStormWithinWindow_singleBatch() {
+    view.requestDelete(ALICE_VIEW_MODEL);
+    view.requestDelete(BOB_VIEW_MODEL);
+    view.requestDelete(ALICE_VIEW_MODEL);
+    view.requestDelete(CAROL_VIEW_MODEL);
+    view.requestDelete(BOB_VIEW_MODEL);
+
+    assertThat(repository.removals.size(), is(0));
+
+    awaitBatchWindow();
+
+    assertThat(repository.removals, is(ImmutableList.<Collection<Player>>of(ImmutableList.of(ALICE, BOB, CAROL))));
+    assertThat(view.getLatestPlayers(), is(ImmutableList.<PlayerViewModel>of()));
+  }
+
+  @Test
+  public void testDeleteRequests_inSeparateWindows_batchPerWindow() {
+    view.requestDelete(ALICE_VIEW_MODEL);
+    awaitBatchWindow();
+
+    view.requestDelete(BOB_VIEW_MODEL);
+    view.requestDelete(CAROL_VIEW_MODEL);
+    awaitBatchWindow();
+
+    assertThat(repository.removals, is(ImmutableList.<Collection<Player>>of(
+        ImmutableList.of(ALICE),
+        ImmutableList.of(BOB, CAROL))));
+  }
+
+  @Test
+  public void testDeleteRequests_idle_noEmptyBatches() {
+    mainScheduler.advanceTimeBy(BATCH_WINDOW_UPPER_BOUND_MILLIS * 10, TimeUnit.MILLISECONDS);
+
+    assertThat(repository.removals.size(), is(0));
+  }
+
+  private void awaitBatchWindow() {
+    mainScheduler.advanceTimeBy(BATCH_WINDOW_UPPER_BOUND_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * An in-memory repository that records each removal and only performs it once the test responds.
+   */
+  private static class ControlledRemovalRepository extends InMemoryPlayerRepository {
+    public final List<Collection<Player>> removals = new ArrayList<>();
+
+    public CompletableSubject pendingRemoval;
+
+    @Override
+    public Completable removePlayers(final Collection<Player> players) {
+      final CompletableSubject response = CompletableSubject.create();
+
+      removals.add(ImmutableList.copyOf(players));
+      pendingRemoval = response;
+
+      return response.andThen(super.removePlayers(players));
+    }
+
+    public void clear() {
+      super.removePlayers(observePlayers().blockingFirst()).blockingAwait();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.google.common.collect.ImmutableList;
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestOptimisticDeletions {
+  private static final PlayerViewModel ALICE = PlayerViewModel.create("Alice", "30");
+
+  private static final PlayerViewModel BOB = PlayerViewModel.create("Bob", "20");
+
+  private static final List<PlayerViewModel> SNAPSHOT = ImmutableList.of(ALICE, BOB);
+
+  private OptimisticDeletions deletions;
+
+  @Before
+  public void setup() {
+    deletions = new OptimisticDeletions();
+    deletions.reconcile(SNAPSHOT);
+  }
+
+  @Test
+  public void testApply_noPendingDeletions_sameListReturned() {
+    assertThat(deletions.apply(SNAPSHOT), is(sameInstance(SNAPSHOT)));
+  }
+
+  @Test
+  public void testAdd_playerHidden() {
+    deletions.add(BOB);
+
+    assertThat(deletions.apply(SNAPSHOT), is(ImmutableList.of(ALICE)));
+  }
+
+  @Test
+  public void testAdd_alreadyAwaitingRepository_rejected() {
+    assertThat(deletions.add(BOB), is(true));
+    assertThat(deletions.add(BOB), is(false));
+  }
+
+  @Test
+  public void testAdd_alreadyAwaitingSnapshot_rejected() {
+    deletions.add(BOB);
+    deletions.confirm(BOB);
+
+    assertThat(deletions.add(BOB), is(false));
+  }
+
+  @Test
+  public void testAdd_scoreChangesWhilePending_playerStillHidden() {
+    final List<PlayerViewModel> snapshotWithNewScore = ImmutableList.of(ALICE, PlayerViewModel.create("Bob", "25"));
+
+    deletions.add(BOB);
+    deletions.reconcile(snapshotWithNewScore);
+
+    assertThat(deletions.apply(snapshotWithNewScore), is(ImmutableList.of(ALICE)));
+  }
+
+  @Test
+  public void testConfirm_scoreChangedBeforeConfirmation_hiddenUntilSnapshotWithoutPlayer() {
+    final List<PlayerViewModel> snapshotWithNewScore = ImmutableList.of(ALICE, PlayerViewModel.create("Bob", "25"));
+
+    deletions.add(BOB);
+    deletions.reconcile(snapshotWithNewScore);
+    deletions.confirm(BOB);
+
+    assertThat(deletions.apply(snapshotWithNewScore), is(ImmutableList.of(ALICE)));
+    assertThat(deletions.add(PlayerViewModel.create("Bob", "25")), is(false));
+  }
+
+  @Test
+  public void testRollBack_scoreChangedWhilePending_playerShownWithNewScore() {
+    final PlayerViewModel updatedBob = PlayerViewModel.create("Bob", "25");
+    final List<PlayerViewModel> snapshotWithNewScore = ImmutableList.of(ALICE, updatedBob);
+
+    deletions.add(BOB);
+    deletions.reconcile(snapshotWithNewScore);
+    deletions.rollBack(BOB);
+
+    assertThat(deletions.apply(snapshotWithNewScore), is(ImmutableList.of(ALICE, updatedBob)));
+  }
+
+  @Test
+  public void testRollBack_playerShownAgainAndCanBeDeletedAgain() {
+    deletions.add(BOB);
+    deletions.rollBack(BOB);
+
+    assertThat(deletions.apply(SNAPSHOT), is(SNAPSHOT));
+    assertThat(deletions.add(BOB), is(true));
+  }
+
+  @Test
+  public void testConfirm_latestSnapshotContainsPlayer_hiddenUntilSnapshotWithoutPlayer() {
+    deletions.add(BOB);
+    deletions.confirm(BOB);
+
+    assertThat(deletions.apply(SNAPSHOT), is(ImmutableList.of(ALICE)));
+
+    // A snapshot produced before the deletion still contains the player
+    deletions.reconcile(SNAPSHOT);
+
+    assertThat(deletions.apply(SNAPSHOT), is(ImmutableList.of(ALICE)));
+
+    final List<PlayerViewModel> snapshotWithoutBob = ImmutableList.of(ALICE);
+    deletions.reconcile(snapshotWithoutBob);
+
+    assertThat(deletions.apply(snapshotWithoutBob), is(sameInstance(snapshotWithoutBob)));
+    assertThat(deletions.add(BOB), is(true));
+  }
+
+  @Test
+  public void testConfirm_latestSnapshotAlreadyExcludesPlayer_nothingHidden() {
+    deletions.add(BOB);
+
+    final List<PlayerViewModel> snapshotWithoutBob = ImmutableList.of(ALICE);
+    deletions.reconcile(snapshotWithoutBob);
+    deletions.confirm(BOB);
+
+    assertThat(deletions.apply(snapshotWithoutBob), is(sameInstance(snapshotWithoutBob)));
+  }
+
+  @Test
+  public void testConfirm_noSnapshotReconciled_nothingHidden() {
+    final OptimisticDeletions newDeletions = new OptimisticDeletions();
+
+    newDeletions.add(BOB);
+    newDeletions.confirm(BOB);
+
+    assertThat(newDeletions.apply(SNAPSHOT), is(sameInstance(SNAPSHOT)));
+  }
+}
@@ -0,0 +1,91 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import io.reactivex.schedulers.Schedulers;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestPlayerSorter {
+  private static final int[] CHUNK_COUNTS = {1, 2, 3, 4, 5, 7, 8, 16};
+
+  private static final int THRESHOLD = 20_000;
+
+  private static final int[] SIZES_AROUND_THRESHOLD = {THRESHOLD - 1, THRESHOLD, THRESHOLD + 1};
+
+  @Test
+  public void testSort_sizesAroundThreshold_matchesComparatorSort() {
+    for (final int chunkCount : CHUNK_COUNTS) {
+      final PlayerSorter sorter = new PlayerSorter(Schedulers.computation(), THRESHOLD, chunkCount);
+
+      for (final int size : SIZES_AROUND_THRESHOLD) {
+        assertSortedLikeComparator(sorter, createPlayers(size, 1000, 0));
+      }
+    }
+  }
+
+  @Test
+  public void testSort_manyEqualScores_tiesBrokenByName() {
+    for (final int chunkCount : CHUNK_COUNTS) {
+      final PlayerSorter sorter = new PlayerSorter(Schedulers.computation(), 0, chunkCount);
+
+      // Only a few distinct scores, so long runs of ties span chunk boundaries
+      assertSortedLikeComparator(sorter, createPlayers(10_000, 3, 1));
+    }
+  }
+
+  @Test
+  public void testSort_negativeAndExtremeScores_matchesComparatorSort() {
+    final List<Player> players = createPlayers(1000, 1000, 2);
+
+    players.add(Player.create("max", Integer.MAX_VALUE));
+    players.add(Player.create("min", Integer.MIN_VALUE));
+    players.add(Player.create("negative", -1));
+    players.add(Player.create("zero", 0));
+
+    for (final int chunkCount : CHUNK_COUNTS) {
+      assertSortedLikeComparator(new PlayerSorter(Schedulers.computation(), 0, chunkCount), players);
+    }
+  }
+
+  @Test
+  public void testSort_fewerPlayersThanChunks_matchesComparatorSort() {
+    final PlayerSorter sorter = new PlayerSorter(Schedulers.computation(), 0, 16);
+
+    for (int size = 0; size <= 17; size++) {
+      assertSortedLikeComparator(sorter, createPlayers(size, 5, 3));
+    }
+  }
+
+  private static void assertSortedLikeComparator(final PlayerSorter sorter, final List<Player> players) {
+    final List<Player> expected = new ArrayList<>(players);
+    Collections.sort(expected, Ranking.ORDER);
+
+    assertThat(sorter.sort(players).blockingGet(), is(expected));
+  }
+
+  /**
+   * Creates players with unique names in a random order. The scores are drawn from a range of consecutive scores
+   * centred on zero, so the sort sees both negative scores and ties.
+   */
+  private static List<Player> createPlayers(final int count, final int distinctScores, final long seed) {
+    final Random random = new Random(seed);
+    final List<Player> players = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      players.add(Player.create("Player " + i, random.nextInt(distinctScores) - distinctScores / 2));
+    }
+
+    Collections.shuffle(players, random);
+
+    return players;
+  }
+}
@@ -0,0 +1,92 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.google.common.base.Strings;
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TestPlayerViewModelCodec {
+  @Test
+  public void testEncodeThenDecode_withinBounds_queryAndPlayersRestored() throws IOException {
+    final PlayerViewModelCodec codec = new PlayerViewModelCodec(10, 1024);
+    final List<PlayerViewModel> players = Arrays.asList(
+        PlayerViewModel.create("Alice", "30"),
+        PlayerViewModel.create("Bob", "20"));
+
+    final PlayerViewModelCodec.SavedPlayers saved = codec.decode(codec.encode("a", players));
+
+    assertThat(saved.getQuery(), is("a"));
+    assertThat(saved.getPlayers(), is(players));
+  }
+
+  @Test
+  public void testEncode_morePlayersThanMaximum_onlyLeadingPlayersSaved() throws IOException {
+    final PlayerViewModelCodec codec = new PlayerViewModelCodec(3, Integer.MAX_VALUE);
+    final List<PlayerViewModel> players = createPlayers(1_000);
+
+    final PlayerViewModelCodec.SavedPlayers saved = codec.decode(codec.encode("", players));
+
+    assertThat(saved.getPlayers(), is(players.subList(0, 3)));
+  }
+
+  @Test
+  public void testEncode_playersExceedByteBudget_encodedFormBounded() throws IOException {
+    final int maxBytes = 4 * 1024;
+    final PlayerViewModelCodec codec = new PlayerViewModelCodec(Integer.MAX_VALUE, maxBytes);
+    final List<PlayerViewModel> players = createPlayers(100_000);
+
+    final byte[] encoded = codec.encode("", players);
+    final PlayerViewModelCodec.SavedPlayers saved = codec.decode(encoded);
+
+    // The header is a version byte, an empty query and a count
+    assertThat(encoded.length, is(lessThanOrEqualTo(maxBytes + 7)));
+    assertThat(saved.getPlayers(), is(players.subList(0, saved.getPlayers().size())));
+  }
+
+  @Test
+  public void testEncode_nameTooLongForModifiedUtf8_playerSkipped() throws IOException {
+    final PlayerViewModelCodec codec = new PlayerViewModelCodec(10, Integer.MAX_VALUE);
+    final PlayerViewModel first = PlayerViewModel.create("Alice", "30");
+    final PlayerViewModel tooLong = PlayerViewModel.create(Strings.repeat("x", 70_000), "20");
+    final PlayerViewModel last = PlayerViewModel.create("Bob", "10");
+
+    final PlayerViewModelCodec.SavedPlayers saved = codec.decode(codec.encode("", Arrays.asList(first, tooLong, last)));
+
+    assertThat(saved.getPlayers(), is(Arrays.asList(first, last)));
+  }
+
+  @Test
+  public void testEncode_queryTooLongForModifiedUtf8_queryDropped() throws IOException {
+    final PlayerViewModelCodec codec = new PlayerViewModelCodec(10, Integer.MAX_VALUE);
+    final List<PlayerViewModel> players = createPlayers(2);
+
+    final PlayerViewModelCodec.SavedPlayers saved = codec.decode(codec.encode(Strings.repeat("x", 70_000), players));
+
+    assertThat(saved.getQuery(), is(""));
+    assertThat(saved.getPlayers(), is(players));
+  }
+
+  @Test(expected = IOException.class)
+  public void testDecode_unsupportedVersion() throws IOException {
+    new PlayerViewModelCodec(10, 1024).decode(new byte[]{1, 0, 0, 0, 0, 0});
+  }
+
+  private static List<PlayerViewModel> createPlayers(final int count) {
+    final List<PlayerViewModel> players = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      players.add(PlayerViewModel.create("Player " + i, Integer.toString(count - i)));
+    }
+
+    return players;
+  }
+}
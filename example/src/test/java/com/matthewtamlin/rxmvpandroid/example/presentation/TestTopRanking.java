@@ -0,0 +1,166 @@
+package com.matthewtamlin.rxmvpandroid.example.presentation;
+
+import com.google.common.collect.ImmutableList;
+import com.matthewtamlin.rxmvpandroid.example.data.Player;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestTopRanking {
+  private static final Player ALICE = Player.create("Alice", 50);
+
+  private static final Player BOB = Player.create("Bob", 40);
+
+  private static final Player CAROL = Player.create("Carol", 30);
+
+  private static final Player DAVE = Player.create("Dave", 20);
+
+  private static final Player ERIN = Player.create("Erin", 10);
+
+  private static final Player FRANK = Player.create("Frank", 0);
+
+  private TopRanking ranking;
+
+  @Before
+  public void setup() {
+    // Two ranked players, with room for two more in reserve
+    ranking = new TopRanking(2);
+    ranking.reset(ImmutableList.of(ERIN, CAROL, FRANK, ALICE, DAVE, BOB));
+  }
+
+  @Test
+  public void testReset_bestPlayersRankedInOrder() {
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(ALICE, BOB)));
+  }
+
+  @Test
+  public void testReset_fewerPlayersThanMaxSize_allPlayersRanked() {
+    ranking = new TopRanking(5);
+    ranking.reset(ImmutableList.of(BOB, ALICE));
+
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(ALICE, BOB)));
+  }
+
+  @Test
+  public void testApply_rankedPlayerIncreases_reordered() {
+    final Player updatedBob = Player.create("Bob", 60);
+
+    assertThat(ranking.apply(ImmutableList.of(updatedBob)), is(true));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(updatedBob, ALICE)));
+  }
+
+  @Test
+  public void testApply_unrankedPlayerOvertakes_promotedAndLastRankedPlayerEvicted() {
+    final Player updatedErin = Player.create("Erin", 45);
+
+    assertThat(ranking.apply(ImmutableList.of(updatedErin)), is(true));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(ALICE, updatedErin)));
+  }
+
+  @Test
+  public void testApply_unrankedPlayerStaysBelowRankedPlayers_unchanged() {
+    assertThat(ranking.apply(ImmutableList.of(Player.create("Frank", 35))), is(false));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(ALICE, BOB)));
+  }
+
+  @Test
+  public void testApply_rankedPlayerDecreasesButStaysAhead_reordered() {
+    final Player updatedAlice = Player.create("Alice", 35);
+
+    assertThat(ranking.apply(ImmutableList.of(updatedAlice)), is(true));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(BOB, updatedAlice)));
+  }
+
+  @Test
+  public void testApply_rankedPlayerDecreasesBelowReservedPlayer_replacedByReservedPlayer() {
+    final Player updatedAlice = Player.create("Alice", 25);
+
+    assertThat(ranking.apply(ImmutableList.of(updatedAlice)), is(true));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(BOB, CAROL)));
+  }
+
+  @Test
+  public void testApply_rankedPlayerDecreasesBelowEveryone_replacedByNextBestPlayer() {
+    final Player updatedAlice = Player.create("Alice", -10);
+
+    assertThat(ranking.apply(ImmutableList.of(updatedAlice)), is(true));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(BOB, CAROL)));
+  }
+
+  @Test
+  public void testApply_decreasesExhaustReserve_nextBestPlayersRanked() {
+    final List<Player> changes = ImmutableList.of(
+        Player.create("Alice", -10),
+        Player.create("Bob", -20),
+        Player.create("Carol", -30),
+        Player.create("Dave", -40));
+
+    assertThat(ranking.apply(changes), is(true));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(ERIN, FRANK)));
+  }
+
+  @Test
+  public void testApply_equalScores_tiesBrokenByName() {
+    final Player updatedCarol = Player.create("Carol", 50);
+
+    assertThat(ranking.apply(ImmutableList.of(updatedCarol)), is(true));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(ALICE, updatedCarol)));
+  }
+
+  @Test
+  public void testApply_unknownPlayer_ignored() {
+    assertThat(ranking.apply(ImmutableList.of(Player.create("Nobody", 100))), is(false));
+    assertThat(ranking.getPlayers(), is(ImmutableList.of(ALICE, BOB)));
+  }
+
+  @Test
+  public void testApply_randomChanges_matchesFullSort() {
+    final Random random = new Random(0);
+    final int playerCount = 200;
+    final int maxSize = 10;
+    final Map<String, Player> players = new HashMap<>();
+
+    for (int i = 0; i < playerCount; i++) {
+      final Player player = Player.create("Player " + i, random.nextInt(1000));
+      players.put(player.getName(), player);
+    }
+
+    ranking = new TopRanking(maxSize);
+    ranking.reset(players.values());
+
+    for (int round = 0; round < 500; round++) {
+      final List<Player> changes = new ArrayList<>();
+
+      for (int i = random.nextInt(5); i >= 0; i--) {
+        // Mostly small changes, which move players around the boundary of the ranking
+        final Player previous = players.get("Player " + random.nextInt(playerCount));
+        final Player updated = Player.create(previous.getName(), previous.getHighscore() + random.nextInt(201) - 100);
+
+        players.put(updated.getName(), updated);
+        changes.add(updated);
+      }
+
+      ranking.apply(changes);
+
+      assertThat(ranking.getPlayers(), is(sortedPrefix(players.values(), maxSize)));
+    }
+  }
+
+  private static List<Player> sortedPrefix(final Collection<Player> players, final int size) {
+    final List<Player> sortedPlayers = new ArrayList<>(players);
+    Collections.sort(sortedPlayers, Ranking.ORDER);
+
+    return sortedPlayers.subList(0, Math.min(size, sortedPlayers.size()));
+  }
+}
@@ -0,0 +1,232 @@
+package com.matthewtamlin.rxmvpandroid.example.view;
+
+import android.view.View;
+import android.widget.ImageButton;
+import android.widget.TextView;
+
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+import com.matthewtamlin.rxmvpandroid.librarytestharnesses.R;
+import com.sun.management.ThreadMXBean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Tests the row holder of {@link RecyclerLeaderboardView}. Views can't be created in unit tests, so the row views are
+ * mocked and the holder is bound the way each leaderboard's adapter binds it.
+ */
+public class TestRecyclerLeaderboardView {
+  private static final int BIND_COUNT = 10_000;
+
+  private static final PlayerViewModel ALICE = PlayerViewModel.create("Alice", "30");
+
+  private static final PlayerViewModel BOB = PlayerViewModel.create("Bob", "20");
+
+  private TextView nameLabel;
+
+  private TextView scoreLabel;
+
+  private View deleteButton;
+
+  private RecyclerLeaderboardView.ViewHolder holder;
+
+  @Before
+  public void setup() {
+    final View itemView = mock(View.class);
+    nameLabel = mock(TextView.class);
+    scoreLabel = mock(TextView.class);
+    deleteButton = mock(ImageButton.class);
+
+    doReturn(nameLabel).when(itemView).findViewById(R.id.name);
+    doReturn(scoreLabel).when(itemView).findViewById(R.id.score);
+    doReturn(deleteButton).when(itemView).findViewById(R.id.delete);
+
+    holder = new RecyclerLeaderboardView.ViewHolder(itemView);
+  }
+
+  @Test
+  public void testBind_repeatedly_clickListenerSetOnlyOnConstruction() {
+    final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
+    final PlayerViewModel[] players = createPlayers();
+
+    // Simulates a fast fling, which rebinds the same holder many times
+    for (final PlayerViewModel player : players) {
+      holder.bind(player, deleteRequests);
+    }
+
+    verify(deleteButton, times(1)).setOnClickListener(any(View.OnClickListener.class));
+    verify(deleteButton).setOnClickListener(holder);
+  }
+
+  @Test
+  public void testBind_samePlayerRepeatedly_nothingAllocated() {
+    assumeThreadAllocationMeasurable();
+
+    final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
+    final PlayerViewModel[] players = new PlayerViewModel[BIND_COUNT];
+
+    // Equal but distinct view models, as produced when the list is refreshed without changes
+    for (int i = 0; i < BIND_COUNT; i++) {
+      players[i] = PlayerViewModel.create("Alice", "30");
+    }
+
+    final long allocatedBytes = measureAllocatedBytes(() -> {
+      for (final PlayerViewModel player : players) {
+        holder.bind(player, deleteRequests);
+      }
+    });
+
+    // Less than a byte per bind leaves room for the measurement itself, but not for any object per bind
+    assertThat(allocatedBytes, is(lessThan((long) BIND_COUNT)));
+  }
+
+  @Test
+  public void testBind_differentPlayers_allocatesNothingBeyondSettingText() {
+    assumeThreadAllocationMeasurable();
+
+    // Mocks that don't record invocations, so that setting text allocates the same amount each time
+    final View itemView = mock(View.class, withSettings().stubOnly());
+    final TextView stubNameLabel = mock(TextView.class, withSettings().stubOnly());
+    final TextView stubScoreLabel = mock(TextView.class, withSettings().stubOnly());
+
+    doReturn(stubNameLabel).when(itemView).findViewById(R.id.name);
+    doReturn(stubScoreLabel).when(itemView).findViewById(R.id.score);
+    doReturn(mock(ImageButton.class, withSettings().stubOnly())).when(itemView).findViewById(R.id.delete);
+
+    final RecyclerLeaderboardView.ViewHolder stubHolder = new RecyclerLeaderboardView.ViewHolder(itemView);
+    final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
+    final PlayerViewModel[] players = createPlayers();
+
+    // The labels are mocks, so setting their text allocates. That cost is measured alone and then discounted.
+    final long setTextBytes = measureAllocatedBytes(() -> {
+      for (final PlayerViewModel player : players) {
+        stubNameLabel.setText(player.getName());
+        stubScoreLabel.setText(player.getHighscore());
+      }
+    });
+
+    final long bindBytes = measureAllocatedBytes(() -> {
+      for (final PlayerViewModel player : players) {
+        stubHolder.bind(player, deleteRequests);
+      }
+    });
+
+    // Consecutive players differ in both labels, so each bind sets both, and anything more is the holder's own
+    assertThat(bindBytes - setTextBytes, is(lessThan((long) BIND_COUNT * 4)));
+  }
+
+  @Test
+  public void testBind_samePlayer_labelsNotUpdated() {
+    final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
+
+    holder.bind(ALICE, deleteRequests);
+    holder.bind(PlayerViewModel.create("Alice", "30"), deleteRequests);
+
+    verify(nameLabel, times(1)).setText("Alice");
+    verify(scoreLabel, times(1)).setText("30");
+  }
+
+  @Test
+  public void testBind_scoreChanged_onlyScoreLabelUpdated() {
+    final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
+
+    holder.bind(ALICE, deleteRequests);
+    holder.bind(PlayerViewModel.create("Alice", "31"), deleteRequests);
+
+    verify(nameLabel, times(1)).setText(any(CharSequence.class));
+    verify(scoreLabel).setText("31");
+  }
+
+  @Test
+  public void testOnClick_bound_deleteRequestedForBoundPlayer() {
+    final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
+    final TestObserver<PlayerViewModel> observer = deleteRequests.test();
+
+    holder.bind(ALICE, deleteRequests);
+    holder.onClick(deleteButton);
+
+    observer.assertValues(ALICE);
+  }
+
+  @Test
+  public void testOnClick_reboundByLeaderboardSharingPool_deleteRequestedFromThatLeaderboard() {
+    final PublishSubject<PlayerViewModel> firstDeleteRequests = PublishSubject.create();
+    final PublishSubject<PlayerViewModel> secondDeleteRequests = PublishSubject.create();
+    final TestObserver<PlayerViewModel> firstObserver = firstDeleteRequests.test();
+    final TestObserver<PlayerViewModel> secondObserver = secondDeleteRequests.test();
+
+    // The first leaderboard binds the row, recycles it into the shared pool, and the second leaderboard takes it
+    holder.bind(ALICE, firstDeleteRequests);
+    holder.unbind();
+    holder.bind(BOB, secondDeleteRequests);
+
+    holder.onClick(deleteButton);
+
+    firstObserver.assertNoValues();
+    secondObserver.assertValues(BOB);
+  }
+
+  @Test
+  public void testOnClick_recycled_noDeleteRequested() {
+    final PublishSubject<PlayerViewModel> deleteRequests = PublishSubject.create();
+    final TestObserver<PlayerViewModel> observer = deleteRequests.test();
+
+    holder.bind(ALICE, deleteRequests);
+    holder.unbind();
+    holder.onClick(deleteButton);
+
+    observer.assertNoValues();
+  }
+
+  private static PlayerViewModel[] createPlayers() {
+    final PlayerViewModel[] players = new PlayerViewModel[BIND_COUNT];
+
+    for (int i = 0; i < BIND_COUNT; i++) {
+      players[i] = PlayerViewModel.create("Player " + i, Integer.toString(i));
+    }
+
+    return players;
+  }
+
+  private static void assumeThreadAllocationMeasurable() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+    assumeTrue(getThreadMXBean().isThreadAllocatedMemoryEnabled());
+  }
+
+  /**
+   * Measures the bytes allocated by the current thread while running an action. The action is run once beforehand so
+   * that class loading and other one-off allocations aren't measured.
+   */
+  private static long measureAllocatedBytes(final Runnable action) {
+    final ThreadMXBean threads = getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+
+    action.run();
+
+    final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    action.run();
+
+    return threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+  }
+
+  private static ThreadMXBean getThreadMXBean() {
+    // The HotSpot extension, which can measure allocation per thread
+    return (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  }
+}
@@ -0,0 +1,168 @@
+package com.matthewtamlin.rxmvpandroid.example.view;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import com.google.common.collect.ImmutableList;
+import com.matthewtamlin.rxmvpandroid.example.view.LeaderboardView.PlayerViewModel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestSortedPlayerDiff {
+  private static final Comparator<PlayerViewModel> ORDER = (player1, player2) -> {
+    final int scoreComparison = Integer.compare(
+        Integer.parseInt(player2.getHighscore()),
+        Integer.parseInt(player1.getHighscore()));
+
+    return scoreComparison != 0 ? scoreComparison : player1.getName().compareTo(player2.getName());
+  };
+
+  @Test
+  public void testCalculate_identicalLists_noUpdates() {
+    final List<PlayerViewModel> players = ImmutableList.of(player("A", 3), player("B", 2));
+    final RecordingCallback callback = new RecordingCallback(players);
+
+    SortedPlayerDiff.calculate(players, players).dispatchUpdatesTo(callback);
+
+    assertThat(callback.updateCount, is(0));
+  }
+
+  @Test
+  public void testCalculate_consecutiveRemovals_batchedIntoOneUpdate() {
+    final List<PlayerViewModel> oldPlayers = ImmutableList.of(player("A", 4), player("B", 3), player("C", 2));
+    final List<PlayerViewModel> newPlayers = ImmutableList.of(player("C", 2));
+    final RecordingCallback callback = new RecordingCallback(oldPlayers);
+
+    SortedPlayerDiff.calculate(oldPlayers, newPlayers).dispatchUpdatesTo(callback);
+
+    assertThat(callback.updateCount, is(1));
+    callback.assertProduces(newPlayers);
+  }
+
+  @Test
+  public void testCalculate_consecutiveInsertions_batchedIntoOneUpdate() {
+    final List<PlayerViewModel> oldPlayers = ImmutableList.of(player("A", 4));
+    final List<PlayerViewModel> newPlayers = ImmutableList.of(player("A", 4), player("B", 3), player("C", 2));
+    final RecordingCallback callback = new RecordingCallback(oldPlayers);
+
+    SortedPlayerDiff.calculate(oldPlayers, newPlayers).dispatchUpdatesTo(callback);
+
+    assertThat(callback.updateCount, is(1));
+    callback.assertProduces(newPlayers);
+  }
+
+  @Test
+  public void testCalculate_scoreChanged_rowRemovedAndInserted() {
+    final List<PlayerViewModel> oldPlayers = ImmutableList.of(player("A", 4), player("B", 3), player("C", 2));
+    final List<PlayerViewModel> newPlayers = ImmutableList.of(player("C", 5), player("A", 4), player("B", 3));
+    final RecordingCallback callback = new RecordingCallback(oldPlayers);
+
+    SortedPlayerDiff.calculate(oldPlayers, newPlayers).dispatchUpdatesTo(callback);
+
+    callback.assertProduces(newPlayers);
+  }
+
+  @Test
+  public void testCalculate_randomSortedLists_updatesProduceNewList() {
+    final Random random = new Random(0);
+
+    for (int run = 0; run < 200; run++) {
+      final List<PlayerViewModel> oldPlayers = randomSortedPlayers(random);
+      final List<PlayerViewModel> newPlayers = randomSortedPlayers(random);
+      final RecordingCallback callback = new RecordingCallback(oldPlayers);
+
+      SortedPlayerDiff.calculate(oldPlayers, newPlayers).dispatchUpdatesTo(callback);
+
+      callback.assertProduces(newPlayers);
+    }
+  }
+
+  @Test
+  public void testCalculate_unsortedList_fallsBackToDiffUtil() {
+    final List<PlayerViewModel> oldPlayers = ImmutableList.of(player("A", 4), player("B", 3), player("C", 2));
+    final List<PlayerViewModel> newPlayers = ImmutableList.of(player("B", 3), player("A", 4), player("C", 2));
+    final RecordingCallback callback = new RecordingCallback(oldPlayers);
+
+    SortedPlayerDiff.calculate(oldPlayers, newPlayers).dispatchUpdatesTo(callback);
+
+    callback.assertProduces(newPlayers);
+  }
+
+  private static List<PlayerViewModel> randomSortedPlayers(final Random random) {
+    final List<PlayerViewModel> players = new ArrayList<>();
+
+    // A small pool of names and scores means the lists overlap heavily
+    for (int i = 0; i < 20; i++) {
+      if (random.nextBoolean()) {
+        players.add(player("player" + i, random.nextInt(5)));
+      }
+    }
+
+    Collections.sort(players, ORDER);
+
+    return players;
+  }
+
+  private static PlayerViewModel player(final String name, final int score) {
+    return PlayerViewModel.create(name, Integer.toString(score));
+  }
+
+  /**
+   * Applies updates to a copy of the old list. Inserted and changed rows are recorded as null, since updates only carry
+   * positions, and are filled from the new list when checking the result.
+   */
+  private static class RecordingCallback implements ListUpdateCallback {
+    private final List<PlayerViewModel> rows;
+
+    private int updateCount;
+
+    private RecordingCallback(final List<PlayerViewModel> oldPlayers) {
+      rows = new ArrayList<>(oldPlayers);
+    }
+
+    @Override
+    public void onInserted(final int position, final int count) {
+      updateCount++;
+      rows.addAll(position, Collections.nCopies(count, null));
+    }
+
+    @Override
+    public void onRemoved(final int position, final int count) {
+      updateCount++;
+      rows.subList(position, position + count).clear();
+    }
+
+    @Override
+    public void onMoved(final int fromPosition, final int toPosition) {
+      updateCount++;
+      rows.add(toPosition, rows.remove(fromPosition));
+    }
+
+    @Override
+    public void onChanged(final int position, final int count, final Object payload) {
+      updateCount++;
+
+      for (int i = position; i < position + count; i++) {
+        rows.set(i, null);
+      }
+    }
+
+    private void assertProduces(final List<PlayerViewModel> newPlayers) {
+      assertThat(rows.size(), is(newPlayers.size()));
+
+      for (int i = 0; i < rows.size(); i++) {
+        if (rows.get(i) != null) {
+          assertThat(rows.get(i), is(newPlayers.get(i)));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+import android.view.Choreographer.FrameCallback;
+
+import io.reactivex.Single;
+
+/**
+ * A {@link FrameClock} backed by the {@link Choreographer}, so frames correspond to the vsync signal of the display.
+ * Subscriptions must be made on the main thread (or another looper thread), since the choreographer is thread local.
+ * A frame callback is only posted while a subscriber is waiting for a frame, so an idle clock costs nothing.
+ */
+public class ChoreographerFrameClock implements FrameClock {
+  @NonNull
+  @Override
+  public Single<Long> observeNextFrame() {
+    return Single.create(emitter -> {
+      final Choreographer choreographer = Choreographer.getInstance();
+      final FrameCallback callback = emitter::onSuccess;
+
+      choreographer.postFrameCallback(callback);
+      emitter.setCancellable(() -> choreographer.removeFrameCallback(callback));
+    });
+  }
+}
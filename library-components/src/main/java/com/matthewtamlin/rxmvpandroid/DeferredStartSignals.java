@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.MessageQueue.IdleHandler;
+import android.support.annotation.NonNull;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Signals for starting the deferrable tasks of a {@link PrioritizedPresenter} (see
+ * {@link RxMvpActivityDelegate#setDeferredStartSignal(Completable)}).
+ */
+public class DeferredStartSignals {
+  private DeferredStartSignals() {}
+
+  /**
+   * Creates a signal that completes once the next frame has been drawn. The frame clock signals the start of the
+   * frame, and completion is then posted to the main scheduler, so it runs after the frame is drawn.
+   *
+   * @param frameClock
+   *     the clock for the display
+   * @param mainScheduler
+   *     the scheduler for the main thread
+   *
+   * @return a completable that completes after the next frame
+   */
+  @NonNull
+  public static Completable afterNextFrame(
+      @NonNull final FrameClock frameClock,
+      @NonNull final Scheduler mainScheduler) {
+
+    checkNotNull(frameClock);
+    checkNotNull(mainScheduler);
+
+    return frameClock
+        .observeNextFrame()
+        .ignoreElement()
+        .observeOn(mainScheduler);
+  }
+
+  /**
+   * Creates a signal that completes when the looper of the subscribing thread runs out of messages to process. It must
+   * be subscribed to on a looper thread, normally the main thread.
+   *
+   * @return a completable that completes when the looper is idle
+   */
+  @NonNull
+  public static Completable whenLooperIdle() {
+    return Completable.create(emitter -> {
+      final MessageQueue queue = Looper.myQueue();
+
+      final IdleHandler idleHandler = () -> {
+        emitter.onComplete();
+        return false; // Only needed once
+      };
+
+      queue.addIdleHandler(idleHandler);
+      emitter.setCancellable(() -> queue.removeIdleHandler(idleHandler));
+    });
+  }
+
+  /**
+   * Creates a signal that completes after the next frame is drawn or when the looper of the subscribing thread is idle,
+   * whichever happens first. It must be subscribed to on the main thread.
+   *
+   * @param frameClock
+   *     the clock for the display
+   * @param mainScheduler
+   *     the scheduler for the main thread
+   *
+   * @return a completable that completes after the next frame or when the looper is idle
+   */
+  @NonNull
+  public static Completable afterNextFrameOrWhenIdle(
+      @NonNull final FrameClock frameClock,
+      @NonNull final Scheduler mainScheduler) {
+
+    return Completable.ambArray(afterNextFrame(frameClock, mainScheduler), whenLooperIdle());
+  }
+}
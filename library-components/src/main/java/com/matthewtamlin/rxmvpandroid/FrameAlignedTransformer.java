@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.SerialDisposable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Aligns the emissions of an observable to the frames of a {@link FrameClock}, so that at most one item is emitted
+ * per frame. When several items arrive between frames, only the latest is emitted and the rest are dropped. This is
+ * suitable for streams of complete states (such as view models), where only the most recent state needs rendering.
+ * <p>
+ * A frame is only requested when an item is waiting, so an idle stream does not consume frame callbacks. If the
+ * upstream completes while an item is waiting, the item is emitted on the next frame before completion is propagated.
+ * Errors are propagated immediately.
+ *
+ * @param <T>
+ *     the type of item
+ */
+public class FrameAlignedTransformer<T> implements ObservableTransformer<T, T> {
+  private final FrameClock frameClock;
+
+  /**
+   * Constructs a new FrameAlignedTransformer.
+   *
+   * @param frameClock
+   *     the clock to align emissions with
+   */
+  public FrameAlignedTransformer(@NonNull final FrameClock frameClock) {
+    this.frameClock = checkNotNull(frameClock);
+  }
+
+  @Override
+  public ObservableSource<T> apply(final Observable<T> upstream) {
+    return Observable.create(emitter -> new FrameAlignedEmitter(emitter.serialize()).subscribeTo(upstream));
+  }
+
+  private class FrameAlignedEmitter {
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    private final SerialDisposable frameRequest = new SerialDisposable();
+
+    private final ObservableEmitter<T> downstream;
+
+    private T latest;
+
+    private boolean frameRequested;
+
+    private boolean upstreamComplete;
+
+    private FrameAlignedEmitter(final ObservableEmitter<T> downstream) {
+      this.downstream = downstream;
+    }
+
+    private void subscribeTo(final Observable<T> upstream) {
+      disposables.add(frameRequest);
+      downstream.setDisposable(disposables);
+
+      disposables.add(upstream.subscribe(this::onUpstreamNext, downstream::onError, this::onUpstreamComplete));
+    }
+
+    private void onUpstreamNext(final T item) {
+      synchronized (this) {
+        latest = item;
+
+        if (frameRequested) {
+          return;
+        }
+
+        frameRequested = true;
+      }
+
+      frameRequest.set(frameClock.observeNextFrame().subscribe(frameTimeNanos -> onFrame(), downstream::onError));
+    }
+
+    private void onUpstreamComplete() {
+      synchronized (this) {
+        upstreamComplete = true;
+
+        if (frameRequested) {
+          // Completion is delivered after the waiting item
+          return;
+        }
+      }
+
+      downstream.onComplete();
+    }
+
+    private void onFrame() {
+      final T item;
+      final boolean complete;
+
+      synchronized (this) {
+        item = latest;
+        latest = null;
+        frameRequested = false;
+        complete = upstreamComplete;
+      }
+
+      downstream.onNext(item);
+
+      if (complete) {
+        downstream.onComplete();
+      }
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A debugging aid that measures callbacks on the main thread and records those that exceed a frame budget. Any
+ * callback that runs longer than the budget delays the next frame, so violations show where the UI stutters.
+ * <p>
+ * Each violation includes a stack trace of the measured thread. If the callback is still running when the budget runs
+ * out, the stack is sampled at that moment from the sampling scheduler, so it shows the work that caused the
+ * violation. Otherwise (for example if the sampling scheduler is busy) the stack is captured when the callback
+ * returns, and only shows where the callback was initiated.
+ * <p>
+ * Violations are recorded rather than thrown, so that the app keeps running in debug builds. Tests can call
+ * {@link #assertNoViolations()} to fail when the budget is exceeded.
+ * <p>
+ * All methods are thread safe.
+ */
+public class FrameBudgetWatchdog {
+  /**
+   * The default budget, which is the duration of one frame at 60 frames per second.
+   */
+  public static final long DEFAULT_FRAME_BUDGET_MILLIS = 16;
+
+  private final List<Violation> violations = new ArrayList<>();
+
+  private final long budgetNanos;
+
+  private final Ticker ticker;
+
+  private final Scheduler samplingScheduler;
+
+  /**
+   * Constructs a new FrameBudgetWatchdog with the default budget.
+   */
+  public FrameBudgetWatchdog() {
+    this(DEFAULT_FRAME_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Constructs a new FrameBudgetWatchdog that measures time with {@link System#nanoTime()}.
+   *
+   * @param budget
+   *     the longest time a callback may run for, not negative
+   * @param unit
+   *     the unit of the budget
+   */
+  public FrameBudgetWatchdog(final long budget, @NonNull final TimeUnit unit) {
+    this(budget, unit, Ticker.systemTicker(), Schedulers.single());
+  }
+
+  /**
+   * Constructs a new FrameBudgetWatchdog.
+   *
+   * @param budget
+   *     the longest time a callback may run for, not negative
+   * @param unit
+   *     the unit of the budget
+   * @param ticker
+   *     measures elapsed time in nanoseconds
+   * @param samplingScheduler
+   *     samples the stacks of callbacks that are still running when the budget runs out, must not run tasks on the
+   *     measured thread unless it is driven manually by a test
+   */
+  public FrameBudgetWatchdog(
+      final long budget,
+      @NonNull final TimeUnit unit,
+      @NonNull final Ticker ticker,
+      @NonNull final Scheduler samplingScheduler) {
+
+    checkArgument(budget >= 0, "budget cannot be negative.");
+
+    this.budgetNanos = checkNotNull(unit).toNanos(budget);
+    this.ticker = checkNotNull(ticker);
+    this.samplingScheduler = checkNotNull(samplingScheduler);
+  }
+
+  /**
+   * Runs a callback and records a violation if it exceeds the budget.
+   *
+   * @param description
+   *     describes the callback in violation reports
+   * @param callback
+   *     the callback to run
+   */
+  public void measure(@NonNull final String description, @NonNull final Runnable callback) {
+    checkNotNull(callback);
+
+    measureAndReturn(description, () -> {
+      callback.run();
+      return null;
+    });
+  }
+
+  /**
+   * Runs a callback and records a violation if it exceeds the budget.
+   *
+   * @param description
+   *     describes the callback in violation reports
+   * @param callback
+   *     the callback to run
+   * @param <T>
+   *     the type returned by the callback
+   *
+   * @return the value returned by the callback
+   */
+  public <T> T measureAndReturn(@NonNull final String description, @NonNull final Supplier<T> callback) {
+    checkNotNull(description);
+    checkNotNull(callback);
+
+    final Thread measuredThread = Thread.currentThread();
+    final StackSample sample = new StackSample();
+    final long startNanos = ticker.read();
+
+    final Disposable sampling = samplingScheduler.scheduleDirect(
+        () -> sample.stackTrace = measuredThread.getStackTrace(),
+        budgetNanos,
+        TimeUnit.NANOSECONDS);
+
+    try {
+      return callback.get();
+    } finally {
+      sampling.dispose();
+
+      final long durationNanos = ticker.read() - startNanos;
+
+      if (durationNanos > budgetNanos) {
+        final StackTraceElement[] sampledStackTrace = sample.stackTrace;
+
+        recordViolation(new Violation(
+            description,
+            durationNanos,
+            sampledStackTrace == null ? new Throwable().getStackTrace() : sampledStackTrace));
+      }
+    }
+  }
+
+  /**
+   * @return the violations recorded so far, oldest first
+   */
+  @NonNull
+  public synchronized List<Violation> getViolations() {
+    return Collections.unmodifiableList(new ArrayList<>(violations));
+  }
+
+  /**
+   * Discards all recorded violations.
+   */
+  public synchronized void clearViolations() {
+    violations.clear();
+  }
+
+  /**
+   * Checks that no callback has exceeded the budget.
+   *
+   * @throws AssertionError
+   *     if any violations have been recorded, with the stack trace of the first as its cause
+   */
+  public void assertNoViolations() {
+    final List<Violation> violations = getViolations();
+
+    if (!violations.isEmpty()) {
+      final Throwable firstViolation = new Throwable(violations.get(0).toString());
+      firstViolation.setStackTrace(violations.get(0).getStackTrace());
+
+      final AssertionError error = new AssertionError("Callbacks exceeded the frame budget: " + violations);
+      error.initCause(firstViolation);
+
+      throw error;
+    }
+  }
+
+  private synchronized void recordViolation(final Violation violation) {
+    violations.add(violation);
+  }
+
+  private static class StackSample {
+    private volatile StackTraceElement[] stackTrace;
+  }
+
+  /**
+   * A callback that exceeded the frame budget.
+   */
+  public static class Violation {
+    private final String description;
+
+    private final long durationNanos;
+
+    private final StackTraceElement[] stackTrace;
+
+    private Violation(final String description, final long durationNanos, final StackTraceElement[] stackTrace) {
+      this.description = description;
+      this.durationNanos = durationNanos;
+      this.stackTrace = stackTrace;
+    }
+
+    /**
+     * @return the description of the callback
+     */
+    @NonNull
+    public String getDescription() {
+      return description;
+    }
+
+    /**
+     * @return how long the callback ran for, in nanoseconds
+     */
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    /**
+     * @return the stack of the measured thread, sampled while the callback was over budget if possible
+     */
+    @NonNull
+    public StackTraceElement[] getStackTrace() {
+      return stackTrace.clone();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%s took %.3f ms", description, durationNanos / 1_000_000.0);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.Single;
+
+/**
+ * A source of display frame timing. Frame clocks allow work (such as view updates) to be aligned with the display
+ * refresh, so that no more than one update is performed per frame.
+ */
+public interface FrameClock {
+  /**
+   * Gets a single that emits when the next frame begins. Each subscription requests one frame.
+   *
+   * @return a new single that emits the time the next frame began, in nanoseconds
+   */
+  @NonNull
+  public Single<Long> observeNextFrame();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+
+/**
+ * A presenter whose presentation tasks span the whole started state of the host, rather than just the resumed state.
+ * The delegate subscribes to the tasks when the host starts and disposes them when it stops. The tasks receive the
+ * lifecycle events of the host, so individual streams can be scoped more narrowly with {@link LifecycleTransformers}.
+ * For example, cheap streams can run for as long as the host is visible while expensive ones only run while it is
+ * resumed.
+ * <p>
+ * The delegate never calls {@link #createPresentationTasks()} on presenters that implement this interface.
+ */
+public interface LifecycleScopedPresenter extends RxMvpPresenter {
+  /**
+   * @param lifecycleEvents
+   *     emits the lifecycle events of the host, starting with the most recent event when subscribed to
+   *
+   * @return a new completable that performs the presentation tasks
+   */
+  @NonNull
+  public Completable createPresentationTasks(@NonNull Observable<LifecycleEvent> lifecycleEvents);
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import io.reactivex.CompletableTransformer;
+import io.reactivex.ObservableTransformer;
+
+/**
+ * Scopes a stream to part of a lifecycle. Create instances with {@link LifecycleTransformers}.
+ *
+ * @param <T>
+ *     the type of item emitted by the stream
+ */
+public interface LifecycleTransformer<T> extends ObservableTransformer<T, T>, CompletableTransformer {}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Predicate;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableSource;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Transformers that scope individual streams to parts of a lifecycle, for use by a {@link LifecycleScopedPresenter}.
+ * There are two kinds of transformer:
+ * <ul>
+ * <li>Binding transformers end the stream (by completing it) the first time a lifecycle event occurs, for example when
+ * the host pauses.</li>
+ * <li>Suspending transformers subscribe to the stream each time the lifecycle enters a state and dispose of it each
+ * time the lifecycle leaves the state, for example to suspend an expensive stream while the host is not resumed.
+ * Suspended streams never complete by themselves.</li>
+ * </ul>
+ * Each transformer can be applied to observables and completables.
+ */
+public class LifecycleTransformers {
+  private LifecycleTransformers() {}
+
+  /**
+   * Creates a transformer that completes the stream when a lifecycle event occurs. If the event is the most recent
+   * event when the stream is subscribed to, the stream completes immediately.
+   *
+   * @param lifecycleEvents
+   *     the lifecycle events, which should emit the most recent event when subscribed to
+   * @param event
+   *     the event to end the stream on
+   * @param <T>
+   *     the type of item emitted by the stream
+   *
+   * @return the transformer
+   */
+  @NonNull
+  public static <T> LifecycleTransformer<T> bindUntilEvent(
+      @NonNull final Observable<LifecycleEvent> lifecycleEvents,
+      @NonNull final LifecycleEvent event) {
+
+    checkNotNull(lifecycleEvents);
+    checkNotNull(event);
+
+    return new BindingTransformer<>(lifecycleEvents.filter(currentEvent -> currentEvent == event));
+  }
+
+  /**
+   * Creates a transformer that runs the stream only while the host is resumed, and suspends it otherwise.
+   *
+   * @param lifecycleEvents
+   *     the lifecycle events, which should emit the most recent event when subscribed to
+   * @param <T>
+   *     the type of item emitted by the stream
+   *
+   * @return the transformer
+   */
+  @NonNull
+  public static <T> LifecycleTransformer<T> whileResumed(@NonNull final Observable<LifecycleEvent> lifecycleEvents) {
+    return new SuspendingTransformer<>(checkNotNull(lifecycleEvents), event -> event == LifecycleEvent.RESUME);
+  }
+
+  /**
+   * Creates a transformer that runs the stream only while the host is started, and suspends it while stopped.
+   *
+   * @param lifecycleEvents
+   *     the lifecycle events, which should emit the most recent event when subscribed to
+   * @param <T>
+   *     the type of item emitted by the stream
+   *
+   * @return the transformer
+   */
+  @NonNull
+  public static <T> LifecycleTransformer<T> whileStarted(@NonNull final Observable<LifecycleEvent> lifecycleEvents) {
+    return new SuspendingTransformer<>(
+        checkNotNull(lifecycleEvents),
+        event -> event == LifecycleEvent.START || event == LifecycleEvent.RESUME || event == LifecycleEvent.PAUSE);
+  }
+
+  private static class BindingTransformer<T> implements LifecycleTransformer<T> {
+    private final Observable<LifecycleEvent> endEvents;
+
+    private BindingTransformer(final Observable<LifecycleEvent> endEvents) {
+      this.endEvents = endEvents;
+    }
+
+    @Override
+    public ObservableSource<T> apply(final Observable<T> upstream) {
+      return upstream.takeUntil(endEvents);
+    }
+
+    @Override
+    public CompletableSource apply(final Completable upstream) {
+      return upstream.ambWith(endEvents.take(1).ignoreElements());
+    }
+  }
+
+  private static class SuspendingTransformer<T> implements LifecycleTransformer<T> {
+    private final Observable<Boolean> activeStates;
+
+    private SuspendingTransformer(
+        final Observable<LifecycleEvent> lifecycleEvents,
+        final Predicate<LifecycleEvent> isActive) {
+
+      this.activeStates = lifecycleEvents
+          .map(isActive::apply)
+          .distinctUntilChanged();
+    }
+
+    @Override
+    public ObservableSource<T> apply(final Observable<T> upstream) {
+      return activeStates.switchMap(active -> active ? upstream : Observable.<T>empty());
+    }
+
+    @Override
+    public CompletableSource apply(final Completable upstream) {
+      return activeStates
+          .switchMap(active -> active ? upstream.<T>toObservable() : Observable.<T>empty())
+          .ignoreElements();
+    }
+  }
+}
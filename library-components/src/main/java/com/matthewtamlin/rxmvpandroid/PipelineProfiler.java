@@ -0,0 +1,492 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Ticker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableObserver;
+import io.reactivex.CompletableSource;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.SingleSource;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * An opt-in profiler that records, for each stage of a presentation pipeline, how many events the stage processed and
+ * how much time it spent processing them. Stages are identified by their operator and the place they were assembled,
+ * for example {@code ObservableMap at LeaderboardPresenter.displayPlayers(LeaderboardPresenter.java:210)}.
+ * <p>
+ * While installed, the profiler uses the RxJava assembly hooks to wrap every observable, single and completable that
+ * is assembled. Each wrapper knows the stage that consumes its events, and times each event it delivers. The time a
+ * stage spends is the time spent delivering events to it, excluding the time spent in stages further downstream, so
+ * the times of all stages add up to the total time spent in the pipeline. Events delivered to subscribers rather than
+ * operators are attributed to the subscriber's class. Only pipelines assembled while the profiler is installed are
+ * profiled, so it should be installed before presentation tasks are created (see
+ * {@link RxMvpActivityDelegate#setPipelineProfiler(PipelineProfiler)}).
+ * <p>
+ * Capturing assembly sites and timing every event is expensive, so the profiler is only suitable for debug builds and
+ * tests. Fused operators would pass events to each other without going through the wrappers, so the wrappers prevent
+ * fusion, which makes profiled pipelines queue some events that they otherwise wouldn't. Any hooks installed
+ * beforehand are preserved and applied before the profiler's own. Only one profiler can be installed at a time.
+ */
+public class PipelineProfiler {
+  private static final ThreadLocal<Stage> SUBSCRIBING_STAGE = new ThreadLocal<>();
+
+  private static final ThreadLocal<Deque<Frame>> FRAMES = new ThreadLocal<Deque<Frame>>() {
+    @Override
+    protected Deque<Frame> initialValue() {
+      return new ArrayDeque<>();
+    }
+  };
+
+  private static PipelineProfiler installedProfiler;
+
+  private final ConcurrentHashMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+  private final Ticker ticker;
+
+  private Function<? super Observable, ? extends Observable> previousObservableHook;
+
+  private Function<? super Single, ? extends Single> previousSingleHook;
+
+  private Function<? super Completable, ? extends Completable> previousCompletableHook;
+
+  /**
+   * Constructs a new PipelineProfiler that measures time with {@link System#nanoTime()}.
+   */
+  public PipelineProfiler() {
+    this(Ticker.systemTicker());
+  }
+
+  /**
+   * Constructs a new PipelineProfiler.
+   *
+   * @param ticker
+   *     measures elapsed time in nanoseconds
+   */
+  public PipelineProfiler(@NonNull final Ticker ticker) {
+    this.ticker = checkNotNull(ticker);
+  }
+
+  /**
+   * Starts profiling pipelines that are assembled from now on.
+   *
+   * @throws IllegalStateException
+   *     if a profiler is already installed
+   */
+  @SuppressWarnings("unchecked")
+  public void install() {
+    synchronized (PipelineProfiler.class) {
+      checkState(installedProfiler == null, "A profiler is already installed.");
+      installedProfiler = this;
+    }
+
+    previousObservableHook = RxJavaPlugins.getOnObservableAssembly();
+    previousSingleHook = RxJavaPlugins.getOnSingleAssembly();
+    previousCompletableHook = RxJavaPlugins.getOnCompletableAssembly();
+
+    RxJavaPlugins.setOnObservableAssembly(observable -> new ProfiledObservable<>(
+        (Observable<Object>) applyHook(previousObservableHook, observable),
+        stageForAssembly(observable)));
+
+    RxJavaPlugins.setOnSingleAssembly(single -> new ProfiledSingle<>(
+        (Single<Object>) applyHook(previousSingleHook, single),
+        stageForAssembly(single)));
+
+    RxJavaPlugins.setOnCompletableAssembly(completable -> new ProfiledCompletable(
+        applyHook(previousCompletableHook, completable),
+        stageForAssembly(completable)));
+  }
+
+  /**
+   * Stops profiling newly assembled pipelines and restores the previous hooks. Pipelines that were assembled while the
+   * profiler was installed continue to be profiled. This method can be safely called if the profiler isn't installed.
+   */
+  public void uninstall() {
+    synchronized (PipelineProfiler.class) {
+      if (installedProfiler != this) {
+        return;
+      }
+
+      installedProfiler = null;
+    }
+
+    RxJavaPlugins.setOnObservableAssembly(previousObservableHook);
+    RxJavaPlugins.setOnSingleAssembly(previousSingleHook);
+    RxJavaPlugins.setOnCompletableAssembly(previousCompletableHook);
+  }
+
+  /**
+   * @return the number of events delivered to each stage, keyed by stage
+   */
+  @NonNull
+  public Map<String, Long> getEventCounts() {
+    final Map<String, Long> counts = new HashMap<>();
+
+    for (final Stage stage : stages.values()) {
+      counts.put(stage.name, stage.eventCount.get());
+    }
+
+    return Collections.unmodifiableMap(counts);
+  }
+
+  /**
+   * @return the time each stage spent processing events in nanoseconds, keyed by stage
+   */
+  @NonNull
+  public Map<String, Long> getSelfTimesNanos() {
+    final Map<String, Long> times = new HashMap<>();
+
+    for (final Stage stage : stages.values()) {
+      times.put(stage.name, stage.selfTimeNanos.get());
+    }
+
+    return Collections.unmodifiableMap(times);
+  }
+
+  /**
+   * Creates a report of all stages that processed at least one event, with the most expensive stages first.
+   *
+   * @return the report
+   */
+  @NonNull
+  public String getReport() {
+    final List<Stage> sortedStages = new ArrayList<>();
+
+    for (final Stage stage : stages.values()) {
+      if (stage.eventCount.get() > 0) {
+        sortedStages.add(stage);
+      }
+    }
+
+    Collections.sort(sortedStages, (stage1, stage2) ->
+        Long.compare(stage2.selfTimeNanos.get(), stage1.selfTimeNanos.get()));
+
+    final StringBuilder report = new StringBuilder()
+        .append(String.format(Locale.ROOT, "%10s %10s  %s%n", "ms", "events", "stage"));
+
+    for (final Stage stage : sortedStages) {
+      report.append(String.format(
+          Locale.ROOT,
+          "%10.3f %10d  %s%n",
+          stage.selfTimeNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+          stage.eventCount.get(),
+          stage.name));
+    }
+
+    return report.toString();
+  }
+
+  /**
+   * Discards all recorded counts and times.
+   */
+  public void reset() {
+    for (final Stage stage : stages.values()) {
+      stage.eventCount.set(0);
+      stage.selfTimeNanos.set(0);
+    }
+  }
+
+  private Stage stageForAssembly(final Object assembled) {
+    return stageNamed(assembled.getClass().getSimpleName() + " at " + findAssemblySite());
+  }
+
+  private Stage stageForSubscriber(final Object subscriber) {
+    final Class<?> subscriberClass = subscriber.getClass();
+    final Class<?> enclosingClass = subscriberClass.getEnclosingClass();
+
+    return stageNamed((enclosingClass == null ? subscriberClass : enclosingClass).getName());
+  }
+
+  private Stage stageNamed(final String name) {
+    final Stage existingStage = stages.get(name);
+
+    if (existingStage != null) {
+      return existingStage;
+    }
+
+    final Stage stage = new Stage(name);
+    final Stage racingStage = stages.putIfAbsent(name, stage);
+
+    return racingStage == null ? stage : racingStage;
+  }
+
+  /**
+   * Gets the stage that consumes the events delivered to an observer. Operators subscribe to their upstream while they
+   * are being subscribed to, so the subscribing stage is the consumer. Otherwise the observer is a subscriber.
+   */
+  private Stage consumerOf(final Object observer) {
+    final Stage subscribingStage = SUBSCRIBING_STAGE.get();
+    return subscribingStage == null ? stageForSubscriber(observer) : subscribingStage;
+  }
+
+  private void subscribeAs(final Stage stage, final Runnable subscription) {
+    final Stage previousStage = SUBSCRIBING_STAGE.get();
+    SUBSCRIBING_STAGE.set(stage);
+
+    try {
+      subscription.run();
+    } finally {
+      SUBSCRIBING_STAGE.set(previousStage);
+    }
+  }
+
+  private Frame enter() {
+    // Events aren't delivered as part of subscription, so nothing subscribed by the consumer is one of its upstreams
+    final Frame frame = new Frame(SUBSCRIBING_STAGE.get(), ticker.read());
+    SUBSCRIBING_STAGE.set(null);
+    FRAMES.get().push(frame);
+
+    return frame;
+  }
+
+  private void exit(final Frame frame, final Stage consumer) {
+    final long elapsedNanos = ticker.read() - frame.startNanos;
+    final Deque<Frame> frames = FRAMES.get();
+
+    frames.pop();
+    SUBSCRIBING_STAGE.set(frame.subscribingStage);
+
+    final Frame parentFrame = frames.peek();
+
+    if (parentFrame != null) {
+      parentFrame.childNanos += elapsedNanos;
+    }
+
+    consumer.eventCount.incrementAndGet();
+    consumer.selfTimeNanos.addAndGet(elapsedNanos - frame.childNanos);
+  }
+
+  private static String findAssemblySite() {
+    for (final StackTraceElement element : new Throwable().getStackTrace()) {
+      final String className = element.getClassName();
+
+      if (!className.startsWith("io.reactivex.") && !className.startsWith(PipelineProfiler.class.getName())) {
+        return element.toString();
+      }
+    }
+
+    return "unknown";
+  }
+
+  private static <T> T applyHook(final Function<? super T, ? extends T> hook, final T source) throws Exception {
+    return hook == null ? source : hook.apply(source);
+  }
+
+  private static class Stage {
+    private final String name;
+
+    private final AtomicLong eventCount = new AtomicLong();
+
+    private final AtomicLong selfTimeNanos = new AtomicLong();
+
+    private Stage(final String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Frame {
+    private final Stage subscribingStage;
+
+    private final long startNanos;
+
+    private long childNanos;
+
+    private Frame(final Stage subscribingStage, final long startNanos) {
+      this.subscribingStage = subscribingStage;
+      this.startNanos = startNanos;
+    }
+  }
+
+  /**
+   * Hides the type of an upstream disposable. Operators fuse by requesting fusion from a disposable that is a
+   * QueueDisposable, and then poll the upstream directly instead of receiving its events, which would bypass the
+   * wrappers.
+   */
+  private static class OpaqueDisposable implements Disposable {
+    private final Disposable upstream;
+
+    private OpaqueDisposable(final Disposable upstream) {
+      this.upstream = upstream;
+    }
+
+    @Override
+    public void dispose() {
+      upstream.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return upstream.isDisposed();
+    }
+  }
+
+  private class ProfiledObservable<T> extends Observable<T> {
+    private final ObservableSource<T> source;
+
+    private final Stage stage;
+
+    private ProfiledObservable(final ObservableSource<T> source, final Stage stage) {
+      this.source = source;
+      this.stage = stage;
+    }
+
+    @Override
+    protected void subscribeActual(final Observer<? super T> observer) {
+      final Stage consumer = consumerOf(observer);
+      subscribeAs(stage, () -> source.subscribe(new ProfiledObserver<>(observer, consumer)));
+    }
+  }
+
+  private class ProfiledObserver<T> implements Observer<T> {
+    private final Observer<? super T> downstream;
+
+    private final Stage consumer;
+
+    private ProfiledObserver(final Observer<? super T> downstream, final Stage consumer) {
+      this.downstream = downstream;
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void onSubscribe(final Disposable disposable) {
+      downstream.onSubscribe(new OpaqueDisposable(disposable));
+    }
+
+    @Override
+    public void onNext(final T item) {
+      final Frame frame = enter();
+
+      try {
+        downstream.onNext(item);
+      } finally {
+        exit(frame, consumer);
+      }
+    }
+
+    @Override
+    public void onError(final Throwable error) {
+      downstream.onError(error);
+    }
+
+    @Override
+    public void onComplete() {
+      downstream.onComplete();
+    }
+  }
+
+  private class ProfiledSingle<T> extends Single<T> {
+    private final SingleSource<T> source;
+
+    private final Stage stage;
+
+    private ProfiledSingle(final SingleSource<T> source, final Stage stage) {
+      this.source = source;
+      this.stage = stage;
+    }
+
+    @Override
+    protected void subscribeActual(final SingleObserver<? super T> observer) {
+      final Stage consumer = consumerOf(observer);
+
+      subscribeAs(stage, () -> source.subscribe(new SingleObserver<T>() {
+        @Override
+        public void onSubscribe(final Disposable disposable) {
+          observer.onSubscribe(new OpaqueDisposable(disposable));
+        }
+
+        @Override
+        public void onSuccess(final T item) {
+          final Frame frame = enter();
+
+          try {
+            observer.onSuccess(item);
+          } finally {
+            exit(frame, consumer);
+          }
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+          observer.onError(error);
+        }
+      }));
+    }
+  }
+
+  private class ProfiledCompletable extends Completable {
+    private final CompletableSource source;
+
+    private final Stage stage;
+
+    private ProfiledCompletable(final CompletableSource source, final Stage stage) {
+      this.source = source;
+      this.stage = stage;
+    }
+
+    @Override
+    protected void subscribeActual(final CompletableObserver observer) {
+      final Stage consumer = consumerOf(observer);
+
+      subscribeAs(stage, () -> source.subscribe(new CompletableObserver() {
+        @Override
+        public void onSubscribe(final Disposable disposable) {
+          observer.onSubscribe(new OpaqueDisposable(disposable));
+        }
+
+        @Override
+        public void onComplete() {
+          final Frame frame = enter();
+
+          try {
+            observer.onComplete();
+          } finally {
+            exit(frame, consumer);
+          }
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+          observer.onError(error);
+        }
+      }));
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Creates a presenter. Factories allow expensive presenters (and their dependencies) to be constructed off the main
+ * thread, so that the host activity can draw its first frame before the presenter is ready.
+ *
+ * @param <P>
+ *     the type of presenter
+ */
+public interface PresenterFactory<P extends RxMvpPresenter> {
+  /**
+   * Creates a new presenter. This method may be called from any thread.
+   *
+   * @return the new presenter
+   */
+  @NonNull
+  public P createPresenter();
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A process-wide store of presenters, keyed by screen or host identity. Reusing a presenter from the store avoids
+ * redoing the work of constructing the presenter and its dependencies when a screen is revisited.
+ * <p>
+ * The store is bounded. When the number of presenters exceeds the maximum size, the least recently used presenters are
+ * evicted. Presenters are also evicted in response to memory pressure, as reported through {@link #onTrimMemory(int)}
+ * and {@link #onLowMemory()}.
+ * <p>
+ * Presenters that hold a reference to their view should implement {@link RetainablePresenter}, so that the view can
+ * be detached while the presenter is stored and replaced when it is reused.
+ * <p>
+ * All methods are thread safe.
+ */
+public class PresenterStore implements ComponentCallbacks2 {
+  /**
+   * The maximum size of the shared instance, unless changed by {@link #setMaxSize(int)}.
+   */
+  public static final int DEFAULT_MAX_SIZE = 8;
+
+  private static final PresenterStore INSTANCE = new PresenterStore(DEFAULT_MAX_SIZE);
+
+  private final LinkedHashMap<String, RxMvpPresenter> presenters = new LinkedHashMap<>(16, 0.75f, true);
+
+  private int maxSize;
+
+  /**
+   * @return the process-wide store
+   */
+  @NonNull
+  public static PresenterStore getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Constructs a new PresenterStore.
+   *
+   * @param maxSize
+   *     the maximum number of presenters to hold, greater than zero
+   *
+   * @throws IllegalArgumentException
+   *     if {@code maxSize} is not greater than zero
+   */
+  public PresenterStore(final int maxSize) {
+    checkArgument(maxSize > 0, "maxSize must be greater than zero.");
+
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Gets the presenter stored with a key, and marks it as the most recently used presenter.
+   *
+   * @param key
+   *     the screen identity
+   * @param <P>
+   *     the type of presenter
+   *
+   * @return the presenter, or null if there is no presenter for the key
+   *
+   * @throws ClassCastException
+   *     if the stored presenter is not of the expected type
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  public synchronized <P extends RxMvpPresenter> P get(@NonNull final String key) {
+    checkNotNull(key);
+
+    return (P) presenters.get(key);
+  }
+
+  /**
+   * Stores a presenter, replacing any existing presenter with the same key. The least recently used presenters are
+   * evicted if the store exceeds its maximum size.
+   *
+   * @param key
+   *     the screen identity
+   * @param presenter
+   *     the presenter to store
+   */
+  public synchronized void put(@NonNull final String key, @NonNull final RxMvpPresenter presenter) {
+    checkNotNull(key);
+    checkNotNull(presenter);
+
+    presenters.put(key, presenter);
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Removes the presenter stored with a key.
+   *
+   * @param key
+   *     the screen identity
+   *
+   * @return the removed presenter, or null if there was no presenter for the key
+   */
+  @Nullable
+  public synchronized RxMvpPresenter remove(@NonNull final String key) {
+    checkNotNull(key);
+
+    return presenters.remove(key);
+  }
+
+  /**
+   * @return the number of presenters currently stored
+   */
+  public synchronized int size() {
+    return presenters.size();
+  }
+
+  /**
+   * Changes the maximum size of this store. The least recently used presenters are evicted if the store exceeds the
+   * new size.
+   *
+   * @param maxSize
+   *     the maximum number of presenters to hold, greater than zero
+   *
+   * @throws IllegalArgumentException
+   *     if {@code maxSize} is not greater than zero
+   */
+  public synchronized void setMaxSize(final int maxSize) {
+    checkArgument(maxSize > 0, "maxSize must be greater than zero.");
+
+    this.maxSize = maxSize;
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Evicts the least recently used presenters until no more than {@code size} presenters remain.
+   *
+   * @param size
+   *     the number of presenters to keep, not negative
+   */
+  public synchronized void trimToSize(final int size) {
+    checkArgument(size >= 0, "size must not be negative.");
+
+    final Iterator<RxMvpPresenter> iterator = presenters.values().iterator();
+
+    while (presenters.size() > size && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Evicts presenters according to the severity of the memory pressure. Levels that indicate the process is a
+   * candidate for being killed clear the store, and lower levels halve it. The result depends only on the level, so
+   * the same level can safely be reported by several activities.
+   *
+   * @param level
+   *     the trim memory level, as defined by {@link ComponentCallbacks2}
+   */
+  @Override
+  public synchronized void onTrimMemory(final int level) {
+    if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+      trimToSize(0);
+    } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+      trimToSize(maxSize / 2);
+    }
+  }
+
+  @Override
+  public synchronized void onLowMemory() {
+    trimToSize(0);
+  }
+
+  @Override
+  public void onConfigurationChanged(final Configuration newConfig) {
+    // Not relevant to the store
+  }
+}
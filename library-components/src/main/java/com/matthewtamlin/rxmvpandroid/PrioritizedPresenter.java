@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.Completable;
+
+/**
+ * A presenter that separates the presentation tasks needed for the first frame from those that can wait. The delegate
+ * subscribes to {@link #createPresentationTasks()} as soon as it resumes, but only subscribes to
+ * {@link #createDeferrablePresentationTasks()} once its deferred start signal completes (normally after the first
+ * frame is drawn or the main thread becomes idle). Both are disposed when the delegate pauses.
+ * <p>
+ * Deferrable tasks should be those the user can't interact with straight away, such as handling input or loading
+ * content below the fold.
+ */
+public interface PrioritizedPresenter extends RxMvpPresenter {
+  /**
+   * @return a new completable that performs the presentation tasks which can be deferred
+   */
+  @NonNull
+  public Completable createDeferrablePresentationTasks();
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A presenter that can outlive the view it was created with. Retainable presenters can be kept in a
+ * {@link PresenterStore} and reused by later instances of the same screen, so that any state they hold (and any work
+ * their dependencies have already done) is not lost when the host activity is destroyed.
+ *
+ * @param <V>
+ *     the type of view
+ */
+public interface RetainablePresenter<V extends RxMvpView> extends RxMvpPresenter {
+  /**
+   * Attaches a view to this presenter, replacing any existing view. Subsequent presentation tasks must use the new
+   * view. The {@link RxMvpActivityDelegate} calls this method each time it starts presentation tasks, so the view of
+   * the host that is currently resuming is always the attached view.
+   *
+   * @param view
+   *     the view to attach
+   */
+  public void attachView(@NonNull V view);
+
+  /**
+   * Detaches a view from this presenter so that the view (and its host activity) can be garbage collected while the
+   * presenter is retained. Nothing happens if another view has been attached since, as the host of that view may
+   * still be using the presenter. The presenter will not be asked to create presentation tasks until a view is
+   * attached again.
+   *
+   * @param view
+   *     the view to detach
+   */
+  public void detachView(@NonNull V view);
+}
@@ -20,20 +20,51 @@ import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+
+import java.util.UUID;
+
+import io.reactivex.Completable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * An activity for using the RxMvpAndroid architecture. The activity hosts an {@link RxMvpView} and an
  * {@link RxMvpPresenter}, and manages presentation task subscription/disposal.
  * <p>
- * To use this activity, implement {@link #getView()} and {@link #getPresenter()}. Whenever {@link #onResume()} is
- * called, the activity gets a new presentation task from the presenter and subscribes to it. The subscription
- * continues until the presentation task completes, or until the {@link #onPause()} callback is delivered.
+ * To use this activity, implement {@link #getView()} and either {@link #getPresenter()} or
+ * {@link #getPresenterFactory()}. Whenever {@link #onResume()} is called, the activity gets a new presentation task
+ * from the presenter and subscribes to it. The subscription continues until the presentation task completes, or until
+ * the {@link #onPause()} callback is delivered.
+ * <p>
+ * If a presenter factory is provided, the presenter is created on a background thread so that expensive dependencies
+ * do not block the first frame. Resumption and back presses are queued until the presenter is ready.
+ * <p>
+ * If {@link #getPresenterStoreKey()} returns a key, the presenter is kept in the process-wide {@link PresenterStore}
+ * instead of being created again. Each instance of the activity stores its presenter under its own key, which is kept
+ * in the saved instance state, so an instance that is recreated gets its presenter back while instances that are
+ * alive at the same time (for example two instances on the back stack) never share one. When an instance finishes,
+ * its presenter is released so that the next new instance of the screen can reuse it, but only if it implements
+ * {@link RetainablePresenter}. Other presenters are discarded when their instance finishes, since they may still
+ * reference its view. Retained presenters should only hold dependencies that live as long as the application. The
+ * store is trimmed whenever the activity receives {@link #onTrimMemory(int)}.
+ * <p>
+ * If the presenter implements {@link StateSavingPresenter}, its state is saved in the instance state bundle and
+ * restored when the activity is recreated after the process is killed. State is not restored into presenters that are
+ * reused from the store, since they already hold their most recent state.
  * <p>
  * When the user presses the back button, the activity attempts to execute the pending back action of the view or the
  * presenter. If both have pending back actions, then the view receives priority. If neither have pending back actions,
  * then the standard back press behaviour applies. The pending back actions of the view and the presenter are
  * always ignored while the activity is not in a resumed state.
  * <p>
+ * If the presenter implements {@link PrioritizedPresenter}, its deferrable presentation tasks start after the first
+ * frame following each resumption is drawn, or when the main thread becomes idle if that happens first. Override
+ * {@link #getDeferredStartSignal()} to change this.
+ * <p>
+ * If the presenter implements {@link LifecycleScopedPresenter}, its presentation task runs from {@link #onStart()}
+ * until {@link #onStop()} instead, and it receives the lifecycle events of the activity.
+ * <p>
  * The {@link RxMvpActivityDelegate} is provided as an alternative to this activity. It can be used to achieve the
  * RxMvpAndroid architecture in activities that do not extend from this class.
  *
@@ -43,10 +74,22 @@ import android.support.v7.app.AppCompatActivity;
  *     the type of presenter
  */
 public abstract class RxMvpActivity<V extends RxMvpView, P extends RxMvpPresenter> extends AppCompatActivity {
+  private static final String PRESENTER_STATE_KEY = "com.matthewtamlin.rxmvpandroid.RxMvpActivity.presenterState";
+
+  private static final String INSTANCE_ID_KEY = "com.matthewtamlin.rxmvpandroid.RxMvpActivity.instanceId";
+
   private RxMvpActivityDelegate<V, P> delegate;
 
+  private String instanceId;
+
+  private boolean presenterReusedFromStore;
+
+  private byte[] savedPresenterState;
+
+  private PipelineProfiler profiler;
+
   /**
-   * Called from {@link #onCreate(Bundle)} to get the view for this activity. Each call must return the same instance.
+   * Called after {@link #onCreate(Bundle)} to get the view for this activity. Each call must return the same instance.
    *
    * @return the view to display
    */
@@ -54,51 +97,268 @@ public abstract class RxMvpActivity<V extends RxMvpView, P extends RxMvpPresente
   public abstract V getView();
 
   /**
-   * Called from {@link #onCreate(Bundle)} to get the presenter for this activity. Each call must return the same
-   * instance.
+   * Called after {@link #onCreate(Bundle)} to get the presenter for this activity, unless
+   * {@link #getPresenterFactory()} returns a factory. Each call must return the same instance.
+   * <p>
+   * The default implementation throws an exception, so subclasses must override either this method or
+   * {@link #getPresenterFactory()}.
    *
    * @return the presenter to use
    */
   @NonNull
-  public abstract P getPresenter();
+  public P getPresenter() {
+    throw new IllegalStateException("Subclasses must override getPresenter() or getPresenterFactory().");
+  }
+
+  /**
+   * Called after {@link #onCreate(Bundle)} to get a factory for creating the presenter asynchronously. If this method
+   * returns a factory then {@link #getPresenter()} is never called. The factory is invoked on a background thread.
+   * <p>
+   * The default implementation returns null.
+   *
+   * @return the factory to use, or null to use {@link #getPresenter()} instead
+   */
+  @Nullable
+  public PresenterFactory<P> getPresenterFactory() {
+    return null;
+  }
+
+  /**
+   * Called after {@link #onCreate(Bundle)} to get the key for storing the presenter in the {@link PresenterStore}. The
+   * key should identify the screen. The activity combines it with the identity of the instance, so each instance has
+   * its own presenter, and a {@link RetainablePresenter} released by a finished instance is reused by the next new
+   * instance of the same screen.
+   * <p>
+   * The default implementation returns null.
+   *
+   * @return the key, or null if the presenter should not be stored
+   */
+  @Nullable
+  public String getPresenterStoreKey() {
+    return null;
+  }
+
+  /**
+   * Called when the delegate is created to get a tracker for detecting leaked subscriptions. Override this method in
+   * debug builds and tests to detect hosts that don't release their presentation.
+   * <p>
+   * The default implementation returns null.
+   *
+   * @return the tracker, or null to disable tracking
+   */
+  @Nullable
+  public SubscriptionLeakTracker getSubscriptionLeakTracker() {
+    return null;
+  }
+
+  /**
+   * Called when the delegate is created to get a profiler for measuring the presentation tasks. Override this method in
+   * debug builds and tests to find the stages responsible for slow screens. The report of the profiler is logged at
+   * debug level whenever the activity pauses.
+   * <p>
+   * The default implementation returns null.
+   *
+   * @return the profiler, or null to disable profiling
+   */
+  @Nullable
+  public PipelineProfiler getPipelineProfiler() {
+    return null;
+  }
+
+  /**
+   * Called when the delegate is created to get a watchdog for detecting slow callbacks. Override this method in debug
+   * builds and tests to find main thread work that delays frames.
+   * <p>
+   * The default implementation returns null.
+   *
+   * @return the watchdog, or null to disable it
+   */
+  @Nullable
+  public FrameBudgetWatchdog getFrameBudgetWatchdog() {
+    return null;
+  }
+
+  /**
+   * Called when the delegate is created to get the signal for starting the deferrable presentation tasks of a
+   * {@link PrioritizedPresenter}. The signal is subscribed to on the main thread each time the activity resumes.
+   * <p>
+   * The default implementation completes after the next frame is drawn or when the main thread is idle, whichever
+   * happens first.
+   *
+   * @return the signal
+   */
+  @NonNull
+  public Completable getDeferredStartSignal() {
+    return DeferredStartSignals.afterNextFrameOrWhenIdle(new ChoreographerFrameClock(), AndroidSchedulers.mainThread());
+  }
 
   @Override
   protected void onCreate(@Nullable final Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
+
+    // Restored when the delegate is created, since the view isn't available until the subclass sets it up
+    savedPresenterState = savedInstanceState == null ? null : savedInstanceState.getByteArray(PRESENTER_STATE_KEY);
+
+    final String savedInstanceId = savedInstanceState == null ? null : savedInstanceState.getString(INSTANCE_ID_KEY);
+    instanceId = savedInstanceId == null ? UUID.randomUUID().toString() : savedInstanceId;
+  }
+
+  @Override
+  protected void onStart() {
+    super.onStart();
+
+    // The first call creates the delegate, which starts creating the presenter as early as possible
+    getDelegate().onStart();
   }
 
   @Override
   protected void onResume() {
     super.onResume();
+    getDelegate().onResume();
+  }
 
-    if (delegate == null) {
-      delegate = new RxMvpActivityDelegate<>(getView(), getPresenter());
+  @Override
+  protected void onPause() {
+    super.onPause();
+    getDelegate().onPause();
+
+    if (profiler != null) {
+      Log.d(getClass().getSimpleName(), "Presentation pipeline profile:\n" + profiler.getReport());
     }
+  }
 
-    delegate.onResume();
+  @Override
+  protected void onStop() {
+    super.onStop();
+    getDelegate().onStop();
   }
 
   @Override
-  protected void onPause() {
-    super.onPause();
+  protected void onSaveInstanceState(final Bundle outState) {
+    super.onSaveInstanceState(outState);
 
-    if (delegate == null) {
-      delegate = new RxMvpActivityDelegate<>(getView(), getPresenter());
+    outState.putString(INSTANCE_ID_KEY, instanceId);
+
+    if (delegate != null) {
+      outState.putByteArray(PRESENTER_STATE_KEY, delegate.saveState());
     }
+  }
+
+  @Override
+  protected void onDestroy() {
+    super.onDestroy();
+
+    if (delegate != null) {
+      // Detaches the view from a retained presenter
+      delegate.onDestroy();
 
-    delegate.onPause();
+      if (isFinishing()) {
+        releaseStoredPresenter();
+      }
+    }
+  }
+
+  @Override
+  public void onTrimMemory(final int level) {
+    super.onTrimMemory(level);
+    PresenterStore.getInstance().onTrimMemory(level);
   }
 
   @Override
   public void onBackPressed() {
+    final boolean handledByDelegate = getDelegate().onBackPressed();
+
+    if (!handledByDelegate) {
+      super.onBackPressed();
+    }
+  }
+
+  private RxMvpActivityDelegate<V, P> getDelegate() {
     if (delegate == null) {
-      delegate = new RxMvpActivityDelegate<>(getView(), getPresenter());
+      delegate = createDelegate();
+      delegate.setSubscriptionLeakTracker(getSubscriptionLeakTracker());
+
+      profiler = getPipelineProfiler();
+      delegate.setPipelineProfiler(profiler);
+      delegate.setFrameBudgetWatchdog(getFrameBudgetWatchdog());
+      delegate.setDeferredStartSignal(getDeferredStartSignal());
+
+      if (!presenterReusedFromStore) {
+        delegate.restoreState(savedPresenterState);
+      }
+
+      savedPresenterState = null;
     }
 
-    final boolean handledByDelegate = delegate.onBackPressed();
+    return delegate;
+  }
 
-    if (!handledByDelegate) {
-      super.onBackPressed();
+  private RxMvpActivityDelegate<V, P> createDelegate() {
+    final String storeKey = getInstanceStoreKey();
+    final P storedPresenter = storeKey == null ? null : takeStoredPresenter(storeKey);
+
+    presenterReusedFromStore = storedPresenter != null;
+
+    if (storedPresenter != null) {
+      // The delegate attaches the view before starting any presentation tasks
+      return new RxMvpActivityDelegate<>(getView(), storedPresenter);
+    }
+
+    final PresenterFactory<P> presenterFactory = getPresenterFactory();
+
+    if (presenterFactory == null) {
+      return new RxMvpActivityDelegate<>(getView(), storePresenter(storeKey, getPresenter()));
+    } else {
+      return new RxMvpActivityDelegate<>(
+          getView(),
+          () -> storePresenter(storeKey, presenterFactory.createPresenter()),
+          Schedulers.io(),
+          AndroidSchedulers.mainThread(),
+          super::onBackPressed);
+    }
+  }
+
+  @Nullable
+  private String getInstanceStoreKey() {
+    final String screenKey = getPresenterStoreKey();
+
+    return screenKey == null ? null : screenKey + "#" + instanceId;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private P takeStoredPresenter(final String instanceStoreKey) {
+    final PresenterStore store = PresenterStore.getInstance();
+    final P presenterOfInstance = store.get(instanceStoreKey);
+
+    if (presenterOfInstance != null) {
+      return presenterOfInstance;
+    }
+
+    // Removed so that only one new instance can take over the presenter of a finished instance
+    final P releasedPresenter = (P) store.remove(getPresenterStoreKey());
+
+    return releasedPresenter == null ? null : storePresenter(instanceStoreKey, releasedPresenter);
+  }
+
+  private P storePresenter(@Nullable final String storeKey, @NonNull final P presenter) {
+    if (storeKey != null) {
+      PresenterStore.getInstance().put(storeKey, presenter);
+    }
+
+    return presenter;
+  }
+
+  private void releaseStoredPresenter() {
+    final String storeKey = getInstanceStoreKey();
+
+    if (storeKey != null) {
+      final RxMvpPresenter presenter = PresenterStore.getInstance().remove(storeKey);
+
+      // Other presenters may still reference the view, which would keep the finished activity reachable
+      if (presenter instanceof RetainablePresenter) {
+        PresenterStore.getInstance().put(getPresenterStoreKey(), presenter);
+      }
     }
   }
-}
\ No newline at end of file
+}
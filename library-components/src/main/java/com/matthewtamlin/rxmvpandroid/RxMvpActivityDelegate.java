@@ -18,20 +18,53 @@ package com.matthewtamlin.rxmvpandroid;
 
 import android.app.Activity;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.subjects.BehaviorSubject;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Delegate for using the RxMvpAndroid architecture in activities that do not extend from {@link RxMvpActivity}. To use
- * this delegate in an activity, create an instance and pass all onResume(), onPause() and onBackPressed() callbacks
- * from the activity to the respective delegate methods.
+ * this delegate in an activity, create an instance and pass all onStart(), onResume(), onPause(), onStop(),
+ * onBackPressed() and onDestroy() callbacks from the activity to the respective delegate methods.
  * <p>
  * The delegate does not handle interaction between the view and the presenter, it merely handles back presses and
  * manages subscription/disposal of the presentation task. View-presenter interaction must be established externally by
  * injection, configuration, or some other means.
+ * <p>
+ * The presenter can either be supplied directly, or created asynchronously by a {@link PresenterFactory}. When a
+ * factory is used, resumption and back presses are queued until the presenter is ready.
+ * <p>
+ * The delegate exposes the lifecycle events it receives through {@link #observeLifecycleEvents()}. If the presenter
+ * implements {@link LifecycleScopedPresenter}, its presentation tasks are subscribed to from {@link #onStart()} until
+ * {@link #onStop()} instead of from resumption until pause, and they receive the lifecycle events so that individual
+ * streams can be scoped with {@link LifecycleTransformers}. Hosts of such presenters must also pass their onStart()
+ * and onStop() callbacks to the delegate.
+ * <p>
+ * If the presenter implements {@link PrioritizedPresenter}, its deferrable presentation tasks are only subscribed to
+ * once the deferred start signal completes (see {@link #setDeferredStartSignal(Completable)}), so that they don't
+ * compete with the critical tasks for the first frame.
+ * <p>
+ * In debug builds and tests, a {@link SubscriptionLeakTracker} can be set to detect subscriptions that outlive the
+ * delegate, and views that remain reachable after {@link #onDestroy()}. A {@link PipelineProfiler} can also be set to
+ * measure the stages of the presentation tasks. It is installed while the presentation tasks are running. A
+ * {@link FrameBudgetWatchdog} can be set to detect callbacks of the delegate that take longer than a frame.
+ * <p>
+ * If the presenter implements {@link RetainablePresenter}, the view of the delegate is attached to it each time
+ * presentation tasks are started, and detached in {@link #onDestroy()} unless another host has attached its view
+ * since. This lets several hosts share a retained presenter, even when their callbacks interleave.
+ * <p>
+ * If the presenter implements {@link StateSavingPresenter}, the host should also save the result of
+ * {@link #saveState()} in its saved instance state bundle, and pass it back to {@link #restoreState(byte[])} when the
+ * activity is recreated.
  *
  * @param <V>
  *     the type of view
@@ -41,14 +74,40 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class RxMvpActivityDelegate<V extends RxMvpView, P extends RxMvpPresenter> {
   private final V view;
 
-  private final P presenter;
+  private final Runnable unhandledBackPressAction;
+
+  private final BehaviorSubject<LifecycleEvent> lifecycleEvents = BehaviorSubject.create();
+
+  private P presenter;
+
+  private Disposable presenterCreation;
+
+  private boolean started;
+
+  private boolean resumed;
+
+  private int queuedBackPresses;
+
+  private byte[] pendingRestoredState;
 
   private Disposable currentTasks;
 
+  private Disposable scopedTasks;
+
   private Completable pendingViewBackAction;
 
   private Completable pendingPresentationBackAction;
 
+  private SubscriptionLeakTracker leakTracker;
+
+  private PipelineProfiler profiler;
+
+  private boolean profilerInstalled;
+
+  private FrameBudgetWatchdog watchdog;
+
+  private Completable deferredStartSignal = Completable.complete();
+
   /**
    * Constructs a new RxMvpActivityDelegate.
    *
@@ -60,10 +119,126 @@ public class RxMvpActivityDelegate<V extends RxMvpView, P extends RxMvpPresenter
   public RxMvpActivityDelegate(@NonNull final V view, @NonNull final P presenter) {
     this.view = checkNotNull(view);
     this.presenter = checkNotNull(presenter);
+    this.unhandledBackPressAction = null;
+  }
+
+  /**
+   * Constructs a new RxMvpActivityDelegate that creates the presenter asynchronously. The factory is invoked on the
+   * construction scheduler, and the presenter is delivered on the main scheduler. Until the presenter is delivered:
+   * <ul>
+   * <li>Calls to {@link #onResume()} are recorded, and the presentation task is subscribed to once the presenter
+   * arrives (provided the delegate has not been paused in the meantime).</li>
+   * <li>Back presses that occur while resumed are consumed and queued. Once the presenter arrives they are replayed
+   * against the pending back actions of the view and the presenter, and any that remain unhandled are passed to the
+   * unhandled back press action.</li>
+   * </ul>
+   * If the factory fails, the error is wrapped in an {@link IllegalStateException} and passed to
+   * {@link RxJavaPlugins#onError(Throwable)} on the main scheduler. Unless a global error handler is installed, the
+   * failure surfaces as a crash of the main thread.
+   *
+   * @param view
+   *     the view
+   * @param presenterFactory
+   *     creates the presenter
+   * @param constructionScheduler
+   *     the scheduler to invoke the factory on
+   * @param mainScheduler
+   *     the scheduler to deliver the presenter on, normally the scheduler for the main thread
+   * @param unhandledBackPressAction
+   *     executed for each queued back press that is not handled once the presenter is ready, normally the default back
+   *     press behaviour of the host activity
+   */
+  public RxMvpActivityDelegate(
+      @NonNull final V view,
+      @NonNull final PresenterFactory<? extends P> presenterFactory,
+      @NonNull final Scheduler constructionScheduler,
+      @NonNull final Scheduler mainScheduler,
+      @NonNull final Runnable unhandledBackPressAction) {
+
+    this(
+        view,
+        presenterFactory,
+        constructionScheduler,
+        mainScheduler,
+        unhandledBackPressAction,
+        RxMvpActivityDelegate::rethrowPresenterCreationError);
   }
 
   /**
-   * Resumes the presentation by getting a new presentation task from the presenter and subscribing to it.
+   * Constructs a new RxMvpActivityDelegate that creates the presenter asynchronously, as described in
+   * {@link #RxMvpActivityDelegate(RxMvpView, PresenterFactory, Scheduler, Scheduler, Runnable)}, and passes any error
+   * thrown by the factory to a handler. The delegate remains without a presenter after an error, so the handler
+   * normally finishes the host or shows an error state.
+   *
+   * @param view
+   *     the view
+   * @param presenterFactory
+   *     creates the presenter
+   * @param constructionScheduler
+   *     the scheduler to invoke the factory on
+   * @param mainScheduler
+   *     the scheduler to deliver the presenter and any error on, normally the scheduler for the main thread
+   * @param unhandledBackPressAction
+   *     executed for each queued back press that is not handled once the presenter is ready, normally the default back
+   *     press behaviour of the host activity
+   * @param presenterCreationErrorHandler
+   *     receives the error if the factory fails
+   */
+  public RxMvpActivityDelegate(
+      @NonNull final V view,
+      @NonNull final PresenterFactory<? extends P> presenterFactory,
+      @NonNull final Scheduler constructionScheduler,
+      @NonNull final Scheduler mainScheduler,
+      @NonNull final Runnable unhandledBackPressAction,
+      @NonNull final Consumer<? super Throwable> presenterCreationErrorHandler) {
+
+    this.view = checkNotNull(view);
+    this.unhandledBackPressAction = checkNotNull(unhandledBackPressAction);
+
+    checkNotNull(presenterFactory);
+    checkNotNull(constructionScheduler);
+    checkNotNull(mainScheduler);
+    checkNotNull(presenterCreationErrorHandler);
+
+    presenterCreation = Single
+        .<P>fromCallable(presenterFactory::createPresenter)
+        .subscribeOn(constructionScheduler)
+        .observeOn(mainScheduler)
+        .subscribe(
+            readyPresenter -> monitor("presenter delivery", () -> onPresenterReady(readyPresenter)),
+            error -> onPresenterCreationFailed(error, presenterCreationErrorHandler));
+  }
+
+  /**
+   * Starts the presentation of a {@link LifecycleScopedPresenter} by getting a new presentation task from the presenter
+   * and subscribing to it. If the presenter is still being created, subscription is deferred until it is ready. Other
+   * presenters are unaffected.
+   * <p>
+   * Delegate all {@link Activity#onStart()} calls from the host activity to this method.
+   *
+   * @throws IllegalStateException
+   *     if already started
+   */
+  public void onStart() {
+    monitor("onStart", this::start);
+  }
+
+  private void start() {
+    if (started) {
+      throw new IllegalStateException("Attempted to start from started state.");
+    }
+
+    started = true;
+    lifecycleEvents.onNext(LifecycleEvent.START);
+
+    if (presenter != null) {
+      startScopedPresentation();
+    }
+  }
+
+  /**
+   * Resumes the presentation by getting a new presentation task from the presenter and subscribing to it. If the
+   * presenter is still being created, subscription is deferred until it is ready.
    * <p>
    * Delegate all {@link Activity#onResume()} calls from the host activity to this method.
    *
@@ -71,30 +246,75 @@ public class RxMvpActivityDelegate<V extends RxMvpView, P extends RxMvpPresenter
    *     if already resumed
    */
   public void onResume() {
-    if (currentTasks != null) {
+    monitor("onResume", this::resume);
+  }
+
+  private void resume() {
+    if (resumed) {
       throw new IllegalStateException("Attempted to resume from resumed state.");
     }
 
-    currentTasks = Completable
-        .mergeArray(
-            presenter.createPresentationTasks(),
-            savePendingViewBackActions(),
-            savePendingPresentationBackActions())
-        .subscribe();
+    resumed = true;
+    lifecycleEvents.onNext(LifecycleEvent.RESUME);
+
+    if (presenter != null) {
+      startPresentation();
+    }
   }
 
   /**
-   * Pauses the presentation by disposing of the existing presentation task (if one exists).
+   * Pauses the presentation by disposing of the existing presentation task (if one exists). Any back presses queued
+   * while waiting for the presenter are discarded.
    * <p>
    * Delegate all {@link Activity#onPause()} calls from the host activity to this method.
    * <p>
    * This method can be safely called from any state.
    */
   public void onPause() {
+    monitor("onPause", this::pause);
+  }
+
+  private void pause() {
+    if (resumed) {
+      lifecycleEvents.onNext(LifecycleEvent.PAUSE);
+    }
+
+    resumed = false;
+    queuedBackPresses = 0;
+
     if (currentTasks != null) {
       currentTasks.dispose();
       currentTasks = null;
     }
+
+    uninstallProfilerIfIdle();
+  }
+
+  /**
+   * Stops the presentation of a {@link LifecycleScopedPresenter} by disposing of the existing presentation task (if one
+   * exists).
+   * <p>
+   * Delegate all {@link Activity#onStop()} calls from the host activity to this method.
+   * <p>
+   * This method can be safely called from any state.
+   */
+  public void onStop() {
+    monitor("onStop", this::stop);
+  }
+
+  private void stop() {
+    if (started) {
+      lifecycleEvents.onNext(LifecycleEvent.STOP);
+    }
+
+    started = false;
+
+    if (scopedTasks != null) {
+      scopedTasks.dispose();
+      scopedTasks = null;
+    }
+
+    uninstallProfilerIfIdle();
   }
 
   /**
@@ -102,11 +322,320 @@ public class RxMvpActivityDelegate<V extends RxMvpView, P extends RxMvpPresenter
    * pending back actions, then the view receives priority. If neither have pending back actions, then the back press
    * is not handled. Back presses are never handled while paused.
    * <p>
+   * If the presenter is still being created, the back press is consumed and queued until the presenter is ready.
+   * <p>
    * Delegate all {@link Activity#onBackPressed()} calls from the host activity to this method.
    *
-   * @return true if the back press was handled, false otherwise
+   * @return true if the back press was handled (or queued), false otherwise
    */
   public boolean onBackPressed() {
+    return watchdog == null ? backPress() : watchdog.measureAndReturn("onBackPressed", this::backPress);
+  }
+
+  private boolean backPress() {
+    if (resumed && presenter == null) {
+      queuedBackPresses++;
+      return true;
+    }
+
+    return handleBackPress();
+  }
+
+  /**
+   * Stops creating the presenter if creation is still in progress, and disposes of any presentation tasks that are
+   * still running. The delegate should not be used after this method is called.
+   * <p>
+   * Delegate all {@link Activity#onDestroy()} calls from the host activity to this method.
+   * <p>
+   * This method can be safely called from any state.
+   */
+  public void onDestroy() {
+    monitor("onDestroy", this::destroy);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void destroy() {
+    lifecycleEvents.onNext(LifecycleEvent.DESTROY);
+
+    if (presenterCreation != null) {
+      presenterCreation.dispose();
+      presenterCreation = null;
+    }
+
+    // Normally already disposed by onPause() and onStop(), but a host may be destroyed without them
+    if (currentTasks != null) {
+      currentTasks.dispose();
+      currentTasks = null;
+    }
+
+    if (scopedTasks != null) {
+      scopedTasks.dispose();
+      scopedTasks = null;
+    }
+
+    uninstallProfilerIfIdle();
+
+    if (presenter instanceof RetainablePresenter) {
+      ((RetainablePresenter<V>) presenter).detachView(view);
+    }
+
+    if (leakTracker != null) {
+      // The presenter isn't included since it may be deliberately retained, e.g. by the PresenterStore
+      leakTracker.onHostDestroyed(this, this, view);
+    }
+  }
+
+  /**
+   * Sets the tracker to record the subscriptions of this delegate in. Subscriptions that are already active are
+   * recorded immediately.
+   *
+   * @param leakTracker
+   *     the tracker, or null to stop recording
+   */
+  public void setSubscriptionLeakTracker(@Nullable final SubscriptionLeakTracker leakTracker) {
+    this.leakTracker = leakTracker;
+
+    track("presenter creation", presenterCreation);
+    track("presentation tasks", currentTasks);
+    track("scoped presentation tasks", scopedTasks);
+  }
+
+  /**
+   * Sets the profiler to measure the presentation tasks with. The profiler is installed whenever presentation tasks
+   * are started, and uninstalled once none are running, so only pipelines assembled by this delegate's presenter (and
+   * anything else assembled in the meantime) are profiled. Set the profiler before the first call to
+   * {@link #onStart()} or {@link #onResume()}.
+   *
+   * @param profiler
+   *     the profiler, or null to stop profiling
+   */
+  public void setPipelineProfiler(@Nullable final PipelineProfiler profiler) {
+    if (profilerInstalled) {
+      this.profiler.uninstall();
+      profilerInstalled = false;
+    }
+
+    this.profiler = profiler;
+  }
+
+  /**
+   * Sets the watchdog to measure the callbacks of this delegate with. This covers the lifecycle callbacks and back
+   * presses passed to the delegate (including any back actions they execute) and the delivery of an asynchronously
+   * created presenter.
+   *
+   * @param watchdog
+   *     the watchdog, or null to stop measuring
+   */
+  public void setFrameBudgetWatchdog(@Nullable final FrameBudgetWatchdog watchdog) {
+    this.watchdog = watchdog;
+  }
+
+  /**
+   * Sets the signal for starting the deferrable presentation tasks of a {@link PrioritizedPresenter}. The signal is
+   * subscribed to each time the delegate resumes, and the deferrable tasks are subscribed to once it completes. If the
+   * delegate pauses first, the deferrable tasks are not started. The signal is typically created with
+   * {@link DeferredStartSignals}.
+   * <p>
+   * By default the signal completes immediately, so deferrable tasks start along with the critical tasks.
+   *
+   * @param deferredStartSignal
+   *     the signal, subscribed to on the thread that resumes the delegate
+   */
+  public void setDeferredStartSignal(@NonNull final Completable deferredStartSignal) {
+    this.deferredStartSignal = checkNotNull(deferredStartSignal);
+  }
+
+  /**
+   * Saves the state of the presenter, if it implements {@link StateSavingPresenter}. If the presenter is still being
+   * created, any state passed to {@link #restoreState(byte[])} is returned instead so that it is not lost.
+   * <p>
+   * Call this method from {@link Activity#onSaveInstanceState(android.os.Bundle)} and store the result in the bundle.
+   *
+   * @return the saved state, or null if there is no state to save
+   */
+  @Nullable
+  public byte[] saveState() {
+    if (presenter == null) {
+      return pendingRestoredState;
+    }
+
+    return presenter instanceof StateSavingPresenter ? ((StateSavingPresenter) presenter).saveState() : null;
+  }
+
+  /**
+   * Restores state previously returned by {@link #saveState()}. The state is passed to the presenter if it implements
+   * {@link StateSavingPresenter}. If the presenter is still being created, the state is held until it is ready.
+   * <p>
+   * Call this method before the first call to {@link #onResume()}, passing the state stored in the saved instance
+   * state bundle of the activity.
+   *
+   * @param state
+   *     the state to restore, may be null
+   */
+  public void restoreState(@Nullable final byte[] state) {
+    if (state == null) {
+      return;
+    }
+
+    if (presenter == null) {
+      pendingRestoredState = state;
+    } else {
+      deliverRestoredState(state);
+    }
+  }
+
+  /**
+   * Observes the lifecycle events delivered to this delegate. The most recent event is emitted on subscription.
+   *
+   * @return an observable that emits the lifecycle events
+   */
+  @NonNull
+  public Observable<LifecycleEvent> observeLifecycleEvents() {
+    return lifecycleEvents.hide();
+  }
+
+  /**
+   * @return the presenter, or null if it is still being created
+   */
+  @Nullable
+  public P getPresenter() {
+    return presenter;
+  }
+
+  private void onPresenterReady(final P presenter) {
+    this.presenter = presenter;
+    presenterCreation = null;
+
+    if (pendingRestoredState != null) {
+      deliverRestoredState(pendingRestoredState);
+      pendingRestoredState = null;
+    }
+
+    if (started) {
+      startScopedPresentation();
+    }
+
+    if (resumed) {
+      startPresentation();
+      replayQueuedBackPresses();
+    }
+  }
+
+  private void onPresenterCreationFailed(final Throwable error, final Consumer<? super Throwable> errorHandler)
+      throws Exception {
+
+    presenterCreation = null;
+
+    // Nothing can handle the queued back presses without a presenter
+    queuedBackPresses = 0;
+
+    errorHandler.accept(error);
+  }
+
+  private static void rethrowPresenterCreationError(final Throwable error) {
+    // Crashes the thread unless a global error handler is installed, in which case the handler decides
+    RxJavaPlugins.onError(new IllegalStateException("The presenter factory failed.", error));
+  }
+
+  private void deliverRestoredState(final byte[] state) {
+    if (presenter instanceof StateSavingPresenter) {
+      ((StateSavingPresenter) presenter).restoreState(state);
+    }
+  }
+
+  private void startScopedPresentation() {
+    if (presenter instanceof LifecycleScopedPresenter) {
+      attachViewToPresenter();
+      installProfiler();
+
+      scopedTasks = ((LifecycleScopedPresenter) presenter)
+          .createPresentationTasks(observeLifecycleEvents())
+          .subscribe();
+
+      track("scoped presentation tasks", scopedTasks);
+    }
+  }
+
+  private void startPresentation() {
+    attachViewToPresenter();
+    installProfiler();
+
+    // Scoped presenters run from start to stop, but back actions are still only consumed while resumed
+    final Completable presentationTasks = presenter instanceof LifecycleScopedPresenter
+        ? Completable.complete()
+        : presenter.createPresentationTasks();
+
+    currentTasks = Completable
+        .mergeArray(
+            presentationTasks,
+            savePendingViewBackActions(),
+            savePendingPresentationBackActions(),
+            createDeferrablePresentationTasks())
+        .subscribe();
+
+    track("presentation tasks", currentTasks);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void attachViewToPresenter() {
+    // Another host may have attached its view to a retained presenter since this delegate last started
+    if (presenter instanceof RetainablePresenter) {
+      ((RetainablePresenter<V>) presenter).attachView(view);
+    }
+  }
+
+  private Completable createDeferrablePresentationTasks() {
+    if (!(presenter instanceof PrioritizedPresenter)) {
+      return Completable.complete();
+    }
+
+    final PrioritizedPresenter prioritizedPresenter = (PrioritizedPresenter) presenter;
+
+    // Deferred so the tasks aren't even created until the signal completes
+    return deferredStartSignal.andThen(Completable.defer(prioritizedPresenter::createDeferrablePresentationTasks));
+  }
+
+  private void monitor(final String callback, final Runnable action) {
+    if (watchdog == null) {
+      action.run();
+    } else {
+      watchdog.measure(callback, action);
+    }
+  }
+
+  private void installProfiler() {
+    if (profiler != null && !profilerInstalled) {
+      profiler.install();
+      profilerInstalled = true;
+    }
+  }
+
+  private void uninstallProfilerIfIdle() {
+    if (profilerInstalled && currentTasks == null && scopedTasks == null) {
+      profiler.uninstall();
+      profilerInstalled = false;
+    }
+  }
+
+  private void track(final String description, @Nullable final Disposable subscription) {
+    if (leakTracker != null && subscription != null) {
+      leakTracker.trackSubscription(this, description, subscription);
+    }
+  }
+
+  private void replayQueuedBackPresses() {
+    while (queuedBackPresses > 0) {
+      queuedBackPresses--;
+
+      if (!handleBackPress()) {
+        // The host takes over (and most likely finishes), so the remaining presses are meaningless
+        queuedBackPresses = 0;
+        unhandledBackPressAction.run();
+      }
+    }
+  }
+
+  private boolean handleBackPress() {
     if (currentTasks == null) {
       // Back actions can only be consumed while a presentation task is in progress
       return false;
@@ -146,4 +675,4 @@ public class RxMvpActivityDelegate<V extends RxMvpView, P extends RxMvpPresenter
         .flatMapCompletable(optionalAction ->
             Completable.fromRunnable(() -> pendingPresentationBackAction = optionalAction.orNull()));
   }
-}
\ No newline at end of file
+}
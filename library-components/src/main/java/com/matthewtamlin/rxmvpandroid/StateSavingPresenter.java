@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A presenter that can save its state and restore it after the process is killed. Saved state is stored in the
+ * saved instance state bundle of the host activity, so it should be a compact snapshot of whatever is needed to render
+ * something useful immediately (e.g. the last content shown in the view), rather than a complete copy of the data.
+ */
+public interface StateSavingPresenter extends RxMvpPresenter {
+  /**
+   * Saves the current state of this presenter as a compact binary snapshot. This method is always called on the main
+   * thread.
+   *
+   * @return the saved state, or null if there is nothing worth saving
+   */
+  @Nullable
+  public byte[] saveState();
+
+  /**
+   * Restores state previously returned from {@link #saveState()}. This method is called on the main thread before
+   * presentation tasks are first created, and the presenter should use the state to render immediately while fresh
+   * data loads. Implementations should ignore state that cannot be read, rather than failing.
+   *
+   * @param state
+   *     the saved state
+   */
+  public void restoreState(@NonNull byte[] state);
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import io.reactivex.disposables.Disposable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A debugging aid that records subscriptions made on behalf of a host (normally an {@link RxMvpActivityDelegate}) and
+ * detects those that outlive it. A subscription is leaked if it is still active after its host is destroyed, which
+ * typically means that the host did not forward one of its lifecycle callbacks. The tracker also records objects that
+ * should become unreachable once their host is destroyed, so that tests can check they were released.
+ * <p>
+ * Only weak references are held, so the tracker doesn't cause leaks of its own. Subscriptions that have been garbage
+ * collected are unreachable from any source, so they are never reported as leaks. Retained objects are only released
+ * once the garbage collector runs, so tests should request garbage collection before calling
+ * {@link #getRetainedObjects()}.
+ * <p>
+ * All methods are thread safe.
+ */
+public class SubscriptionLeakTracker {
+  private final List<TrackedSubscription> subscriptions = new ArrayList<>();
+
+  private final List<TrackedObject> destroyedObjects = new ArrayList<>();
+
+  private final List<WeakReference<Object>> destroyedHosts = new ArrayList<>();
+
+  /**
+   * Records a subscription made on behalf of a host.
+   *
+   * @param host
+   *     the host that owns the subscription
+   * @param description
+   *     describes the subscription in leak reports
+   * @param subscription
+   *     the subscription
+   */
+  public synchronized void trackSubscription(
+      @NonNull final Object host,
+      @NonNull final String description,
+      @NonNull final Disposable subscription) {
+
+    subscriptions.add(new TrackedSubscription(
+        checkNotNull(host),
+        checkNotNull(description),
+        checkNotNull(subscription)));
+  }
+
+  /**
+   * Records that a host has been destroyed. From now on, its active subscriptions are reported as leaks.
+   *
+   * @param host
+   *     the destroyed host
+   * @param releasedObjects
+   *     objects that should become unreachable now that the host is destroyed, including the host itself if
+   *     appropriate
+   */
+  public synchronized void onHostDestroyed(@NonNull final Object host, @NonNull final Object... releasedObjects) {
+    destroyedHosts.add(new WeakReference<>(checkNotNull(host)));
+
+    for (final Object releasedObject : releasedObjects) {
+      destroyedObjects.add(new TrackedObject(releasedObject));
+    }
+  }
+
+  /**
+   * @return descriptions of the subscriptions that are still active even though their host was destroyed
+   */
+  @NonNull
+  public synchronized List<String> findLeakedSubscriptions() {
+    final List<String> leaks = new ArrayList<>();
+    final Iterator<TrackedSubscription> iterator = subscriptions.iterator();
+
+    while (iterator.hasNext()) {
+      final TrackedSubscription tracked = iterator.next();
+      final Disposable subscription = tracked.subscription.get();
+
+      if (subscription == null || subscription.isDisposed()) {
+        // Disposed subscriptions can never leak again
+        iterator.remove();
+      } else if (isDestroyed(tracked.host)) {
+        leaks.add(tracked.description + " of " + tracked.hostDescription);
+      }
+    }
+
+    return Collections.unmodifiableList(leaks);
+  }
+
+  /**
+   * Gets the objects that are still reachable even though their host was destroyed. Objects are only released when the
+   * garbage collector runs, so request garbage collection before calling this method.
+   *
+   * @return descriptions of the retained objects
+   */
+  @NonNull
+  public synchronized List<String> getRetainedObjects() {
+    final List<String> retained = new ArrayList<>();
+    final Iterator<TrackedObject> iterator = destroyedObjects.iterator();
+
+    while (iterator.hasNext()) {
+      final TrackedObject tracked = iterator.next();
+
+      if (tracked.object.get() == null) {
+        iterator.remove();
+      } else {
+        retained.add(tracked.description);
+      }
+    }
+
+    return Collections.unmodifiableList(retained);
+  }
+
+  /**
+   * @return the number of objects that are still reachable even though their host was destroyed
+   */
+  public int getRetainedObjectCount() {
+    return getRetainedObjects().size();
+  }
+
+  /**
+   * Fails if any subscription has leaked.
+   *
+   * @throws AssertionError
+   *     if any subscription has leaked
+   */
+  public void assertNoLeakedSubscriptions() {
+    final List<String> leaks = findLeakedSubscriptions();
+
+    if (!leaks.isEmpty()) {
+      throw new AssertionError("Subscriptions outlived their host: " + leaks);
+    }
+  }
+
+  private boolean isDestroyed(final WeakReference<Object> host) {
+    final Object hostObject = host.get();
+
+    if (hostObject == null) {
+      // The host is unreachable, so it must have been destroyed or abandoned
+      return true;
+    }
+
+    for (final WeakReference<Object> destroyedHost : destroyedHosts) {
+      if (destroyedHost.get() == hostObject) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static String describe(final Object object) {
+    return object.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(object));
+  }
+
+  private static class TrackedSubscription {
+    private final WeakReference<Object> host;
+
+    private final String hostDescription;
+
+    private final String description;
+
+    private final WeakReference<Disposable> subscription;
+
+    private TrackedSubscription(final Object host, final String description, final Disposable subscription) {
+      this.host = new WeakReference<>(host);
+      this.hostDescription = describe(host);
+      this.description = description;
+      this.subscription = new WeakReference<>(subscription);
+    }
+  }
+
+  private static class TrackedObject {
+    private final WeakReference<Object> object;
+
+    private final String description;
+
+    private TrackedObject(final Object object) {
+      this.object = new WeakReference<>(checkNotNull(object));
+      this.description = describe(object);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * A {@link FrameClock} driven by a virtual clock, for use in JVM tests where there is no display. Frames are only
+ * produced when {@link #advanceFrame()} is called.
+ */
+public class VirtualFrameClock implements FrameClock {
+  /**
+   * The default frame interval, equivalent to a 60 Hz display.
+   */
+  public static final long DEFAULT_FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+  private final PublishSubject<Long> frames = PublishSubject.create();
+
+  private final long frameIntervalNanos;
+
+  private long frameTimeNanos;
+
+  private int frameCount;
+
+  /**
+   * Constructs a new VirtualFrameClock with the default frame interval.
+   */
+  public VirtualFrameClock() {
+    this(DEFAULT_FRAME_INTERVAL_NANOS);
+  }
+
+  /**
+   * Constructs a new VirtualFrameClock.
+   *
+   * @param frameIntervalNanos
+   *     the virtual time between frames
+   */
+  public VirtualFrameClock(final long frameIntervalNanos) {
+    this.frameIntervalNanos = frameIntervalNanos;
+  }
+
+  @NonNull
+  @Override
+  public Single<Long> observeNextFrame() {
+    return frames.firstOrError();
+  }
+
+  /**
+   * Advances the virtual time by one frame interval and begins a frame, notifying all current subscribers.
+   */
+  public void advanceFrame() {
+    frameTimeNanos += frameIntervalNanos;
+    frameCount++;
+
+    frames.onNext(frameTimeNanos);
+  }
+
+  /**
+   * @return true if at least one subscriber is waiting for the next frame
+   */
+  public boolean hasPendingFrameRequests() {
+    return frames.hasObservers();
+  }
+
+  /**
+   * @return the time of the most recent frame, in nanoseconds
+   */
+  public long getFrameTimeNanos() {
+    return frameTimeNanos;
+  }
+
+  /**
+   * @return the number of frames produced so far
+   */
+  public int getFrameCount() {
+    return frameCount;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestFrameAlignedTransformer {
+  private VirtualFrameClock frameClock;
+
+  private PublishSubject<Integer> upstream;
+
+  private TestObserver<Integer> observer;
+
+  @Before
+  public void setup() {
+    frameClock = new VirtualFrameClock();
+    upstream = PublishSubject.create();
+    observer = upstream.compose(new FrameAlignedTransformer<>(frameClock)).test();
+  }
+
+  @Test
+  public void testNoItems_noFrameRequested() {
+    assertThat(frameClock.hasPendingFrameRequests(), is(false));
+    observer.assertNoValues();
+  }
+
+  @Test
+  public void testOneItem_emittedOnNextFrame() {
+    upstream.onNext(1);
+
+    observer.assertNoValues();
+    assertThat(frameClock.hasPendingFrameRequests(), is(true));
+
+    frameClock.advanceFrame();
+
+    observer.assertValues(1);
+    assertThat(frameClock.hasPendingFrameRequests(), is(false));
+  }
+
+  @Test
+  public void testBurstWithinOneFrame_onlyLatestEmitted() {
+    upstream.onNext(1);
+    upstream.onNext(2);
+    upstream.onNext(3);
+    frameClock.advanceFrame();
+
+    observer.assertValues(3);
+  }
+
+  @Test
+  public void testItemsAcrossSeveralFrames_latestOfEachFrameEmitted() {
+    upstream.onNext(1);
+    upstream.onNext(2);
+    frameClock.advanceFrame();
+    frameClock.advanceFrame();
+    upstream.onNext(3);
+    frameClock.advanceFrame();
+
+    observer.assertValues(2, 3);
+  }
+
+  @Test
+  public void testUpstreamCompletesWithItemWaiting_itemEmittedThenComplete() {
+    upstream.onNext(1);
+    upstream.onComplete();
+
+    observer.assertNotComplete();
+
+    frameClock.advanceFrame();
+
+    observer.assertValues(1);
+    observer.assertComplete();
+  }
+
+  @Test
+  public void testUpstreamCompletesWithNoItemWaiting_completesImmediately() {
+    upstream.onComplete();
+
+    observer.assertComplete();
+  }
+
+  @Test
+  public void testUpstreamErrors_errorPropagatedImmediately() {
+    final RuntimeException error = new RuntimeException();
+
+    upstream.onNext(1);
+    upstream.onError(error);
+
+    observer.assertNoValues();
+    observer.assertError(error);
+  }
+
+  @Test
+  public void testDisposedWithItemWaiting_frameRequestCancelled() {
+    upstream.onNext(1);
+    observer.dispose();
+
+    assertThat(frameClock.hasPendingFrameRequests(), is(false));
+    assertThat(upstream.hasObservers(), is(false));
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.base.Ticker;
+import com.matthewtamlin.rxmvpandroid.FrameBudgetWatchdog.Violation;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestDataSource;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestPresenter;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestView;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TestFrameBudgetWatchdog {
+  private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+  private long nowNanos;
+
+  private TestScheduler samplingScheduler;
+
+  private FrameBudgetWatchdog watchdog;
+
+  @Before
+  public void setup() {
+    samplingScheduler = new TestScheduler();
+
+    watchdog = new FrameBudgetWatchdog(16, TimeUnit.MILLISECONDS, new Ticker() {
+      @Override
+      public long read() {
+        return nowNanos;
+      }
+    }, samplingScheduler);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_negativeBudget() {
+    new FrameBudgetWatchdog(-1, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void testMeasure_withinBudget() {
+    watchdog.measure("callback", () -> nowNanos += BUDGET_NANOS);
+
+    assertThat(watchdog.getViolations().isEmpty(), is(true));
+    watchdog.assertNoViolations();
+  }
+
+  @Test
+  public void testMeasure_overBudget_violationRecorded() {
+    watchdog.measure("callback", () -> nowNanos += BUDGET_NANOS + 1);
+
+    final List<Violation> violations = watchdog.getViolations();
+
+    assertThat(violations.size(), is(1));
+    assertThat(violations.get(0).getDescription(), is("callback"));
+    assertThat(violations.get(0).getDurationNanos(), is(BUDGET_NANOS + 1));
+  }
+
+  @Test
+  public void testMeasure_overBudgetWhenSampled_sampledStackRecorded() {
+    watchdog.measure("callback", this::runSlowWork);
+
+    assertThat(containsFrame(watchdog.getViolations().get(0).getStackTrace(), "runSlowWork"), is(true));
+  }
+
+  @Test
+  public void testMeasureAndReturn_valueReturned() {
+    assertThat(watchdog.measureAndReturn("callback", () -> "value"), is("value"));
+  }
+
+  @Test
+  public void testMeasure_callbackThrows_violationStillRecorded() {
+    try {
+      watchdog.measure("callback", () -> {
+        nowNanos += BUDGET_NANOS + 1;
+        throw new IllegalStateException();
+      });
+    } catch (final IllegalStateException e) {
+      // Expected
+    }
+
+    assertThat(watchdog.getViolations().size(), is(1));
+  }
+
+  @Test(expected = AssertionError.class)
+  public void testAssertNoViolations_overBudget() {
+    watchdog.measure("callback", () -> nowNanos += BUDGET_NANOS + 1);
+    watchdog.assertNoViolations();
+  }
+
+  @Test
+  public void testClearViolations() {
+    watchdog.measure("callback", () -> nowNanos += BUDGET_NANOS + 1);
+    watchdog.clearViolations();
+
+    watchdog.assertNoViolations();
+  }
+
+  @Test
+  public void testDelegate_slowPresentationTaskCreation_onResumeViolationRecorded() {
+    final TestView view = new TestView();
+    final TestPresenter slowPresenter = new TestPresenter(view, mock(TestDataSource.class)) {
+      @NonNull
+      @Override
+      public Completable createPresentationTasks() {
+        nowNanos += BUDGET_NANOS + 1;
+        return super.createPresentationTasks();
+      }
+    };
+
+    final RxMvpActivityDelegate<TestView, TestPresenter> delegate = new RxMvpActivityDelegate<>(view, slowPresenter);
+    delegate.setFrameBudgetWatchdog(watchdog);
+
+    delegate.onResume();
+    delegate.onPause();
+
+    assertThat(watchdog.getViolations().size(), is(1));
+    assertThat(watchdog.getViolations().get(0).getDescription(), is("onResume"));
+  }
+
+  private void runSlowWork() {
+    nowNanos += BUDGET_NANOS + 1;
+
+    // Stands in for the main thread still running when the sampling scheduler fires
+    samplingScheduler.advanceTimeBy(BUDGET_NANOS + 1, TimeUnit.NANOSECONDS);
+  }
+
+  private static boolean containsFrame(final StackTraceElement[] stackTrace, final String methodName) {
+    for (final StackTraceElement element : stackTrace) {
+      if (element.getMethodName().equals(methodName)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
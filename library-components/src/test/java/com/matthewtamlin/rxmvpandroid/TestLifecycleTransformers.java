@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.CompletableSubject;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestLifecycleTransformers {
+  private BehaviorSubject<LifecycleEvent> lifecycleEvents;
+
+  private PublishSubject<String> upstream;
+
+  @Before
+  public void setup() {
+    lifecycleEvents = BehaviorSubject.create();
+    upstream = PublishSubject.create();
+  }
+
+  @Test
+  public void testBindUntilEvent_observable_eventNotOccurred() {
+    lifecycleEvents.onNext(LifecycleEvent.RESUME);
+
+    final TestObserver<String> observer = upstream
+        .compose(LifecycleTransformers.<String>bindUntilEvent(lifecycleEvents, LifecycleEvent.PAUSE))
+        .test();
+
+    upstream.onNext("a");
+
+    observer.assertValues("a").assertNotComplete();
+  }
+
+  @Test
+  public void testBindUntilEvent_observable_eventOccurs() {
+    lifecycleEvents.onNext(LifecycleEvent.RESUME);
+
+    final TestObserver<String> observer = upstream
+        .compose(LifecycleTransformers.<String>bindUntilEvent(lifecycleEvents, LifecycleEvent.PAUSE))
+        .test();
+
+    lifecycleEvents.onNext(LifecycleEvent.PAUSE);
+    upstream.onNext("a");
+
+    observer.assertNoValues().assertComplete();
+    assertThat(upstream.hasObservers(), is(false));
+  }
+
+  @Test
+  public void testBindUntilEvent_observable_eventIsMostRecent() {
+    lifecycleEvents.onNext(LifecycleEvent.PAUSE);
+
+    upstream
+        .compose(LifecycleTransformers.<String>bindUntilEvent(lifecycleEvents, LifecycleEvent.PAUSE))
+        .test()
+        .assertComplete();
+  }
+
+  @Test
+  public void testBindUntilEvent_completable_eventOccurs() {
+    final CompletableSubject completableUpstream = CompletableSubject.create();
+    lifecycleEvents.onNext(LifecycleEvent.START);
+
+    final TestObserver<Void> observer = completableUpstream
+        .compose(LifecycleTransformers.bindUntilEvent(lifecycleEvents, LifecycleEvent.STOP))
+        .test();
+
+    observer.assertNotComplete();
+
+    lifecycleEvents.onNext(LifecycleEvent.STOP);
+
+    observer.assertComplete();
+    assertThat(completableUpstream.hasObservers(), is(false));
+  }
+
+  @Test
+  public void testWhileResumed_observable_suspendedWhilePaused() {
+    lifecycleEvents.onNext(LifecycleEvent.START);
+
+    final TestObserver<String> observer = upstream
+        .compose(LifecycleTransformers.<String>whileResumed(lifecycleEvents))
+        .test();
+
+    upstream.onNext("a");
+    lifecycleEvents.onNext(LifecycleEvent.RESUME);
+    upstream.onNext("b");
+    lifecycleEvents.onNext(LifecycleEvent.PAUSE);
+    upstream.onNext("c");
+    lifecycleEvents.onNext(LifecycleEvent.RESUME);
+    upstream.onNext("d");
+
+    observer.assertValues("b", "d").assertNotComplete();
+  }
+
+  @Test
+  public void testWhileStarted_observable_runsWhilePaused() {
+    lifecycleEvents.onNext(LifecycleEvent.RESUME);
+
+    final TestObserver<String> observer = upstream
+        .compose(LifecycleTransformers.<String>whileStarted(lifecycleEvents))
+        .test();
+
+    upstream.onNext("a");
+    lifecycleEvents.onNext(LifecycleEvent.PAUSE);
+    upstream.onNext("b");
+    lifecycleEvents.onNext(LifecycleEvent.STOP);
+    upstream.onNext("c");
+
+    observer.assertValues("a", "b");
+    assertThat(upstream.hasObservers(), is(false));
+  }
+
+  @Test
+  public void testWhileStarted_completable_resubscribedOnRestart() {
+    final AtomicInteger subscriptionCount = new AtomicInteger();
+    final Completable completableUpstream = Completable
+        .never()
+        .doOnSubscribe(disposable -> subscriptionCount.incrementAndGet());
+
+    lifecycleEvents.onNext(LifecycleEvent.START);
+
+    completableUpstream
+        .compose(LifecycleTransformers.whileStarted(lifecycleEvents))
+        .test();
+
+    lifecycleEvents.onNext(LifecycleEvent.STOP);
+    lifecycleEvents.onNext(LifecycleEvent.START);
+
+    assertThat(subscriptionCount.get(), is(2));
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestDataSource;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestPresenter;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TestPipelineProfiler {
+  private long nowNanos;
+
+  private PipelineProfiler profiler;
+
+  @Before
+  public void setup() {
+    profiler = new PipelineProfiler(new Ticker() {
+      @Override
+      public long read() {
+        return nowNanos;
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    profiler.uninstall();
+    RxJavaPlugins.reset();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testInstall_anotherProfilerInstalled() {
+    profiler.install();
+    new PipelineProfiler().install();
+  }
+
+  @Test
+  public void testUninstall_previousHooksRestored() {
+    final Function<Observable, Observable> previousHook = observable -> observable;
+    RxJavaPlugins.setOnObservableAssembly(previousHook);
+
+    profiler.install();
+    profiler.uninstall();
+
+    assertThat(RxJavaPlugins.getOnObservableAssembly(), is(sameInstance(previousHook)));
+    assertThat(RxJavaPlugins.getOnSingleAssembly(), is(nullValue()));
+    assertThat(RxJavaPlugins.getOnCompletableAssembly(), is(nullValue()));
+  }
+
+  @Test
+  public void testInstall_previousHookStillApplied() {
+    final AtomicInteger previousHookCalls = new AtomicInteger();
+
+    RxJavaPlugins.setOnObservableAssembly(observable -> {
+      previousHookCalls.incrementAndGet();
+      return observable;
+    });
+
+    profiler.install();
+    Observable.just(1).map(item -> item);
+
+    assertThat(previousHookCalls.get(), is(2));
+  }
+
+  @Test
+  public void testObservable_eventCountsAndSelfTimesAttributedToConsumingStages() {
+    profiler.install();
+
+    final Observable<Integer> pipeline = Observable
+        .just(1, 2, 3)
+        .map(item -> {
+          nowNanos += 10;
+          return item;
+        });
+
+    profiler.uninstall();
+
+    pipeline.subscribe(item -> nowNanos += 5);
+
+    final String mapStage = findStage("ObservableMap at ");
+    final String subscriberStage = findStage("LambdaObserver");
+
+    assertThat(mapStage, containsString(TestPipelineProfiler.class.getSimpleName()));
+    assertThat(profiler.getEventCounts().get(mapStage), is(3L));
+    assertThat(profiler.getSelfTimesNanos().get(mapStage), is(30L));
+    assertThat(profiler.getEventCounts().get(subscriberStage), is(3L));
+    assertThat(profiler.getSelfTimesNanos().get(subscriberStage), is(15L));
+  }
+
+  @Test
+  public void testObservable_fusableChainWithObserveOn_eventsAttributedToEveryStage() {
+    final TestScheduler scheduler = new TestScheduler();
+
+    profiler.install();
+
+    Observable
+        .fromIterable(ImmutableList.of(1, 2, 3))
+        .map(item -> {
+          nowNanos += 10;
+          return item;
+        })
+        .observeOn(scheduler)
+        .subscribe();
+
+    scheduler.triggerActions();
+
+    assertThat(profiler.getEventCounts().get(findStage("ObservableMap at ")), is(3L));
+    assertThat(profiler.getSelfTimesNanos().get(findStage("ObservableMap at ")), is(30L));
+    assertThat(profiler.getEventCounts().get(findStage("ObservableObserveOn at ")), is(3L));
+  }
+
+  @Test
+  public void testObservable_sourceFusableWithObserveOn_eventsStillDelivered() {
+    final TestScheduler scheduler = new TestScheduler();
+
+    profiler.install();
+
+    final TestObserver<Integer> observer = Observable
+        .fromIterable(ImmutableList.of(1, 2, 3))
+        .observeOn(scheduler)
+        .test();
+
+    scheduler.triggerActions();
+
+    observer.assertValues(1, 2, 3);
+    assertThat(profiler.getEventCounts().get(findStage("ObservableObserveOn at ")), is(3L));
+  }
+
+  @Test
+  public void testObservable_chainFusableWithConcatMap_eventsAttributedToEveryStage() {
+    profiler.install();
+
+    Observable
+        .fromIterable(ImmutableList.of(1, 2, 3))
+        .map(item -> {
+          nowNanos += 10;
+          return item;
+        })
+        .concatMap(Observable::just)
+        .subscribe();
+
+    assertThat(profiler.getEventCounts().get(findStage("ObservableMap at ")), is(3L));
+    assertThat(profiler.getSelfTimesNanos().get(findStage("ObservableMap at ")), is(30L));
+    assertThat(profiler.getEventCounts().get(findStage("ObservableConcatMap at ")), is(3L));
+  }
+
+  @Test
+  public void testSingle_successAttributedToConsumingStage() {
+    profiler.install();
+
+    Single
+        .just(1)
+        .map(item -> {
+          nowNanos += 10;
+          return item;
+        })
+        .subscribe();
+
+    final String mapStage = findStage("SingleMap at ");
+
+    assertThat(profiler.getEventCounts().get(mapStage), is(1L));
+    assertThat(profiler.getSelfTimesNanos().get(mapStage), is(10L));
+  }
+
+  @Test
+  public void testCompletable_completionAttributedToConsumingStage() {
+    profiler.install();
+
+    Completable
+        .complete()
+        .doOnComplete(() -> nowNanos += 7)
+        .subscribe();
+
+    final String peekStage = findStage("CompletablePeek at ");
+
+    assertThat(profiler.getEventCounts().get(peekStage), is(1L));
+    assertThat(profiler.getSelfTimesNanos().get(peekStage), is(7L));
+  }
+
+  @Test
+  public void testUninstall_laterPipelinesNotProfiled() {
+    profiler.install();
+    profiler.uninstall();
+
+    Observable.just(1).map(item -> item).subscribe();
+
+    assertThat(profiler.getEventCounts().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testReset_countsAndTimesCleared() {
+    profiler.install();
+
+    Observable.just(1).map(item -> nowNanos += 10).subscribe();
+    profiler.reset();
+
+    assertThat(profiler.getEventCounts().get(findStage("ObservableMap at ")), is(0L));
+    assertThat(profiler.getSelfTimesNanos().get(findStage("ObservableMap at ")), is(0L));
+    assertThat(profiler.getReport(), is(notNullValue()));
+  }
+
+  @Test
+  public void testGetReport_containsProfiledStages() {
+    profiler.install();
+
+    Observable.just(1).map(item -> item).subscribe();
+
+    assertThat(profiler.getReport(), containsString("ObservableMap at "));
+  }
+
+  @Test
+  public void testDelegate_profilerInstalledOnlyWhileResumed() {
+    final TestView view = new TestView();
+    final RxMvpActivityDelegate<TestView, TestPresenter> delegate = new RxMvpActivityDelegate<>(
+        view,
+        new TestPresenter(view, mock(TestDataSource.class)));
+
+    delegate.setPipelineProfiler(profiler);
+
+    assertThat(RxJavaPlugins.getOnObservableAssembly(), is(nullValue()));
+
+    delegate.onResume();
+
+    assertThat(RxJavaPlugins.getOnObservableAssembly(), is(notNullValue()));
+
+    view.label.onNext("test");
+    delegate.onPause();
+
+    assertThat(RxJavaPlugins.getOnObservableAssembly(), is(nullValue()));
+    assertThat(profiler.getEventCounts().isEmpty(), is(false));
+  }
+
+  private String findStage(final String fragment) {
+    for (final Map.Entry<String, Long> entry : profiler.getEventCounts().entrySet()) {
+      if (entry.getKey().contains(fragment)) {
+        return entry.getKey();
+      }
+    }
+
+    throw new AssertionError("No stage matches " + fragment);
+  }
+}
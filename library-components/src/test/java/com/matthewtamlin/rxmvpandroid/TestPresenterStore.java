@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TestPresenterStore {
+  private RxMvpPresenter presenter1;
+
+  private RxMvpPresenter presenter2;
+
+  private RxMvpPresenter presenter3;
+
+  private PresenterStore store;
+
+  @Before
+  public void setup() {
+    presenter1 = mock(RxMvpPresenter.class);
+    presenter2 = mock(RxMvpPresenter.class);
+    presenter3 = mock(RxMvpPresenter.class);
+
+    store = new PresenterStore(2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_zeroMaxSize() {
+    new PresenterStore(0);
+  }
+
+  @Test
+  public void testGet_keyNeverStored() {
+    assertThat(store.get("1"), is(nullValue()));
+  }
+
+  @Test
+  public void testGet_keyStored() {
+    store.put("1", presenter1);
+
+    assertThat(store.get("1"), is(sameInstance(presenter1)));
+  }
+
+  @Test
+  public void testPut_keyAlreadyStored() {
+    store.put("1", presenter1);
+    store.put("1", presenter2);
+
+    assertThat(store.get("1"), is(sameInstance(presenter2)));
+    assertThat(store.size(), is(1));
+  }
+
+  @Test
+  public void testPut_maxSizeExceeded_leastRecentlyStoredEvicted() {
+    store.put("1", presenter1);
+    store.put("2", presenter2);
+    store.put("3", presenter3);
+
+    assertThat(store.get("1"), is(nullValue()));
+    assertThat(store.get("2"), is(sameInstance(presenter2)));
+    assertThat(store.get("3"), is(sameInstance(presenter3)));
+  }
+
+  @Test
+  public void testPut_maxSizeExceededAfterGet_leastRecentlyUsedEvicted() {
+    store.put("1", presenter1);
+    store.put("2", presenter2);
+    store.get("1");
+    store.put("3", presenter3);
+
+    assertThat(store.get("1"), is(sameInstance(presenter1)));
+    assertThat(store.get("2"), is(nullValue()));
+    assertThat(store.get("3"), is(sameInstance(presenter3)));
+  }
+
+  @Test
+  public void testRemove() {
+    store.put("1", presenter1);
+
+    assertThat(store.remove("1"), is(sameInstance(presenter1)));
+    assertThat(store.get("1"), is(nullValue()));
+  }
+
+  @Test
+  public void testSetMaxSize_smallerThanSize_leastRecentlyUsedEvicted() {
+    store.put("1", presenter1);
+    store.put("2", presenter2);
+    store.setMaxSize(1);
+
+    assertThat(store.get("1"), is(nullValue()));
+    assertThat(store.get("2"), is(sameInstance(presenter2)));
+  }
+
+  @Test
+  public void testOnTrimMemory_uiHidden_nothingEvicted() {
+    store.put("1", presenter1);
+    store.put("2", presenter2);
+    store.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(store.size(), is(2));
+  }
+
+  @Test
+  public void testOnTrimMemory_background_halfEvicted() {
+    store.put("1", presenter1);
+    store.put("2", presenter2);
+    store.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+    store.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertThat(store.size(), is(1));
+    assertThat(store.get("2"), is(sameInstance(presenter2)));
+  }
+
+  @Test
+  public void testOnTrimMemory_complete_allEvicted() {
+    store.put("1", presenter1);
+    store.put("2", presenter2);
+    store.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+    assertThat(store.size(), is(0));
+  }
+
+  @Test
+  public void testOnLowMemory_allEvicted() {
+    store.put("1", presenter1);
+    store.put("2", presenter2);
+    store.onLowMemory();
+
+    assertThat(store.size(), is(0));
+  }
+}
@@ -26,12 +26,22 @@ import org.junit.Test;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.reactivex.Completable;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.CompletableSubject;
 import io.reactivex.subjects.PublishSubject;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -111,6 +121,16 @@ public class TestRxMvpActivityDelegate {
     verify(dataSource, times(1)).saveText("test");
   }
 
+  @Test
+  public void testOngoingPresentationTaskSubscription_destroyedWithoutPause() {
+    delegate.onResume();
+    delegate.onDestroy();
+
+    view.label.onNext("test");
+
+    verify(dataSource, never()).saveText(any());
+  }
+
   @Test
   public void testOnBackPressed_neverResumed_noPendingBackActionsEmitted() {
     final boolean handledByDelegate = delegate.onBackPressed();
@@ -599,6 +619,537 @@ public class TestRxMvpActivityDelegate {
     assertThat(presenterBackActionExecutedCount.get(), is(1));
   }
 
+  @Test
+  public void testAsyncPresenter_presenterNotReady_presentationTaskNotSubscribed() {
+    final TestScheduler scheduler = new TestScheduler();
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = createAsyncDelegate(scheduler, () -> {});
+
+    asyncDelegate.onResume();
+
+    view.label.onNext("test");
+
+    verify(dataSource, never()).saveText(any());
+    assertThat(asyncDelegate.getPresenter(), is(nullValue()));
+  }
+
+  @Test
+  public void testAsyncPresenter_resumedThenPresenterReady_presentationTaskSubscribed() {
+    final TestScheduler scheduler = new TestScheduler();
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = createAsyncDelegate(scheduler, () -> {});
+
+    asyncDelegate.onResume();
+    scheduler.triggerActions();
+
+    view.label.onNext("test");
+
+    verify(dataSource, times(1)).saveText("test");
+    assertThat(asyncDelegate.getPresenter(), is(sameInstance(presenter)));
+  }
+
+  @Test
+  public void testAsyncPresenter_resumedPausedThenPresenterReady_presentationTaskNotSubscribed() {
+    final TestScheduler scheduler = new TestScheduler();
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = createAsyncDelegate(scheduler, () -> {});
+
+    asyncDelegate.onResume();
+    asyncDelegate.onPause();
+    scheduler.triggerActions();
+
+    view.label.onNext("test");
+
+    verify(dataSource, never()).saveText(any());
+  }
+
+  @Test
+  public void testAsyncPresenter_presenterReadyThenResumed_presentationTaskSubscribed() {
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = createAsyncDelegate(
+        Schedulers.trampoline(),
+        () -> {});
+
+    asyncDelegate.onResume();
+
+    view.label.onNext("test");
+
+    verify(dataSource, times(1)).saveText("test");
+  }
+
+  @Test
+  public void testAsyncPresenter_destroyedBeforePresenterReady_presenterNeverDelivered() {
+    final TestScheduler scheduler = new TestScheduler();
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = createAsyncDelegate(scheduler, () -> {});
+
+    asyncDelegate.onResume();
+    asyncDelegate.onDestroy();
+    scheduler.triggerActions();
+
+    assertThat(asyncDelegate.getPresenter(), is(nullValue()));
+  }
+
+  @Test
+  public void testAsyncPresenter_factoryFails_errorPassedToHandler() {
+    final TestScheduler scheduler = new TestScheduler();
+    final RuntimeException factoryError = new RuntimeException("factory failed");
+    final AtomicReference<Throwable> handledError = new AtomicReference<>();
+    final AtomicReference<Throwable> globalError = new AtomicReference<>();
+
+    RxJavaPlugins.setErrorHandler(globalError::set);
+
+    try {
+      final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = new RxMvpActivityDelegate<>(
+          view,
+          () -> {
+            throw factoryError;
+          },
+          scheduler,
+          scheduler,
+          () -> {},
+          handledError::set);
+
+      asyncDelegate.onResume();
+      asyncDelegate.onBackPressed();
+      scheduler.triggerActions();
+
+      assertThat(handledError.get(), is(sameInstance(factoryError)));
+      assertThat(globalError.get(), is(nullValue()));
+      assertThat(asyncDelegate.getPresenter(), is(nullValue()));
+    } finally {
+      RxJavaPlugins.reset();
+    }
+  }
+
+  @Test
+  public void testAsyncPresenter_factoryFailsWithoutHandler_errorRethrownOnMainSchedulerThread() {
+    final RuntimeException factoryError = new RuntimeException("factory failed");
+    final AtomicReference<Throwable> uncaughtError = new AtomicReference<>();
+
+    final Thread thread = Thread.currentThread();
+    final Thread.UncaughtExceptionHandler originalHandler = thread.getUncaughtExceptionHandler();
+
+    thread.setUncaughtExceptionHandler((failedThread, error) -> uncaughtError.set(error));
+
+    try {
+      new RxMvpActivityDelegate<TestView, TestPresenter>(
+          view,
+          () -> {
+            throw factoryError;
+          },
+          Schedulers.trampoline(),
+          Schedulers.trampoline(),
+          () -> {});
+    } finally {
+      thread.setUncaughtExceptionHandler(originalHandler);
+    }
+
+    assertThat(uncaughtError.get(), is(instanceOf(IllegalStateException.class)));
+    assertThat(uncaughtError.get().getCause(), is(sameInstance(factoryError)));
+  }
+
+  @Test
+  public void testAsyncPresenter_factoryFailsWithoutHandler_wrappedErrorPassedToGlobalErrorHandler() {
+    final RuntimeException factoryError = new RuntimeException("factory failed");
+    final AtomicReference<Throwable> globalError = new AtomicReference<>();
+
+    RxJavaPlugins.setErrorHandler(globalError::set);
+
+    try {
+      new RxMvpActivityDelegate<TestView, TestPresenter>(
+          view,
+          () -> {
+            throw factoryError;
+          },
+          Schedulers.trampoline(),
+          Schedulers.trampoline(),
+          () -> {});
+    } finally {
+      RxJavaPlugins.reset();
+    }
+
+    assertThat(globalError.get(), is(instanceOf(IllegalStateException.class)));
+    assertThat(globalError.get().getCause(), is(sameInstance(factoryError)));
+  }
+
+  @Test
+  public void testAsyncPresenter_backPressedBeforePresenterReady_backPressQueuedThenHandledByView() {
+    final TestScheduler scheduler = new TestScheduler();
+    final AtomicInteger unhandledBackPressCount = new AtomicInteger(0);
+
+    final AtomicBoolean backActionExecuted = new AtomicBoolean(false);
+    final Completable backAction = Completable.fromRunnable(() -> backActionExecuted.set(true));
+
+    final TestView viewWithBackAction = new TestView() {
+      @NonNull
+      @Override
+      public Observable<Optional<Completable>> observePendingBackActions() {
+        return Observable.just(Optional.of(backAction));
+      }
+    };
+
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = new RxMvpActivityDelegate<>(
+        viewWithBackAction,
+        () -> presenter,
+        scheduler,
+        scheduler,
+        unhandledBackPressCount::incrementAndGet);
+
+    asyncDelegate.onResume();
+
+    final boolean handledByDelegate = asyncDelegate.onBackPressed();
+
+    assertThat(handledByDelegate, is(true));
+    assertThat(backActionExecuted.get(), is(false));
+
+    scheduler.triggerActions();
+
+    assertThat(backActionExecuted.get(), is(true));
+    assertThat(unhandledBackPressCount.get(), is(0));
+  }
+
+  @Test
+  public void testAsyncPresenter_backPressedTwiceBeforePresenterReady_unhandledBackPressExecutedOnce() {
+    final TestScheduler scheduler = new TestScheduler();
+    final AtomicInteger unhandledBackPressCount = new AtomicInteger(0);
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = createAsyncDelegate(
+        scheduler,
+        unhandledBackPressCount::incrementAndGet);
+
+    asyncDelegate.onResume();
+    asyncDelegate.onBackPressed();
+    asyncDelegate.onBackPressed();
+    scheduler.triggerActions();
+
+    assertThat(unhandledBackPressCount.get(), is(1));
+  }
+
+  @Test
+  public void testAsyncPresenter_backPressedWhilePaused_notQueued() {
+    final TestScheduler scheduler = new TestScheduler();
+    final AtomicInteger unhandledBackPressCount = new AtomicInteger(0);
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = createAsyncDelegate(
+        scheduler,
+        unhandledBackPressCount::incrementAndGet);
+
+    final boolean handledByDelegate = asyncDelegate.onBackPressed();
+    asyncDelegate.onResume();
+    scheduler.triggerActions();
+
+    assertThat(handledByDelegate, is(false));
+    assertThat(unhandledBackPressCount.get(), is(0));
+  }
+
+  @Test
+  public void testSaveState_presenterDoesNotSaveState() {
+    assertThat(delegate.saveState(), is(nullValue()));
+  }
+
+  @Test
+  public void testSaveState_presenterSavesState() {
+    final TestStateSavingPresenter stateSavingPresenter = new TestStateSavingPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> stateSavingDelegate = new RxMvpActivityDelegate<>(
+        view,
+        stateSavingPresenter);
+
+    stateSavingPresenter.state = new byte[]{1, 2, 3};
+
+    assertThat(stateSavingDelegate.saveState(), is(new byte[]{1, 2, 3}));
+  }
+
+  @Test
+  public void testRestoreState_presenterSavesState_stateDelivered() {
+    final TestStateSavingPresenter stateSavingPresenter = new TestStateSavingPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> stateSavingDelegate = new RxMvpActivityDelegate<>(
+        view,
+        stateSavingPresenter);
+
+    stateSavingDelegate.restoreState(new byte[]{1, 2, 3});
+
+    assertThat(stateSavingPresenter.state, is(new byte[]{1, 2, 3}));
+  }
+
+  @Test
+  public void testRestoreState_asyncPresenterNotReady_stateHeldUntilReady() {
+    final TestScheduler scheduler = new TestScheduler();
+    final TestStateSavingPresenter stateSavingPresenter = new TestStateSavingPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = new RxMvpActivityDelegate<>(
+        view,
+        () -> stateSavingPresenter,
+        scheduler,
+        scheduler,
+        () -> {});
+
+    asyncDelegate.restoreState(new byte[]{1, 2, 3});
+
+    assertThat(stateSavingPresenter.state, is(nullValue()));
+    assertThat(asyncDelegate.saveState(), is(new byte[]{1, 2, 3}));
+
+    scheduler.triggerActions();
+
+    assertThat(stateSavingPresenter.state, is(new byte[]{1, 2, 3}));
+  }
+
+  @Test
+  public void testObserveLifecycleEvents_mostRecentEventReplayed() {
+    delegate.onStart();
+    delegate.onResume();
+
+    delegate
+        .observeLifecycleEvents()
+        .test()
+        .assertValues(LifecycleEvent.RESUME);
+  }
+
+  @Test
+  public void testObserveLifecycleEvents_pauseAndStopOnlyEmittedAfterResumeAndStart() {
+    final TestObserver<LifecycleEvent> observer = delegate.observeLifecycleEvents().test();
+
+    delegate.onPause();
+    delegate.onStop();
+    delegate.onStart();
+    delegate.onResume();
+    delegate.onPause();
+    delegate.onStop();
+    delegate.onDestroy();
+
+    observer.assertValues(
+        LifecycleEvent.START,
+        LifecycleEvent.RESUME,
+        LifecycleEvent.PAUSE,
+        LifecycleEvent.STOP,
+        LifecycleEvent.DESTROY);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testOnStart_calledTwiceContiguously() {
+    delegate.onStart();
+    delegate.onStart();
+  }
+
+  @Test
+  public void testOnStart_presenterNotScoped_presentationNotStarted() {
+    delegate.onStart();
+
+    view.label.onNext("test");
+
+    verify(dataSource, never()).saveText(any());
+  }
+
+  @Test
+  public void testOnStart_presenterScoped_presentationStarted() {
+    final TestLifecycleScopedPresenter scopedPresenter = new TestLifecycleScopedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> scopedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        scopedPresenter);
+
+    scopedDelegate.onStart();
+
+    view.label.onNext("test");
+
+    verify(dataSource, times(1)).saveText("test");
+    assertThat(scopedPresenter.lastLifecycleEvent, is(LifecycleEvent.START));
+  }
+
+  @Test
+  public void testOnPause_presenterScoped_presentationContinues() {
+    final TestLifecycleScopedPresenter scopedPresenter = new TestLifecycleScopedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> scopedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        scopedPresenter);
+
+    scopedDelegate.onStart();
+    scopedDelegate.onResume();
+    scopedDelegate.onPause();
+
+    view.label.onNext("test");
+
+    verify(dataSource, times(1)).saveText("test");
+    assertThat(scopedPresenter.lastLifecycleEvent, is(LifecycleEvent.PAUSE));
+  }
+
+  @Test
+  public void testOnStop_presenterScoped_presentationStopped() {
+    final TestLifecycleScopedPresenter scopedPresenter = new TestLifecycleScopedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> scopedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        scopedPresenter);
+
+    scopedDelegate.onStart();
+    scopedDelegate.onStop();
+
+    view.label.onNext("test");
+
+    verify(dataSource, never()).saveText(any());
+  }
+
+  @Test
+  public void testOnStart_asyncScopedPresenterNotReady_presentationStartedWhenReady() {
+    final TestScheduler scheduler = new TestScheduler();
+    final TestLifecycleScopedPresenter scopedPresenter = new TestLifecycleScopedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> asyncDelegate = new RxMvpActivityDelegate<>(
+        view,
+        () -> scopedPresenter,
+        scheduler,
+        scheduler,
+        () -> {});
+
+    asyncDelegate.onStart();
+    scheduler.triggerActions();
+
+    view.label.onNext("test");
+
+    verify(dataSource, times(1)).saveText("test");
+  }
+
+  @Test
+  public void testOnResume_prioritizedPresenterWithDefaultSignal_deferrableTasksStartedImmediately() {
+    final TestPrioritizedPresenter prioritizedPresenter = new TestPrioritizedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> prioritizedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        prioritizedPresenter);
+
+    prioritizedDelegate.onResume();
+
+    assertThat(prioritizedPresenter.deferrableTaskSubscriptions.get(), is(1));
+  }
+
+  @Test
+  public void testOnResume_prioritizedPresenterSignalPending_onlyCriticalTasksStarted() {
+    final TestPrioritizedPresenter prioritizedPresenter = new TestPrioritizedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> prioritizedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        prioritizedPresenter);
+
+    prioritizedDelegate.setDeferredStartSignal(CompletableSubject.create());
+    prioritizedDelegate.onResume();
+
+    view.label.onNext("test");
+
+    verify(dataSource, times(1)).saveText("test");
+    assertThat(prioritizedPresenter.deferrableTaskSubscriptions.get(), is(0));
+  }
+
+  @Test
+  public void testOnResume_prioritizedPresenterSignalCompleted_deferrableTasksStarted() {
+    final TestPrioritizedPresenter prioritizedPresenter = new TestPrioritizedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> prioritizedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        prioritizedPresenter);
+    final CompletableSubject signal = CompletableSubject.create();
+
+    prioritizedDelegate.setDeferredStartSignal(signal);
+    prioritizedDelegate.onResume();
+    signal.onComplete();
+
+    assertThat(prioritizedPresenter.deferrableTaskSubscriptions.get(), is(1));
+  }
+
+  @Test
+  public void testOnPause_prioritizedPresenterSignalPending_deferrableTasksNeverStarted() {
+    final TestPrioritizedPresenter prioritizedPresenter = new TestPrioritizedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> prioritizedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        prioritizedPresenter);
+    final CompletableSubject signal = CompletableSubject.create();
+
+    prioritizedDelegate.setDeferredStartSignal(signal);
+    prioritizedDelegate.onResume();
+    prioritizedDelegate.onPause();
+
+    assertThat(signal.hasObservers(), is(false));
+    assertThat(prioritizedPresenter.deferrableTaskSubscriptions.get(), is(0));
+  }
+
+  @Test
+  public void testOnPause_prioritizedPresenterDeferrableTasksStarted_deferrableTasksDisposed() {
+    final TestPrioritizedPresenter prioritizedPresenter = new TestPrioritizedPresenter(view, dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> prioritizedDelegate = new RxMvpActivityDelegate<>(
+        view,
+        prioritizedPresenter);
+
+    prioritizedDelegate.onResume();
+    prioritizedDelegate.onPause();
+
+    assertThat(prioritizedPresenter.deferrableTasks.hasObservers(), is(false));
+  }
+
+  @Test
+  public void testOnResume_retainablePresenter_viewAttached() {
+    final TestRetainablePresenter retainablePresenter = new TestRetainablePresenter(dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> retainingDelegate = new RxMvpActivityDelegate<>(
+        view,
+        retainablePresenter);
+
+    retainingDelegate.onResume();
+
+    assertThat(retainablePresenter.attachedView, is(sameInstance(view)));
+  }
+
+  @Test
+  public void testOnDestroy_retainablePresenterStillAttachedToView_viewDetached() {
+    final TestRetainablePresenter retainablePresenter = new TestRetainablePresenter(dataSource);
+    final RxMvpActivityDelegate<TestView, TestPresenter> retainingDelegate = new RxMvpActivityDelegate<>(
+        view,
+        retainablePresenter);
+
+    retainingDelegate.onResume();
+    retainingDelegate.onPause();
+    retainingDelegate.onDestroy();
+
+    assertThat(retainablePresenter.attachedView, is(nullValue()));
+  }
+
+  @Test
+  public void testSharedRetainablePresenter_hostOnTopFinishes_hostBelowKeepsPresenting() {
+    final TestRetainablePresenter retainablePresenter = new TestRetainablePresenter(dataSource);
+    final TestView viewBelow = new TestView();
+    final TestView viewOnTop = new TestView();
+
+    final RxMvpActivityDelegate<TestView, TestPresenter> delegateBelow = new RxMvpActivityDelegate<>(
+        viewBelow,
+        retainablePresenter);
+
+    final RxMvpActivityDelegate<TestView, TestPresenter> delegateOnTop = new RxMvpActivityDelegate<>(
+        viewOnTop,
+        retainablePresenter);
+
+    delegateBelow.onStart();
+    delegateBelow.onResume();
+
+    // Another instance opens on top
+    delegateBelow.onPause();
+    delegateOnTop.onStart();
+    delegateOnTop.onResume();
+    delegateBelow.onStop();
+
+    // The instance on top finishes, and the instance below resumes before the one on top is destroyed
+    delegateOnTop.onPause();
+    delegateBelow.onStart();
+    delegateBelow.onResume();
+    delegateOnTop.onStop();
+    delegateOnTop.onDestroy();
+
+    assertThat(retainablePresenter.attachedView, is(sameInstance(viewBelow)));
+
+    viewOnTop.label.onNext("dead view");
+    viewBelow.label.onNext("live view");
+
+    verify(dataSource, never()).saveText("dead view");
+    verify(dataSource, times(1)).saveText("live view");
+
+    // Resuming again must not find the presenter without a view
+    delegateBelow.onPause();
+    delegateBelow.onResume();
+
+    viewBelow.label.onNext("resumed again");
+
+    verify(dataSource, times(1)).saveText("resumed again");
+  }
+
+  private RxMvpActivityDelegate<TestView, TestPresenter> createAsyncDelegate(
+      final Scheduler scheduler,
+      final Runnable unhandledBackPressAction) {
+
+    return new RxMvpActivityDelegate<>(view, () -> presenter, scheduler, scheduler, unhandledBackPressAction);
+  }
+
   public interface TestDataSource {
     public void saveText(final String text);
   }
@@ -651,4 +1202,95 @@ public class TestRxMvpActivityDelegate {
       return pendingBackActions;
     }
   }
-}
\ No newline at end of file
+
+  public static class TestLifecycleScopedPresenter extends TestPresenter implements LifecycleScopedPresenter {
+    public LifecycleEvent lastLifecycleEvent;
+
+    public TestLifecycleScopedPresenter(final TestView view, final TestDataSource dataSource) {
+      super(view, dataSource);
+    }
+
+    @NonNull
+    @Override
+    public Completable createPresentationTasks() {
+      throw new AssertionError("Scoped presenters are only given scoped presentation tasks.");
+    }
+
+    @NonNull
+    @Override
+    public Completable createPresentationTasks(@NonNull final Observable<LifecycleEvent> lifecycleEvents) {
+      return Completable.mergeArray(
+          super.createPresentationTasks(),
+          lifecycleEvents.flatMapCompletable(event -> Completable.fromRunnable(() -> lastLifecycleEvent = event)));
+    }
+  }
+
+  public static class TestPrioritizedPresenter extends TestPresenter implements PrioritizedPresenter {
+    public final CompletableSubject deferrableTasks = CompletableSubject.create();
+
+    public final AtomicInteger deferrableTaskSubscriptions = new AtomicInteger();
+
+    public TestPrioritizedPresenter(final TestView view, final TestDataSource dataSource) {
+      super(view, dataSource);
+    }
+
+    @NonNull
+    @Override
+    public Completable createDeferrablePresentationTasks() {
+      return deferrableTasks.doOnSubscribe(disposable -> deferrableTaskSubscriptions.incrementAndGet());
+    }
+  }
+
+  public static class TestStateSavingPresenter extends TestPresenter implements StateSavingPresenter {
+    public byte[] state;
+
+    public TestStateSavingPresenter(final TestView view, final TestDataSource dataSource) {
+      super(view, dataSource);
+    }
+
+    @Override
+    public byte[] saveState() {
+      return state;
+    }
+
+    @Override
+    public void restoreState(@NonNull final byte[] state) {
+      this.state = state;
+    }
+  }
+
+  public static class TestRetainablePresenter extends TestPresenter implements RetainablePresenter<TestView> {
+    public TestView attachedView;
+
+    private final TestDataSource dataSource;
+
+    public TestRetainablePresenter(final TestDataSource dataSource) {
+      super(null, dataSource);
+      this.dataSource = dataSource;
+    }
+
+    @Override
+    public void attachView(@NonNull final TestView view) {
+      attachedView = view;
+    }
+
+    @Override
+    public void detachView(@NonNull final TestView view) {
+      if (attachedView == view) {
+        attachedView = null;
+      }
+    }
+
+    @NonNull
+    @Override
+    public Completable createPresentationTasks() {
+      if (attachedView == null) {
+        throw new IllegalStateException("Cannot create presentation tasks while no view is attached.");
+      }
+
+      return attachedView
+          .observeLabel()
+          .flatMapCompletable(label -> Completable.fromRunnable(() -> dataSource.saveText(label)));
+    }
+  }
+}
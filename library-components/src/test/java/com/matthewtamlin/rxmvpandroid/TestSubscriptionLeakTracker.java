@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Matthew David Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.rxmvpandroid;
+
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestDataSource;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestPresenter;
+import com.matthewtamlin.rxmvpandroid.TestRxMvpActivityDelegate.TestView;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TestSubscriptionLeakTracker {
+  private TestView view;
+
+  private RxMvpActivityDelegate<TestView, TestPresenter> delegate;
+
+  private SubscriptionLeakTracker tracker;
+
+  private Object reachableObject;
+
+  @Before
+  public void setup() {
+    view = new TestView();
+    delegate = new RxMvpActivityDelegate<>(view, new TestPresenter(view, mock(TestDataSource.class)));
+    tracker = new SubscriptionLeakTracker();
+
+    delegate.setSubscriptionLeakTracker(tracker);
+  }
+
+  @Test
+  public void testFindLeakedSubscriptions_pausedBeforeDestroyed() {
+    delegate.onResume();
+    delegate.onPause();
+    delegate.onDestroy();
+
+    assertThat(tracker.findLeakedSubscriptions().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testFindLeakedSubscriptions_resumedButNotDestroyed() {
+    delegate.onResume();
+
+    assertThat(tracker.findLeakedSubscriptions().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testFindLeakedSubscriptions_destroyedWithoutPause() {
+    delegate.onResume();
+    delegate.onDestroy();
+
+    assertThat(tracker.findLeakedSubscriptions().size(), is(1));
+  }
+
+  @Test
+  public void testFindLeakedSubscriptions_trackerSetAfterResume() {
+    final SubscriptionLeakTracker lateTracker = new SubscriptionLeakTracker();
+
+    delegate.onResume();
+    delegate.setSubscriptionLeakTracker(lateTracker);
+    delegate.onDestroy();
+
+    assertThat(lateTracker.findLeakedSubscriptions().size(), is(1));
+  }
+
+  @Test(expected = AssertionError.class)
+  public void testAssertNoLeakedSubscriptions_leakFound() {
+    delegate.onResume();
+    delegate.onDestroy();
+
+    tracker.assertNoLeakedSubscriptions();
+  }
+
+  @Test
+  public void testAssertNoLeakedSubscriptions_noLeakFound() {
+    delegate.onResume();
+    delegate.onPause();
+    delegate.onDestroy();
+
+    tracker.assertNoLeakedSubscriptions();
+  }
+
+  @Test
+  public void testGetRetainedObjects_objectStillReachable() {
+    reachableObject = new Object();
+
+    tracker.onHostDestroyed(new Object(), reachableObject);
+    collectGarbage();
+
+    assertThat(tracker.getRetainedObjectCount(), is(1));
+  }
+
+  @Test
+  public void testGetRetainedObjects_objectUnreachable() {
+    tracker.onHostDestroyed(new Object(), new Object());
+    collectGarbage();
+
+    assertThat(tracker.getRetainedObjectCount(), is(0));
+  }
+
+  private static void collectGarbage() {
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      System.runFinalization();
+    }
+  }
+}